@@ -0,0 +1,590 @@
+package graphs;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Contraction hierarchy of a graph under a fixed weight function, for very fast point-to-point shortest path queries.
+ * <p>
+ * Preprocessing contracts the vertices one by one in order of importance (lazy edge-difference ordering).
+ * Contracting a vertex v adds a shortcut u->w for every pair of edges u->v->w, unless a witness search
+ * finds a path from u to w that avoids v and is not longer. Every shortcut remembers the two arcs it spans,
+ * such that it can be unpacked recursively into the original edges of the graph.
+ * <p>
+ * A query runs a bidirectional dijkstra search that only follows arcs towards higher ranked vertices,
+ * which settles only a few hundred vertices even on large road networks.
+ * The result is unpacked into a normal Searcher.DGPath on the original graph.
+ * <p>
+ * The hierarchy captures the weights at the time of preprocessing; it needs to be rebuilt
+ * (or reloaded from a file that matches) after the weights or the structure of the graph have changed.
+ *
+ * @param <V> the type of the vertices
+ * @param <E> the type of the edge information
+ */
+public class ContractionHierarchy<V extends Identifiable, E> {
+
+    private static final int FILE_MAGIC = 0x43484945;    // "CHIE"
+    private static final int FILE_VERSION = 2;
+    private static final int WITNESS_SETTLE_LIMIT = 500;
+    private static final int NO_ARC = -1;
+
+    private final Graph<V, E> graph;
+    private final String metricName;        // the name of the metric of the weights, empty for other weight functions
+    private final long weightFingerprint;   // identifies the edges and their weights at the time of preprocessing
+    private final int[] rank;
+    private final int[] arcFrom;
+    private final int[] arcTo;
+    private final double[] arcWeight;
+    private final int[] arcFirst;
+    private final int[] arcSecond;
+    private final int[] upOffsets;
+    private final int[] upArcs;
+    private final int[] downOffsets;
+    private final int[] downArcs;
+
+    /**
+     * representation invariants:
+     * 1.  rank is a permutation of 0..n-1 giving the contraction order of the vertex ordinals of the graph
+     * 2.  arc a leads from arcFrom[a] to arcTo[a] with weight arcWeight[a];
+     * original edges have arcFirst[a] == arcSecond[a] == NO_ARC,
+     * shortcuts span the arcs arcFirst[a] (arcFrom[a] -> middle) and arcSecond[a] (middle -> arcTo[a])
+     * with arcWeight[a] equal to the sum of their weights
+     * 3.  upArcs[upOffsets[v] .. upOffsets[v+1]-1] are the arcs out of v towards higher ranked vertices
+     * 4.  downArcs[downOffsets[v] .. downOffsets[v+1]-1] are the arcs into v from higher ranked vertices
+     **/
+
+    private ContractionHierarchy(Graph<V, E> graph, String metricName, long weightFingerprint, int[] rank,
+                                 int[] arcFrom, int[] arcTo, double[] arcWeight, int[] arcFirst, int[] arcSecond) {
+        this.graph = graph;
+        this.metricName = metricName;
+        this.weightFingerprint = weightFingerprint;
+        this.rank = rank;
+        this.arcFrom = arcFrom;
+        this.arcTo = arcTo;
+        this.arcWeight = arcWeight;
+        this.arcFirst = arcFirst;
+        this.arcSecond = arcSecond;
+
+        // split the arcs into the upward graph by from-vertex and the downward graph by to-vertex
+        int n = rank.length;
+        this.upOffsets = new int[n + 1];
+        this.downOffsets = new int[n + 1];
+        for (int a = 0; a < arcFrom.length; a++) {
+            if (rank[arcTo[a]] > rank[arcFrom[a]]) {
+                upOffsets[arcFrom[a] + 1]++;
+            } else {
+                downOffsets[arcTo[a] + 1]++;
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            upOffsets[v + 1] += upOffsets[v];
+            downOffsets[v + 1] += downOffsets[v];
+        }
+        this.upArcs = new int[upOffsets[n]];
+        this.downArcs = new int[downOffsets[n]];
+        int[] upFill = Arrays.copyOf(upOffsets, n);
+        int[] downFill = Arrays.copyOf(downOffsets, n);
+        for (int a = 0; a < arcFrom.length; a++) {
+            if (rank[arcTo[a]] > rank[arcFrom[a]]) {
+                upArcs[upFill[arcFrom[a]]++] = a;
+            } else {
+                downArcs[downFill[arcTo[a]]++] = a;
+            }
+        }
+    }
+
+    /**
+     * preprocesses the graph into a contraction hierarchy for the given weight function
+     *
+     * @param graph
+     * @param weight provides the (non-negative) weight of an edge; a Metric uses the precomputed weight column
+     * @return the contraction hierarchy
+     */
+    public static <V extends Identifiable, E> ContractionHierarchy<V, E> build(
+            Graph<V, E> graph, ToDoubleFunction<? super E> weight) {
+        long weightFingerprint = fingerprint(graph, weight);
+        Contractor contractor = new Contractor(graph.getNumVertices());
+        WeightColumn weightColumn = Searcher.weightColumnOf(graph, weight);
+        for (int v = 0; v < graph.getNumVertices(); v++) {
+            int from = v;
+            graph.forEachOutEdge(from, (to, edgeId, edge) -> {
+                if (edge != null && to != from) {
+                    contractor.addArc(from, to,
+                            weightColumn != null ? weightColumn.get(edgeId) : weight.applyAsDouble(edge), NO_ARC, NO_ARC);
+                }
+            });
+        }
+        contractor.contractAll();
+        return new ContractionHierarchy<>(graph, nameOf(weight), weightFingerprint, contractor.rank,
+                Arrays.copyOf(contractor.arcFrom, contractor.numArcs),
+                Arrays.copyOf(contractor.arcTo, contractor.numArcs),
+                Arrays.copyOf(contractor.arcWeight, contractor.numArcs),
+                Arrays.copyOf(contractor.arcFirst, contractor.numArcs),
+                Arrays.copyOf(contractor.arcSecond, contractor.numArcs));
+    }
+
+    /**
+     * @return the graph on which the hierarchy answers queries
+     */
+    public Graph<V, E> getGraph() {
+        return graph;
+    }
+
+    /**
+     * @return the number of shortcuts that have been added to the original edges by the contraction
+     */
+    public int getNumShortcuts() {
+        int count = 0;
+        for (int first : arcFirst) {
+            if (first != NO_ARC) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Calculates the shortest path from start to target by a bidirectional search in the hierarchy.
+     * Both searches only follow arcs towards higher ranked vertices and meet at the highest ranked vertex
+     * of the shortest path, after which all shortcuts are unpacked into the original edges.
+     *
+     * @param startId  id of the start vertex of the search
+     * @param targetId id of the target vertex of the search
+     * @return the shortest path from start to target, with the vertices settled by both searches in path.visited
+     * returns null if either start or target cannot be matched with a vertex in the graph
+     * or no path can be found from start to target
+     */
+    public Searcher.DGPath<V> shortestPath(String startId, String targetId) {
+        try (SearchWorkspace workspace = SearchWorkspace.acquire()) {
+            return shortestPath(startId, targetId, workspace);
+        }
+    }
+
+    /**
+     * hierarchy query that keeps the state of both searches in the given workspace
+     * (and its companion for the backward search) instead of allocating it per query
+     */
+    public Searcher.DGPath<V> shortestPath(String startId, String targetId, SearchWorkspace workspace) {
+        V start = graph.getVertexById(startId);
+        V target = graph.getVertexById(targetId);
+        if (start == null || target == null) return null;
+
+        Searcher.DGPath<V> path = new Searcher.DGPath<>();
+        path.getVisited().add(start);
+        if (start.equals(target)) {
+            path.getVertices().add(start);
+            return path;
+        }
+        path.getVisited().add(target);
+
+        UpwardSearch forward = new UpwardSearch(workspace, upOffsets, upArcs, arcTo, arcWeight, graph.indexOf(start));
+        UpwardSearch backward = new UpwardSearch(workspace.reverse(), downOffsets, downArcs, arcFrom, arcWeight,
+                graph.indexOf(target));
+        double bestWeight = Double.MAX_VALUE;
+        int meetingVertex = -1;
+
+        // each side stops once its frontier is beyond the best path; no other meeting vertex can improve it
+        while (true) {
+            double forwardTop = forward.topPriority();
+            double backwardTop = backward.topPriority();
+            if (forwardTop >= bestWeight && backwardTop >= bestWeight) break;
+            UpwardSearch side = forwardTop <= backwardTop ? forward : backward;
+            UpwardSearch other = side == forward ? backward : forward;
+            int v = side.settleNext();
+            double otherWeightSum = other.workspace.weightSumTo(v);
+            if (otherWeightSum < Double.MAX_VALUE && side.workspace.weightSumTo(v) + otherWeightSum < bestWeight) {
+                bestWeight = side.workspace.weightSumTo(v) + otherWeightSum;
+                meetingVertex = v;
+            }
+        }
+        if (meetingVertex < 0) return null;
+        path.addVisited(graph, forward.workspace.visitedVertices());
+        path.addVisited(graph, backward.workspace.visitedVertices());
+
+        // collect the arcs from start to the meeting vertex and onwards to the target
+        Deque<Integer> arcs = new ArrayDeque<>();
+        for (int v = meetingVertex; forward.workspace.fromVertex(v) != NO_ARC; v = arcFrom[forward.workspace.fromVertex(v)]) {
+            arcs.addFirst(forward.workspace.fromVertex(v));
+        }
+        for (int v = meetingVertex; backward.workspace.fromVertex(v) != NO_ARC; v = arcTo[backward.workspace.fromVertex(v)]) {
+            arcs.addLast(backward.workspace.fromVertex(v));
+        }
+
+        path.getVertices().add(start);
+        for (int arc : arcs) {
+            unpack(arc, path);
+        }
+        path.setTotalWeight(bestWeight);
+        return path;
+    }
+
+    // appends the to-vertices of all original edges of the arc to the path, expanding shortcuts depth-first
+    private void unpack(int arc, Searcher.DGPath<V> path) {
+        Deque<Integer> stack = new ArrayDeque<>();
+        stack.push(arc);
+        while (!stack.isEmpty()) {
+            int a = stack.pop();
+            if (arcFirst[a] == NO_ARC) {
+                path.getVertices().add(graph.vertexAt(arcTo[a]));
+            } else {
+                stack.push(arcSecond[a]);
+                stack.push(arcFirst[a]);
+            }
+        }
+    }
+
+    /**
+     * saves the hierarchy into a binary file, such that the preprocessing can be skipped at the next startup.
+     * The file consists of a header with magic number, format version, the numbers of vertices and arcs,
+     * a fingerprint of the vertex ids, the name of the metric and a fingerprint of the edges and their weights,
+     * followed by the ranks of all vertices and the from, to, weight and spanned arcs of all arcs.
+     *
+     * @param file
+     * @throws IOException
+     */
+    public void save(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(FILE_VERSION);
+            out.writeInt(rank.length);
+            out.writeInt(arcFrom.length);
+            out.writeLong(fingerprint(graph));
+            out.writeUTF(metricName);
+            out.writeLong(weightFingerprint);
+            for (int r : rank) {
+                out.writeInt(r);
+            }
+            for (int a = 0; a < arcFrom.length; a++) {
+                out.writeInt(arcFrom[a]);
+                out.writeInt(arcTo[a]);
+                out.writeDouble(arcWeight[a]);
+                out.writeInt(arcFirst[a]);
+                out.writeInt(arcSecond[a]);
+            }
+        }
+    }
+
+    /**
+     * loads a hierarchy that has been saved for the given graph and weight function.
+     * The graph must have the same vertices in the same ordinal order as the graph that has been preprocessed,
+     * and the same edges with the same weights; a metric must also have the same name.
+     *
+     * @param file
+     * @param graph
+     * @param weight the weight function the hierarchy has been built for
+     * @return the contraction hierarchy
+     * @throws IOException if the file cannot be read or does not hold a hierarchy of the graph and its weights
+     */
+    public static <V extends Identifiable, E> ContractionHierarchy<V, E> load(
+            Path file, Graph<V, E> graph, ToDoubleFunction<? super E> weight) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            try {
+                return load(buffer, graph, weight);
+            } catch (RuntimeException e) {
+                throw new IOException("Invalid contraction hierarchy " + file, e);
+            }
+        }
+    }
+
+    private static <V extends Identifiable, E> ContractionHierarchy<V, E> load(
+            ByteBuffer buffer, Graph<V, E> graph, ToDoubleFunction<? super E> weight) throws IOException {
+        if (buffer.getInt() != FILE_MAGIC) {
+            throw new IOException("Not a contraction hierarchy");
+        }
+        int version = buffer.getInt();
+        if (version != FILE_VERSION) {
+            throw new IOException("Unsupported contraction hierarchy version " + version);
+        }
+        int numVertices = buffer.getInt();
+        int numArcs = buffer.getInt();
+        if (numVertices != graph.getNumVertices() || buffer.getLong() != fingerprint(graph)) {
+            throw new IOException("Contraction hierarchy does not match the vertices of the graph");
+        }
+        String metric = readUTF(buffer);
+        if (!metric.equals(nameOf(weight))) {
+            throw new IOException("Contraction hierarchy has been built for metric '" + metric + "'");
+        }
+        long weightFingerprint = buffer.getLong();
+        if (weightFingerprint != fingerprint(graph, weight)) {
+            throw new IOException("Contraction hierarchy does not match the edges or weights of the graph");
+        }
+
+        int[] rank = new int[numVertices];
+        buffer.asIntBuffer().get(rank);
+        buffer.position(buffer.position() + Integer.BYTES * rank.length);
+        int[] arcFrom = new int[numArcs];
+        int[] arcTo = new int[numArcs];
+        double[] arcWeight = new double[numArcs];
+        int[] arcFirst = new int[numArcs];
+        int[] arcSecond = new int[numArcs];
+        for (int a = 0; a < numArcs; a++) {
+            arcFrom[a] = buffer.getInt();
+            arcTo[a] = buffer.getInt();
+            arcWeight[a] = buffer.getDouble();
+            arcFirst[a] = buffer.getInt();
+            arcSecond[a] = buffer.getInt();
+        }
+        return new ContractionHierarchy<>(graph, metric, weightFingerprint, rank,
+                arcFrom, arcTo, arcWeight, arcFirst, arcSecond);
+    }
+
+    // identifies the vertices of a graph in their ordinal order
+    private static long fingerprint(Graph<?, ?> graph) {
+        long fingerprint = graph.getNumVertices();
+        for (int v = 0; v < graph.getNumVertices(); v++) {
+            fingerprint = 31 * fingerprint + graph.vertexAt(v).getId().hashCode();
+        }
+        return fingerprint;
+    }
+
+    // identifies the original edges of a graph with their weights, in the order in which they are contracted
+    private static <E> long fingerprint(Graph<?, E> graph, ToDoubleFunction<? super E> weight) {
+        WeightColumn weightColumn = Searcher.weightColumnOf(graph, weight);
+        long[] fingerprint = {0L, 0L};      // the number of edges and the hash of the edges
+        for (int v = 0; v < graph.getNumVertices(); v++) {
+            int from = v;
+            graph.forEachOutEdge(from, (to, edgeId, edge) -> {
+                if (edge == null || to == from) return;
+                double w = weightColumn != null ? weightColumn.get(edgeId) : weight.applyAsDouble(edge);
+                fingerprint[0]++;
+                fingerprint[1] = 31 * (31 * (31 * fingerprint[1] + from) + to) + Double.doubleToLongBits(w);
+            });
+        }
+        return 31 * fingerprint[1] + fingerprint[0];
+    }
+
+    // the name of a metric, or an empty name for other weight functions which can only be verified by their weights
+    private static String nameOf(ToDoubleFunction<?> weight) {
+        return weight instanceof Metric ? ((Metric<?>) weight).getName() : "";
+    }
+
+    // reads a string that has been written by DataOutput.writeUTF
+    private static String readUTF(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // dijkstra search along the arcs of either the upward or the downward graph
+    // the workspace holds the arc towards every reached vertex in place of its parent vertex
+    private static class UpwardSearch {
+        private final SearchWorkspace workspace;
+        private final int[] offsets;
+        private final int[] arcs;
+        private final int[] arcEnd;
+        private final double[] arcWeight;
+
+        private UpwardSearch(SearchWorkspace workspace, int[] offsets, int[] arcs, int[] arcEnd, double[] arcWeight,
+                             int origin) {
+            this.workspace = workspace;
+            this.offsets = offsets;
+            this.arcs = arcs;
+            this.arcEnd = arcEnd;
+            this.arcWeight = arcWeight;
+            workspace.reset(offsets.length - 1);
+            workspace.reach(origin, 0.0, NO_ARC);
+            workspace.queue().insert(origin, 0.0);
+        }
+
+        private double topPriority() {
+            return workspace.queue().peekKey();
+        }
+
+        private int settleNext() {
+            int current = workspace.queue().poll();
+            workspace.settle(current);
+            workspace.visit(current);
+            double currentWeightSum = workspace.weightSumTo(current);
+            for (int i = offsets[current]; i < offsets[current + 1]; i++) {
+                int a = arcs[i];
+                int neighbour = arcEnd[a];
+                double newDistance = currentWeightSum + arcWeight[a];
+                if (!workspace.isSettled(neighbour) && newDistance < workspace.weightSumTo(neighbour)) {
+                    workspace.reach(neighbour, newDistance, a);
+                    workspace.queue().insertOrDecrease(neighbour, newDistance);
+                }
+            }
+            return current;
+        }
+    }
+
+    // contracts the vertices of a graph into a hierarchy, working on growable arc arrays
+    private static class Contractor {
+        private final int n;
+        private int[] arcFrom = new int[16];
+        private int[] arcTo = new int[16];
+        private double[] arcWeight = new double[16];
+        private int[] arcFirst = new int[16];
+        private int[] arcSecond = new int[16];
+        private int numArcs = 0;
+        private final int[][] outArcs;
+        private final int[] outCount;
+        private final int[][] inArcs;
+        private final int[] inCount;
+        private final int[] rank;
+        private final boolean[] contracted;
+        private final int[] contractedNeighbours;
+
+        // state of the witness searches, reset via the list of touched vertices
+        private final double[] witnessWeight;
+        private final int[] touched;
+        private final IndexedMinHeap witnessQueue;
+        private int numTouched = 0;
+
+        private Contractor(int n) {
+            this.n = n;
+            this.outArcs = new int[n][];
+            this.outCount = new int[n];
+            this.inArcs = new int[n][];
+            this.inCount = new int[n];
+            this.rank = new int[n];
+            this.contracted = new boolean[n];
+            this.contractedNeighbours = new int[n];
+            this.witnessWeight = new double[n];
+            this.touched = new int[n];
+            this.witnessQueue = new IndexedMinHeap(n);
+            Arrays.fill(witnessWeight, Double.MAX_VALUE);
+            for (int v = 0; v < n; v++) {
+                outArcs[v] = new int[4];
+                inArcs[v] = new int[4];
+            }
+        }
+
+        private int addArc(int from, int to, double weight, int first, int second) {
+            if (numArcs == arcFrom.length) {
+                int capacity = 2 * numArcs;
+                arcFrom = Arrays.copyOf(arcFrom, capacity);
+                arcTo = Arrays.copyOf(arcTo, capacity);
+                arcWeight = Arrays.copyOf(arcWeight, capacity);
+                arcFirst = Arrays.copyOf(arcFirst, capacity);
+                arcSecond = Arrays.copyOf(arcSecond, capacity);
+            }
+            int a = numArcs++;
+            arcFrom[a] = from;
+            arcTo[a] = to;
+            arcWeight[a] = weight;
+            arcFirst[a] = first;
+            arcSecond[a] = second;
+            if (outCount[from] == outArcs[from].length) outArcs[from] = Arrays.copyOf(outArcs[from], 2 * outCount[from]);
+            outArcs[from][outCount[from]++] = a;
+            if (inCount[to] == inArcs[to].length) inArcs[to] = Arrays.copyOf(inArcs[to], 2 * inCount[to]);
+            inArcs[to][inCount[to]++] = a;
+            return a;
+        }
+
+        private void contractAll() {
+            IndexedMinHeap queue = new IndexedMinHeap(n);
+            for (int v = 0; v < n; v++) {
+                queue.insert(v, priority(v));
+            }
+
+            int nextRank = 0;
+            while (!queue.isEmpty()) {
+                int v = queue.poll();
+
+                // lazy update: the priority may have grown by contractions in the neighbourhood
+                double newPriority = priority(v);
+                if (!queue.isEmpty() && newPriority > queue.peekKey()) {
+                    queue.insert(v, newPriority);
+                    continue;
+                }
+
+                contract(v, true);
+                contracted[v] = true;
+                rank[v] = nextRank++;
+                for (int i = 0; i < outCount[v]; i++) contractedNeighbours[arcTo[outArcs[v][i]]]++;
+                for (int i = 0; i < inCount[v]; i++) contractedNeighbours[arcFrom[inArcs[v][i]]]++;
+            }
+        }
+
+        // edge difference plus the number of contracted neighbours, which spreads the contraction evenly
+        private double priority(int v) {
+            int removedArcs = 0;
+            for (int i = 0; i < outCount[v]; i++) {
+                if (!contracted[arcTo[outArcs[v][i]]]) removedArcs++;
+            }
+            for (int i = 0; i < inCount[v]; i++) {
+                if (!contracted[arcFrom[inArcs[v][i]]]) removedArcs++;
+            }
+            return contract(v, false) - removedArcs + contractedNeighbours[v];
+        }
+
+        // counts (and adds, if requested) the shortcuts that are needed to contract v
+        private int contract(int v, boolean addShortcuts) {
+            int shortcuts = 0;
+            for (int i = 0; i < inCount[v]; i++) {
+                int inArc = inArcs[v][i];
+                int u = arcFrom[inArc];
+                if (contracted[u]) continue;
+
+                double maxWeight = 0.0;
+                for (int j = 0; j < outCount[v]; j++) {
+                    int w = arcTo[outArcs[v][j]];
+                    if (!contracted[w] && w != u) maxWeight = Math.max(maxWeight, arcWeight[outArcs[v][j]]);
+                }
+                maxWeight += arcWeight[inArc];
+                witnessSearch(u, v, maxWeight);
+
+                for (int j = 0; j < outCount[v]; j++) {
+                    int outArc = outArcs[v][j];
+                    int w = arcTo[outArc];
+                    if (contracted[w] || w == u) continue;
+                    double viaWeight = arcWeight[inArc] + arcWeight[outArc];
+                    if (witnessWeight[w] > viaWeight) {
+                        shortcuts++;
+                        if (addShortcuts) addArc(u, w, viaWeight, inArc, outArc);
+                    }
+                }
+                resetWitnessSearch();
+            }
+            return shortcuts;
+        }
+
+        // limited dijkstra search from u among the remaining vertices, avoiding v
+        private void witnessSearch(int u, int avoid, double maxWeight) {
+            touch(u, 0.0);
+            witnessQueue.insert(u, 0.0);
+            int settled = 0;
+            while (!witnessQueue.isEmpty() && settled < WITNESS_SETTLE_LIMIT) {
+                if (witnessQueue.peekKey() > maxWeight) break;
+                int current = witnessQueue.poll();
+                settled++;
+                for (int i = 0; i < outCount[current]; i++) {
+                    int a = outArcs[current][i];
+                    int neighbour = arcTo[a];
+                    if (neighbour == avoid || contracted[neighbour]) continue;
+                    double newWeight = witnessWeight[current] + arcWeight[a];
+                    if (newWeight < witnessWeight[neighbour]) {
+                        touch(neighbour, newWeight);
+                        witnessQueue.insertOrDecrease(neighbour, newWeight);
+                    }
+                }
+            }
+            witnessQueue.clear();
+        }
+
+        private void touch(int vertex, double weight) {
+            if (witnessWeight[vertex] == Double.MAX_VALUE) touched[numTouched++] = vertex;
+            witnessWeight[vertex] = weight;
+        }
+
+        private void resetWitnessSearch() {
+            for (int i = 0; i < numTouched; i++) {
+                witnessWeight[touched[i]] = Double.MAX_VALUE;
+            }
+            numTouched = 0;
+        }
+    }
+}
@@ -0,0 +1,364 @@
+package graphs;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Immutable compressed-sparse-row (CSR) snapshot of a DirectedGraph.
+ * Vertices are numbered by dense int ordinals 0..n-1 and all out-going edges are packed into
+ * flat arrays, which makes repeated read-only queries (like route searches on a loaded RoadMap)
+ * cache-friendly and free of nested hash lookups.
+ * <p>
+ * The snapshot shares the vertex and edge instances with the graph it has been frozen from,
+ * but later structural changes of that graph (added vertices or edges) are not reflected.
+ *
+ * @param <V> the type of the vertices
+ * @param <E> the type of the edge information
+ */
+public class CsrGraph<V extends Identifiable, E> implements Graph<V, E> {
+
+    private final V[] vertices;
+    private final Map<String, Integer> ordinals;
+    private final int[] offsets;
+    private final int[] targets;
+    private final E[] edges;
+    private final int[] inOffsets;
+    private final int[] inSources;
+    private final int[] inEdgeIds;
+    private final LongSupplier weightVersion;
+    private final WeightColumns weightColumns = new WeightColumns();
+
+    /**
+     * representation invariants:
+     * 1.  vertices[i] is the vertex with ordinal i and ordinals.get(vertices[i].getId()) == i
+     * 2.  offsets has length numVertices + 1, offsets[0] == 0 and offsets is non-decreasing
+     * 3.  the out-going edges of vertex i are found at positions offsets[i] .. offsets[i+1]-1
+     * of the parallel arrays targets (holding the ordinal of the to-vertex) and edges
+     * 4.  within the range of a single vertex, targets are sorted ascending without duplicates
+     * 5.  the in-coming edges of vertex i are found at positions inOffsets[i] .. inOffsets[i+1]-1
+     * of the parallel arrays inSources (holding the ordinal of the from-vertex) and inEdgeIds
+     * (holding the position of the edge in the out-going arrays), sorted ascending by from-vertex
+     **/
+
+    /**
+     * @param weightVersion tells when the weights of the (mutable) edge instances may have changed
+     */
+    CsrGraph(V[] vertices, int[] offsets, int[] targets, E[] edges, LongSupplier weightVersion) {
+        this.vertices = vertices;
+        this.weightVersion = weightVersion;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.edges = edges;
+        this.ordinals = new HashMap<>();
+        for (int i = 0; i < vertices.length; i++) {
+            ordinals.put(vertices[i].getId(), i);
+        }
+
+        // build the reverse adjacency by counting sort on the to-vertex
+        this.inOffsets = new int[vertices.length + 1];
+        this.inSources = new int[targets.length];
+        this.inEdgeIds = new int[targets.length];
+        for (int target : targets) {
+            inOffsets[target + 1]++;
+        }
+        for (int v = 0; v < vertices.length; v++) {
+            inOffsets[v + 1] += inOffsets[v];
+        }
+        int[] fill = Arrays.copyOf(inOffsets, vertices.length);
+        for (int from = 0; from < vertices.length; from++) {
+            for (int e = offsets[from]; e < offsets[from + 1]; e++) {
+                int position = fill[targets[e]]++;
+                inSources[position] = from;
+                inEdgeIds[position] = e;
+            }
+        }
+    }
+
+    // creates a new version of the snapshot with different edge information
+    // which shares all structural arrays with the original
+    private CsrGraph(CsrGraph<V, E> original, E[] edges, LongSupplier weightVersion) {
+        this.vertices = original.vertices;
+        this.ordinals = original.ordinals;
+        this.offsets = original.offsets;
+        this.targets = original.targets;
+        this.inOffsets = original.inOffsets;
+        this.inSources = original.inSources;
+        this.inEdgeIds = original.inEdgeIds;
+        this.weightVersion = weightVersion;
+        this.edges = edges;
+    }
+
+    /**
+     * creates a new version of this snapshot in which the edge information at the given positions is replaced.
+     * This snapshot remains unchanged; the new version shares the vertices and the adjacency structure,
+     * only the edge array is copied, which takes O(E) time and memory regardless of the number of replacements.
+     *
+     * @param replacements the new edge information by edge position
+     * @return the new version of the snapshot
+     */
+    public CsrGraph<V, E> withEdges(Map<Integer, ? extends E> replacements) {
+        E[] newEdges = edges.clone();
+        replacements.forEach((edgeIndex, edge) -> newEdges[edgeIndex] = edge);
+        return new CsrGraph<>(this, newEdges, weightVersion);
+    }
+
+    /**
+     * creates a new version of this snapshot in which all edge information has been mapped.
+     * The new version shares the vertices and the adjacency structure with this snapshot.
+     *
+     * @param mapper provides the new edge information for every existing edge
+     * @return the new version of the snapshot
+     */
+    public CsrGraph<V, E> mapEdges(Function<? super E, ? extends E> mapper) {
+        return mapEdges(mapper, weightVersion);
+    }
+
+    /**
+     * creates a new version of this snapshot in which all edge information has been mapped into new instances,
+     * whose changes are tracked by their own weight version
+     *
+     * @param mapper        provides the new edge information for every existing edge
+     * @param weightVersion tells when the weights of the new edge instances may have changed
+     * @return the new version of the snapshot
+     */
+    public CsrGraph<V, E> mapEdges(Function<? super E, ? extends E> mapper, LongSupplier weightVersion) {
+        E[] newEdges = edges.clone();
+        for (int e = 0; e < newEdges.length; e++) {
+            newEdges[e] = mapper.apply(newEdges[e]);
+        }
+        return new CsrGraph<>(this, newEdges, weightVersion);
+    }
+
+    @Override
+    public int indexOf(V vertex) {
+        if (vertex == null) return -1;
+        Integer ordinal = ordinals.get(vertex.getId());
+        return ordinal == null ? -1 : ordinal;
+    }
+
+    @Override
+    public V vertexAt(int ordinal) {
+        return vertices[ordinal];
+    }
+
+    /**
+     * @param ordinal the ordinal of the from-vertex
+     * @return the position of the first out-going edge of the vertex in the edge arrays
+     */
+    public int firstEdge(int ordinal) {
+        return offsets[ordinal];
+    }
+
+    /**
+     * @param ordinal the ordinal of the from-vertex
+     * @return the position just beyond the last out-going edge of the vertex in the edge arrays
+     */
+    public int endEdge(int ordinal) {
+        return offsets[ordinal + 1];
+    }
+
+    /**
+     * @param edgeIndex the position of an edge in the edge arrays
+     * @return the ordinal of the to-vertex of that edge
+     */
+    public int edgeTarget(int edgeIndex) {
+        return targets[edgeIndex];
+    }
+
+    /**
+     * @param edgeIndex the position of an edge in the edge arrays
+     * @return the edge information at that position
+     */
+    public E edgeAt(int edgeIndex) {
+        return edges[edgeIndex];
+    }
+
+    /**
+     * finds the position of the directed edge between two vertex ordinals by binary search
+     *
+     * @param from
+     * @param to
+     * @return the position in the edge arrays, or -1 if no such edge exists
+     */
+    public int edgeIndex(int from, int to) {
+        if (from < 0 || to < 0) return -1;
+        int index = Arrays.binarySearch(targets, offsets[from], offsets[from + 1], to);
+        return index >= 0 ? index : -1;
+    }
+
+    @Override
+    public Collection<V> getVertices() {
+        return Collections.unmodifiableList(Arrays.asList(vertices));
+    }
+
+    @Override
+    public V getVertexById(String id) {
+        Integer ordinal = ordinals.get(id);
+        return ordinal == null ? null : vertices[ordinal];
+    }
+
+    @Override
+    public Collection<V> getNeighbours(V fromVertex) {
+        int from = indexOf(fromVertex);
+        if (from < 0) return null;
+        Collection<V> neighbours = new ArrayList<>(offsets[from + 1] - offsets[from]);
+        for (int e = offsets[from]; e < offsets[from + 1]; e++) {
+            neighbours.add(vertices[targets[e]]);
+        }
+        return neighbours;
+    }
+
+    @Override
+    public int[] getNeighbours(int from) {
+        return Arrays.copyOfRange(targets, offsets[from], offsets[from + 1]);
+    }
+
+    @Override
+    public void forEachOutEdge(V fromVertex, BiConsumer<? super V, ? super E> action) {
+        int from = indexOf(fromVertex);
+        if (from < 0) return;
+        for (int e = offsets[from]; e < offsets[from + 1]; e++) {
+            action.accept(vertices[targets[e]], edges[e]);
+        }
+    }
+
+    @Override
+    public void forEachOutEdge(int from, EdgeVisitor<? super E> visitor) {
+        for (int e = offsets[from]; e < offsets[from + 1]; e++) {
+            visitor.visit(targets[e], e, edges[e]);
+        }
+    }
+
+    @Override
+    public Map<V, E> getOutEdges(V fromVertex) {
+        int from = indexOf(fromVertex);
+        if (from < 0) return null;
+        return new RowView(from);
+    }
+
+    @Override
+    public Map<V, E> getIncoming(V toVertex) {
+        int to = indexOf(toVertex);
+        if (to < 0) return null;
+        Map<V, E> incoming = new LinkedHashMap<>();
+        for (int i = inOffsets[to]; i < inOffsets[to + 1]; i++) {
+            incoming.put(vertices[inSources[i]], edges[inEdgeIds[i]]);
+        }
+        return Collections.unmodifiableMap(incoming);
+    }
+
+    @Override
+    public void forEachInEdge(int to, EdgeVisitor<? super E> visitor) {
+        for (int i = inOffsets[to]; i < inOffsets[to + 1]; i++) {
+            visitor.visit(inSources[i], inEdgeIds[i], edges[inEdgeIds[i]]);
+        }
+    }
+
+    @Override
+    public Collection<E> getEdges(V fromVertex) {
+        int from = indexOf(fromVertex);
+        if (from < 0) return null;
+        return Collections.unmodifiableList(Arrays.asList(edges).subList(offsets[from], offsets[from + 1]));
+    }
+
+    @Override
+    public E getEdge(V fromVertex, V toVertex) {
+        int index = edgeIndex(indexOf(fromVertex), indexOf(toVertex));
+        return index < 0 ? null : edges[index];
+    }
+
+    @Override
+    public E getEdge(int from, int to) {
+        int index = edgeIndex(from, to);
+        return index < 0 ? null : edges[index];
+    }
+
+    @Override
+    public int getEdgeIdBound() {
+        return edges.length;
+    }
+
+    @Override
+    public double[] weightColumn(Metric<? super E> metric) {
+        return weightColumns.get(metric, getVersion(), () -> {
+            double[] column = new double[edges.length];
+            for (int e = 0; e < edges.length; e++) {
+                column[e] = metric.applyAsDouble(edges[e]);
+            }
+            return column;
+        });
+    }
+
+    @Override
+    public long getVersion() {
+        return weightVersion.getAsLong();
+    }
+
+    @Override
+    public int getNumVertices() {
+        return vertices.length;
+    }
+
+    @Override
+    public int getNumEdges() {
+        return targets.length;
+    }
+
+    // unmodifiable map view on the out-going edges of a single vertex in the CSR arrays
+    private class RowView extends AbstractMap<V, E> {
+        private final int from;
+
+        private RowView(int from) {
+            this.from = from;
+        }
+
+        @Override
+        public E get(Object key) {
+            if (!(key instanceof Identifiable)) return null;
+            Integer to = ordinals.get(((Identifiable) key).getId());
+            return to == null ? null : getEdge(from, to);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public int size() {
+            return offsets[from + 1] - offsets[from];
+        }
+
+        @Override
+        public Set<Entry<V, E>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<V, E>> iterator() {
+                    return new Iterator<>() {
+                        private int e = offsets[from];
+
+                        @Override
+                        public boolean hasNext() {
+                            return e < offsets[from + 1];
+                        }
+
+                        @Override
+                        public Entry<V, E> next() {
+                            if (!hasNext()) throw new NoSuchElementException();
+                            Entry<V, E> entry = new SimpleImmutableEntry<>(vertices[targets[e]], edges[e]);
+                            e++;
+                            return entry;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return RowView.this.size();
+                }
+            };
+        }
+    }
+}
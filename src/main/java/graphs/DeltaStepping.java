@@ -0,0 +1,337 @@
+package graphs;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Parallel single-source shortest paths by delta-stepping (Meyer and Sanders).
+ * Vertices are kept in buckets of width delta by their tentative weight from the source.
+ * The smallest bucket is emptied in phases that relax the light edges (weight <= delta) of all its vertices
+ * in parallel, after which the heavy edges of the vertices that have been removed from the bucket
+ * are relaxed in parallel once. Tentative weights are lowered by compare-and-set, such that
+ * concurrent relaxations towards the same vertex keep the smallest weight.
+ * <p>
+ * The parents of the shortest path tree are derived after all weights are final,
+ * which avoids racing parent updates during the relaxations.
+ *
+ * @param <V> the type of the vertices
+ * @param <E> the type of the edges
+ */
+class DeltaStepping<V extends Identifiable, E> {
+
+    // the number of frontier vertices below which a relaxation task is not split any further
+    private static final int GRAIN = 256;
+    private static final long UNREACHED = Double.doubleToLongBits(Double.POSITIVE_INFINITY);
+
+    private final Graph<V, E> graph;
+    private final ToDoubleFunction<? super E> weight;
+    private final WeightColumn weightColumn;
+    private final double delta;
+    private final ForkJoinPool pool;
+    // the tentative weights as raw long bits, which order the same as the non-negative doubles they represent
+    private final AtomicLongArray weightSums;
+
+    /**
+     * representation invariants:
+     * 1.  weightSums[v] holds the bits of the smallest weight of any path from the source to v found sofar,
+     * or of Double.POSITIVE_INFINITY if v has not been reached
+     * 2.  a vertex with a final weight d has been relaxed after its weight dropped to d
+     **/
+
+    DeltaStepping(Graph<V, E> graph, ToDoubleFunction<? super E> weight, double delta, ForkJoinPool pool) {
+        if (!(delta > 0.0)) throw new IllegalArgumentException("The bucket width should be positive");
+        this.graph = graph;
+        this.weight = weight;
+        this.weightColumn = Searcher.weightColumnOf(graph, weight);
+        this.delta = delta;
+        this.pool = pool;
+        this.weightSums = new AtomicLongArray(graph.getNumVertices());
+    }
+
+    /**
+     * suggests a bucket width from the distribution of the edge weights: their mean, excluding zero weights.
+     * Most edges are light then, such that a bucket holds enough vertices to be relaxed in parallel,
+     * while few vertices need to be relaxed more than once within a bucket.
+     *
+     * @return the suggested bucket width, 1.0 for graphs without weighted edges
+     */
+    static <E> double suggestDelta(Graph<?, E> graph, ToDoubleFunction<? super E> weight) {
+        WeightColumn weightColumn = Searcher.weightColumnOf(graph, weight);
+        double[] sum = new double[1];
+        long[] count = new long[1];
+        EdgeVisitor<E> visitor = (neighbour, edgeId, edge) -> {
+            if (edge == null) return;
+            double w = weightColumn != null ? weightColumn.get(edgeId) : weight.applyAsDouble(edge);
+            if (w > 0.0) {
+                sum[0] += w;
+                count[0]++;
+            }
+        };
+        for (int v = 0; v < graph.getNumVertices(); v++) {
+            graph.forEachOutEdge(v, visitor);
+        }
+        return count[0] == 0 ? 1.0 : sum[0] / count[0];
+    }
+
+    private double weightSumTo(int vertex) {
+        return Double.longBitsToDouble(weightSums.get(vertex));
+    }
+
+    private double weightOf(int edgeId, E edge) {
+        return weightColumn != null ? weightColumn.get(edgeId) : weight.applyAsDouble(edge);
+    }
+
+    // lowers the tentative weight of the vertex, returns whether this call has lowered it
+    private boolean lower(int vertex, double weightSum) {
+        long bits = Double.doubleToLongBits(weightSum);
+        long current = weightSums.get(vertex);
+        while (bits < current) {
+            if (weightSums.compareAndSet(vertex, current, bits)) return true;
+            current = weightSums.get(vertex);
+        }
+        return false;
+    }
+
+    private long bucketOf(int vertex) {
+        return (long) (weightSumTo(vertex) / delta);
+    }
+
+    /**
+     * calculates the shortest paths from the source to all reachable vertices
+     *
+     * @param source the ordinal of the source vertex
+     * @return the shortest path tree
+     */
+    ShortestPathTree<V> run(int source) {
+        int numVertices = graph.getNumVertices();
+        for (int v = 0; v < numVertices; v++) {
+            weightSums.set(v, UNREACHED);
+        }
+        weightSums.set(source, Double.doubleToLongBits(0.0));
+
+        // the buckets hold their vertices lazily: a vertex may linger in a bucket it has left since
+        TreeMap<Long, IntBag> buckets = new TreeMap<>();
+        buckets.computeIfAbsent(0L, b -> new IntBag()).add(source);
+        int[] takenInPhase = new int[numVertices];      // the last light phase that has taken the vertex
+        int[] removedInRound = new int[numVertices];    // the last bucket round that has removed the vertex
+        int phase = 0;
+        int round = 0;
+
+        while (!buckets.isEmpty()) {
+            Map.Entry<Long, IntBag> smallest = buckets.pollFirstEntry();
+            long bucket = smallest.getKey();
+            IntBag current = smallest.getValue();
+            IntBag removed = new IntBag();
+            round++;
+
+            // relax the light edges until the bucket stays empty
+            while (current != null) {
+                phase++;
+                IntBag frontier = new IntBag();
+                for (int i = 0; i < current.size; i++) {
+                    int v = current.values[i];
+                    if (takenInPhase[v] == phase || bucketOf(v) != bucket) continue;
+                    takenInPhase[v] = phase;
+                    frontier.add(v);
+                    if (removedInRound[v] != round) {
+                        removedInRound[v] = round;
+                        removed.add(v);
+                    }
+                }
+                distribute(relax(frontier, true), buckets);
+                current = buckets.remove(bucket);
+            }
+
+            // the weights of the removed vertices are final now, so their heavy edges are relaxed once
+            distribute(relax(removed, false), buckets);
+        }
+
+        return buildTree(source);
+    }
+
+    // registers the lowered vertices in the buckets of their current weight
+    private void distribute(IntBag lowered, TreeMap<Long, IntBag> buckets) {
+        for (int i = 0; i < lowered.size; i++) {
+            int v = lowered.values[i];
+            buckets.computeIfAbsent(bucketOf(v), b -> new IntBag()).add(v);
+        }
+    }
+
+    // relaxes the light or heavy edges of all vertices in parallel
+    private IntBag relax(IntBag vertices, boolean light) {
+        if (vertices.size == 0) return vertices;
+        if (vertices.size <= GRAIN) return new RelaxTask(vertices.values, 0, vertices.size, light).compute();
+        return pool.invoke(new RelaxTask(vertices.values, 0, vertices.size, light));
+    }
+
+    // relaxes the edges of a range of vertices, splitting the range into parallel subtasks
+    // it returns the neighbours whose weight it has lowered
+    @SuppressWarnings("serial")
+    private class RelaxTask extends RecursiveTask<IntBag> implements EdgeVisitor<E> {
+        private final int[] vertices;
+        private final int from;
+        private final int to;
+        private final boolean light;
+        private IntBag lowered;
+        private double currentWeightSum;
+
+        private RelaxTask(int[] vertices, int from, int to, boolean light) {
+            this.vertices = vertices;
+            this.from = from;
+            this.to = to;
+            this.light = light;
+        }
+
+        @Override
+        protected IntBag compute() {
+            if (to - from > GRAIN) {
+                int middle = (from + to) >>> 1;
+                RelaxTask left = new RelaxTask(vertices, from, middle, light);
+                RelaxTask right = new RelaxTask(vertices, middle, to, light);
+                left.fork();
+                IntBag lowered = right.compute();
+                lowered.addAll(left.join());
+                return lowered;
+            }
+            lowered = new IntBag();
+            for (int i = from; i < to; i++) {
+                currentWeightSum = weightSumTo(vertices[i]);
+                graph.forEachOutEdge(vertices[i], this);
+            }
+            return lowered;
+        }
+
+        @Override
+        public void visit(int neighbour, int edgeId, E edge) {
+            if (edge == null) return;
+            double w = weightOf(edgeId, edge);
+            if ((w <= delta) != light) return;
+            if (lower(neighbour, currentWeightSum + w)) lowered.add(neighbour);
+        }
+    }
+
+    // derives the shortest path tree from the final weights: the parent of a vertex is an in-coming neighbour
+    // along which its final weight has been found
+    private ShortestPathTree<V> buildTree(int source) {
+        int numVertices = graph.getNumVertices();
+        int[] parents = new int[numVertices];
+        Arrays.fill(parents, -1);
+
+        // parents with a smaller weight are found in parallel; they can never form a cycle
+        pool.invoke(new ParentTask(parents, 0, numVertices));
+
+        // vertices that are only reached by zero weight edges take a parent with the same weight,
+        // which itself has a parent already, until all of them have been resolved
+        boolean[] resolved = new boolean[numVertices];
+        IntBag unresolved = new IntBag();
+        int numReached = 0;
+        for (int v = 0; v < numVertices; v++) {
+            if (weightSums.get(v) == UNREACHED) continue;
+            numReached++;
+            resolved[v] = v == source || parents[v] >= 0;
+            if (!resolved[v]) unresolved.add(v);
+        }
+        while (unresolved.size > 0) {
+            IntBag remaining = new IntBag();
+            for (int i = 0; i < unresolved.size; i++) {
+                int v = unresolved.values[i];
+                double weightSum = weightSumTo(v);
+                graph.forEachInEdge(v, (neighbour, edgeId, edge) -> {
+                    if (parents[v] < 0 && edge != null && resolved[neighbour] &&
+                            weightSumTo(neighbour) + weightOf(edgeId, edge) == weightSum) {
+                        parents[v] = neighbour;
+                    }
+                });
+                if (parents[v] >= 0) {
+                    resolved[v] = true;
+                } else {
+                    remaining.add(v);
+                }
+            }
+            // every unresolved vertex has a chain of final relaxations from a resolved one
+            if (remaining.size == unresolved.size) throw new IllegalStateException("Inconsistent shortest path weights");
+            unresolved = remaining;
+        }
+
+        // order the reached vertices by their weight, with the source first
+        Integer[] order = new Integer[numReached - 1];
+        int n = 0;
+        for (int v = 0; v < numVertices; v++) {
+            if (v != source && weightSums.get(v) != UNREACHED) order[n++] = v;
+        }
+        Arrays.parallelSort(order, (a, b) -> Long.compare(weightSums.get(a), weightSums.get(b)));
+
+        int[] ordinals = new int[numReached];
+        double[] weights = new double[numReached];
+        int[] treeParents = new int[numReached];
+        ordinals[0] = source;
+        treeParents[0] = -1;
+        for (int i = 1; i < numReached; i++) {
+            ordinals[i] = order[i - 1];
+            weights[i] = weightSumTo(ordinals[i]);
+            treeParents[i] = parents[ordinals[i]];
+        }
+        return new ShortestPathTree<>(graph, ordinals, weights, treeParents);
+    }
+
+    // finds the parents with a smaller weight of a range of vertices, splitting the range into parallel subtasks
+    @SuppressWarnings("serial")
+    private class ParentTask extends RecursiveAction {
+        private final int[] parents;
+        private final int from;
+        private final int to;
+
+        private ParentTask(int[] parents, int from, int to) {
+            this.parents = parents;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 4 * GRAIN) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ParentTask(parents, from, middle), new ParentTask(parents, middle, to));
+                return;
+            }
+            for (int v = from; v < to; v++) {
+                if (weightSums.get(v) == UNREACHED) continue;
+                double weightSum = weightSumTo(v);
+                int vertex = v;
+                graph.forEachInEdge(v, (neighbour, edgeId, edge) -> {
+                    if (parents[vertex] < 0 && edge != null) {
+                        double neighbourWeightSum = weightSumTo(neighbour);
+                        if (neighbourWeightSum < weightSum && neighbourWeightSum + weightOf(edgeId, edge) == weightSum) {
+                            parents[vertex] = neighbour;
+                        }
+                    }
+                });
+            }
+        }
+    }
+
+    // growable array of ints
+    private static class IntBag {
+        private int[] values = new int[16];
+        private int size = 0;
+
+        private void add(int value) {
+            if (size == values.length) values = Arrays.copyOf(values, 2 * size);
+            values[size++] = value;
+        }
+
+        private void addAll(IntBag other) {
+            if (size + other.size > values.length) {
+                values = Arrays.copyOf(values, Math.max(2 * values.length, size + other.size));
+            }
+            System.arraycopy(other.values, 0, values, size, other.size);
+            size += other.size;
+        }
+    }
+}
@@ -1,12 +1,19 @@
 package graphs;
 
 import java.util.*;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
-public class DirectedGraph<V extends Identifiable, E> {
+public class DirectedGraph<V extends Identifiable, E> implements Graph<V, E> {
 
     private final Map<String, V> vertices = new HashMap<>();
     private final Map<V, Map<V, E>> edges = new HashMap<>();
+    private final List<V> ordinalVertices = new ArrayList<>();
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final Map<Long, V> keyedVertices = new HashMap<>();
+    private final Map<V, Map<V, E>> incoming;       // optional reverse index of edges, null if not maintained
+    private volatile CsrGraph<V, E> snapshot;      // cached result of freeze(), cleared by structural changes
+    private volatile long structureVersion;         // counts the structural changes
 
     /**
      * representation invariants:
@@ -16,13 +23,30 @@ public class DirectedGraph<V extends Identifiable, E> {
      * one from v1 to v2 in edges.get(v1).get(v2)
      * one from v2 to v1 in edges.get(v2).get(v1)
      * 4.  every vertex instance in the key-sets of edges shall also occur in the vertices map and visa versa
+     * 5.  every vertex has a dense ordinal 0..n-1: ordinalVertices.get(i) is the vertex with ordinal i
+     * and ordinals maps its id back to i. Ordinals follow the order of addition and are stable
+     * until vertices are removed, which compacts the remaining ordinals in the same relative order
+     * 6.  keyedVertices holds the first added vertex for each optional numeric key other than NO_KEY
+     * 7.  snapshot is either null or a CSR snapshot of the current structure of the graph
+     * 8.  if maintained, the incoming map stores every directed edge a second time by its to-vertex
+     * and then in the nested map by its from-vertex: incoming.get(v2).get(v1) == edges.get(v1).get(v2)
+     * and has the same key-set as the edges map
      **/
 
     public DirectedGraph() {
+        this(false);
+    }
+
+    /**
+     * @param indexIncoming whether to maintain a reverse index of all in-coming edges per vertex,
+     *                      which makes getIncoming and getPredecessors cheap at the cost of extra memory
+     */
+    public DirectedGraph(boolean indexIncoming) {
+        this.incoming = indexIncoming ? new HashMap<>() : null;
     }
 
     public Collection<V> getVertices() {
-        return vertices.values();
+        return Collections.unmodifiableList(ordinalVertices);
     }
 
     /**
@@ -36,6 +60,35 @@ public class DirectedGraph<V extends Identifiable, E> {
         return vertices.get(id);
     }
 
+    /**
+     * finds the vertex in the graph identified by the given optional numeric key
+     *
+     * @param key
+     * @return the first added vertex with the given key
+     * null if none of the vertices matches the key
+     */
+    public V getVertexByKey(long key) {
+        return key == Identifiable.NO_KEY ? null : keyedVertices.get(key);
+    }
+
+    /**
+     * @param vertex
+     * @return the dense ordinal of the vertex in the graph, or -1 if it is not part of the graph
+     */
+    public int indexOf(V vertex) {
+        if (vertex == null) return -1;
+        Integer ordinal = ordinals.get(vertex.getId());
+        return ordinal == null ? -1 : ordinal;
+    }
+
+    /**
+     * @param ordinal
+     * @return the vertex with the given dense ordinal
+     */
+    public V vertexAt(int ordinal) {
+        return ordinalVertices.get(ordinal);
+    }
+
     /**
      * Adds newVertex to the graph, if not yet present and in a way that maintains the representation invariants.
      * If a duplicate of newVertex (with the same id) already exists in the graph,
@@ -53,6 +106,16 @@ public class DirectedGraph<V extends Identifiable, E> {
         if (!isDuplicate){
             this.vertices.put(newVertex.getId(), newVertex);
             this.edges.put(newVertex, new HashMap<>());
+            if (this.incoming != null) {
+                this.incoming.put(newVertex, new HashMap<>());
+            }
+            this.ordinals.put(newVertex.getId(), ordinalVertices.size());
+            this.ordinalVertices.add(newVertex);
+            if (newVertex.getKey() != Identifiable.NO_KEY) {
+                this.keyedVertices.putIfAbsent(newVertex.getKey(), newVertex);
+            }
+            this.snapshot = null;
+            this.structureVersion++;
         }
 
         // a proper vertex shall be returned at all times
@@ -86,6 +149,69 @@ public class DirectedGraph<V extends Identifiable, E> {
         return getNeighbours(getVertexById(fromVertexId));
     }
 
+    /**
+     * retrieves the ordinals of the neighbour vertices that can be reached directly
+     * via an out-going directed edge from the vertex with ordinal 'from'
+     *
+     * @param from
+     * @return the ordinals of the neighbours, an empty array if the vertex has no neighbours
+     */
+    public int[] getNeighbours(int from) {
+        Map<V, E> destinations = edges.get(vertexAt(from));
+        int[] neighbours = new int[destinations.size()];
+        int i = 0;
+        for (V neighbour : destinations.keySet()) {
+            neighbours[i++] = ordinals.get(neighbour.getId());
+        }
+        return neighbours;
+    }
+
+    @Override
+    public void forEachOutEdge(V fromVertex, BiConsumer<? super V, ? super E> action) {
+        if (fromVertex == null || !this.vertices.containsKey(fromVertex.getId())) return;
+        this.edges.get(fromVertex).forEach(action);
+    }
+
+    /**
+     * visits all out-going edges of the vertex with ordinal 'from'.
+     * The edge positions are taken from the (cached) frozen snapshot of this graph.
+     *
+     * @param from
+     * @param visitor receives the ordinal of the neighbour, the edge position and the edge
+     */
+    @Override
+    public void forEachOutEdge(int from, EdgeVisitor<? super E> visitor) {
+        freeze().forEachOutEdge(from, visitor);
+    }
+
+    @Override
+    public Map<V, E> getOutEdges(V fromVertex) {
+        if (fromVertex == null || !this.vertices.containsKey(fromVertex.getId())) return null;
+        return Collections.unmodifiableMap(this.edges.get(fromVertex));
+    }
+
+    /**
+     * provides an unmodifiable view on the in-coming edges of 'toVertex' by their predecessor vertex.
+     * If the reverse index is maintained, the view is live,
+     * otherwise the edges are taken from the (cached) frozen snapshot of this graph.
+     *
+     * @param toVertex
+     * @return null if toVertex cannot be found in the graph
+     */
+    @Override
+    public Map<V, E> getIncoming(V toVertex) {
+        if (toVertex == null || !this.vertices.containsKey(toVertex.getId())) return null;
+        if (incoming != null) {
+            return Collections.unmodifiableMap(incoming.get(toVertex));
+        }
+        return freeze().getIncoming(toVertex);
+    }
+
+    @Override
+    public void forEachInEdge(int to, EdgeVisitor<? super E> visitor) {
+        freeze().forEachInEdge(to, visitor);
+    }
+
     /**
      * Adds a new, directed edge 'newEdge' from vertex 'fromVertex' to vertex 'toVertex'
      * Adds fromVertex or toVertex to the graph first if these don't exist yet
@@ -112,6 +238,11 @@ public class DirectedGraph<V extends Identifiable, E> {
         }
 
         destination.put(toVertex, newEdge);
+        if (incoming != null) {
+            incoming.get(toVertex).put(fromVertex, newEdge);
+        }
+        snapshot = null;
+        structureVersion++;
 
         return true;
     }
@@ -187,6 +318,17 @@ public class DirectedGraph<V extends Identifiable, E> {
         return getEdge(vertices.get(fromId), vertices.get(toId));
     }
 
+    /**
+     * retrieves the directed edge between the vertices with ordinals 'from' and 'to', if any
+     *
+     * @param from
+     * @param to
+     * @return the designated directed edge, or null if no such connection exists
+     */
+    public E getEdge(int from, int to) {
+        return edges.get(vertexAt(from)).get(vertexAt(to));
+    }
+
 
     /**
      * Adds two directed edges: one from v1 to v2 and one from v2 to v1
@@ -235,11 +377,187 @@ public class DirectedGraph<V extends Identifiable, E> {
     }
 
     /**
-     * Remove vertices without any connection from the graph
+     * Freezes the current state of the graph into an immutable compressed-sparse-row snapshot,
+     * which is better suited for many repeated read-only searches.
+     * The snapshot shares the vertex and edge instances and the vertex ordinals with this graph.
+     * The snapshot is cached until the structure of the graph changes.
+     *
+     * @return the CSR snapshot of this graph
+     */
+    public CsrGraph<V, E> freeze() {
+        CsrGraph<V, E> frozen = snapshot;
+        if (frozen == null) {
+            synchronized (this) {
+                frozen = snapshot;
+                if (frozen == null) {
+                    frozen = buildSnapshot();
+                    snapshot = frozen;
+                }
+            }
+        }
+        return frozen;
+    }
+
+    @Override
+    public int getEdgeIdBound() {
+        return freeze().getEdgeIdBound();
+    }
+
+    /**
+     * provides the weight column of the (cached) frozen snapshot,
+     * indexed by the edge ids reported by the edge visitors of this graph
+     */
+    @Override
+    public double[] weightColumn(Metric<? super E> metric) {
+        return freeze().weightColumn(metric);
+    }
+
+    @Override
+    public long getVersion() {
+        return structureVersion + getWeightVersion();
+    }
+
+    /**
+     * @return a counter which increases whenever vertices or edges are added or removed
+     */
+    public long getStructureVersion() {
+        return structureVersion;
+    }
+
+    /**
+     * tells when the weights of the edge instances may have changed.
+     * Subclasses with mutable edge information shall override this,
+     * such that cached weight columns are recalculated after such changes.
+     *
+     * @return a counter which increases whenever an edge weight may have changed
+     */
+    protected long getWeightVersion() {
+        return 0L;
+    }
+
+    /**
+     * creates a persistent version of the current state of the graph,
+     * which can be changed into what-if scenarios without affecting this graph or each other
+     *
+     * @return a version without changes on top of the frozen snapshot of this graph
+     */
+    public OverlayGraph<V, E> overlay() {
+        return new OverlayGraph<>(freeze());
+    }
+
+    @SuppressWarnings("unchecked")
+    private CsrGraph<V, E> buildSnapshot() {
+        int numVertices = vertices.size();
+        V[] ordered = ordinalVertices.toArray((V[]) new Identifiable[numVertices]);
+
+        int[] offsets = new int[numVertices + 1];
+        int[] targets = new int[getNumEdges()];
+        E[] edgeArray = (E[]) new Object[targets.length];
+        int position = 0;
+        for (int from = 0; from < numVertices; from++) {
+            offsets[from] = position;
+            // sort the row by target ordinal, which allows binary search in the snapshot
+            List<Map.Entry<V, E>> row = new ArrayList<>(edges.get(ordered[from]).entrySet());
+            row.sort(Comparator.comparingInt(e -> indexOf(e.getKey())));
+            for (Map.Entry<V, E> entry : row) {
+                targets[position] = indexOf(entry.getKey());
+                edgeArray[position] = entry.getValue();
+                position++;
+            }
+        }
+        offsets[numVertices] = position;
+
+        return new CsrGraph<>(ordered, offsets, targets, edgeArray, this::getWeightVersion);
+    }
+
+    /**
+     * Fills an empty graph at once from a compressed-sparse-row layout, e.g. as read from a binary file,
+     * without the duplicate checks of addOrGetVertex and addEdge.
+     * The given arrays become the frozen snapshot of the graph, such that freeze() does not rebuild it;
+     * they shall not be changed afterwards.
+     *
+     * @param ordered   the vertices in order of their ordinal, with distinct ids
+     * @param offsets   the out-going edges of vertex i are at positions offsets[i] .. offsets[i+1]-1
+     * @param targets   the ordinal of the to-vertex of every edge, ascending without duplicates per vertex
+     * @param edgeArray the edge information of every edge
+     * @throws IllegalStateException    if the graph is not empty
+     * @throws IllegalArgumentException if the arrays do not describe a valid graph
+     */
+    protected void fillFromCsr(V[] ordered, int[] offsets, int[] targets, E[] edgeArray) {
+        if (!vertices.isEmpty()) throw new IllegalStateException("The graph should be empty");
+        int numVertices = ordered.length;
+        if (offsets.length != numVertices + 1 || offsets[0] != 0 || offsets[numVertices] != targets.length
+                || edgeArray.length != targets.length) {
+            throw new IllegalArgumentException("The offsets do not match the edges");
+        }
+
+        List<Map<V, E>> rows = new ArrayList<>(numVertices);
+        List<Map<V, E>> reverseRows = new ArrayList<>(numVertices);
+        for (int v = 0; v < numVertices; v++) {
+            V vertex = ordered[v];
+            if (vertices.putIfAbsent(vertex.getId(), vertex) != null) {
+                throw new IllegalArgumentException("Duplicate vertex " + vertex.getId());
+            }
+            ordinals.put(vertex.getId(), v);
+            if (vertex.getKey() != Identifiable.NO_KEY) {
+                keyedVertices.putIfAbsent(vertex.getKey(), vertex);
+            }
+            rows.add(new HashMap<>(Math.max(4 * (offsets[v + 1] - offsets[v]) / 3 + 1, 16)));
+            reverseRows.add(incoming == null ? null : new HashMap<>());
+        }
+        ordinalVertices.addAll(Arrays.asList(ordered));
+
+        for (int from = 0; from < numVertices; from++) {
+            if (offsets[from + 1] < offsets[from]) throw new IllegalArgumentException("The offsets should not decrease");
+            Map<V, E> row = rows.get(from);
+            for (int e = offsets[from]; e < offsets[from + 1]; e++) {
+                if (e > offsets[from] && targets[e] <= targets[e - 1]) {
+                    throw new IllegalArgumentException("The targets of vertex " + from + " should be ascending");
+                }
+                if (edgeArray[e] == null) throw new IllegalArgumentException("The edges should not be null");
+                V to = ordered[targets[e]];
+                row.put(to, edgeArray[e]);
+                if (incoming != null) reverseRows.get(targets[e]).put(ordered[from], edgeArray[e]);
+            }
+            edges.put(ordered[from], row);
+            if (incoming != null) incoming.put(ordered[from], reverseRows.get(from));
+        }
+
+        snapshot = new CsrGraph<>(ordered, offsets, targets, edgeArray, this::getWeightVersion);
+        structureVersion++;
+    }
+
+    /**
+     * Remove vertices without any connection from the graph,
+     * i.e. vertices that have neither out-going nor in-coming edges
      */
     protected void removeUnconnectedVertices() {
-        edges.entrySet().removeIf(e -> e.getValue().isEmpty());
-        vertices.entrySet().removeIf(e -> !edges.containsKey(e.getValue()));
+        Set<V> connected = new HashSet<>();
+        edges.forEach((from, destinations) -> {
+            if (!destinations.isEmpty()) {
+                connected.add(from);
+                connected.addAll(destinations.keySet());
+            }
+        });
+        edges.keySet().retainAll(connected);
+        if (incoming != null) {
+            incoming.keySet().retainAll(connected);
+        }
+        vertices.values().retainAll(connected);
+
+        // compact the ordinals of the remaining vertices
+        // and let the first remaining vertex of every key take over the key from a removed one
+        ordinalVertices.retainAll(connected);
+        ordinals.clear();
+        keyedVertices.clear();
+        for (V vertex : ordinalVertices) {
+            ordinals.put(vertex.getId(), ordinals.size());
+            if (vertex.getKey() != Identifiable.NO_KEY) {
+                keyedVertices.putIfAbsent(vertex.getKey(), vertex);
+            }
+        }
+        snapshot = null;
+        structureVersion++;
     }
 
 
@@ -0,0 +1,251 @@
+package graphs;
+
+import java.util.Arrays;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Shortest path tree from a single root vertex towards all vertices of a graph, which is kept up to date
+ * while edge weights change in place, e.g. when the speed limit of a road is lowered because of an incident.
+ * After every change of an edge, updateEdge() repairs only the part of the tree that is affected by it
+ * (in the style of Ramalingam and Reps):
+ * a decreased weight propagates the improvement from the head of the edge by a Dijkstra search
+ * that stops at vertices whose weight does not improve;
+ * an increased weight of a tree edge detaches the subtree below it, reconnects every detached vertex
+ * to its best predecessor outside of the subtree and settles the subtree again by a Dijkstra search within it.
+ * Increases of edges outside of the tree and decreases that do not improve the head leave the tree untouched.
+ * <p>
+ * Weights and paths are queried in constant time per vertex from primitive arrays.
+ * The vertices of the graph shall not change; a tree is not safe for concurrent use.
+ *
+ * @param <V> the type of the vertices
+ * @param <E> the type of the edge information
+ */
+public class DynamicShortestPathTree<V extends Identifiable, E> {
+
+    private final Graph<V, E> graph;
+    private final ToDoubleFunction<? super E> weight;
+    private final int root;
+    private final double[] weights;
+    private final int[] parents;
+    private final IndexedMinHeap queue;
+    private final int[] detachedEpoch;
+    private int epoch;
+    private int[] subtree;
+
+    /**
+     * representation invariants:
+     * 1.  weights[root] == 0.0 and parents[root] == -1
+     * 2.  weights[v] is the weight of the shortest path from the root to v, infinite if v cannot be reached,
+     * with respect to the edge weights at the last call of updateEdge() for every changed edge
+     * 3.  for every reached vertex v != root, parents[v] is the ordinal of its predecessor on that path
+     * and weights[v] == weights[parents[v]] + weight of the edge from parents[v] to v;
+     * parents[v] == -1 for all unreached vertices
+     * 4.  vertex v belongs to the subtree being repaired iff detachedEpoch[v] == epoch
+     **/
+
+    private DynamicShortestPathTree(Graph<V, E> graph, ToDoubleFunction<? super E> weight, int root) {
+        this.graph = graph;
+        this.weight = weight;
+        this.root = root;
+        int n = graph.getNumVertices();
+        this.weights = new double[n];
+        this.parents = new int[n];
+        this.queue = new IndexedMinHeap(n);
+        this.detachedEpoch = new int[n];
+        this.subtree = new int[16];
+        build();
+    }
+
+    /**
+     * builds the shortest path tree from the given root by a full Dijkstra search
+     *
+     * @param graph
+     * @param rootId id of the root vertex of the tree
+     * @param weight provides the (non-negative) weight of an edge; it is evaluated again upon every update
+     * @return the tree, or null if the root cannot be matched with a vertex in the graph
+     */
+    public static <V extends Identifiable, E> DynamicShortestPathTree<V, E> of(
+            Graph<V, E> graph, String rootId, ToDoubleFunction<? super E> weight) {
+        V root = graph.getVertexById(rootId);
+        if (root == null) return null;
+        return new DynamicShortestPathTree<>(graph, weight, graph.indexOf(root));
+    }
+
+    private void build() {
+        Arrays.fill(weights, Double.POSITIVE_INFINITY);
+        Arrays.fill(parents, -1);
+        weights[root] = 0.0;
+        queue.clear();
+        queue.insert(root, 0.0);
+        propagate(false);
+    }
+
+    /**
+     * repairs the tree after the weight of the edge from fromId to toId has changed in place,
+     * or after the edge has been added or removed
+     *
+     * @param fromId id of the tail of the changed edge
+     * @param toId   id of the head of the changed edge
+     * @return the number of vertices whose weight or parent has been repaired,
+     * 0 if the change does not affect the tree or either vertex is unknown
+     */
+    public int updateEdge(String fromId, String toId) {
+        V from = graph.getVertexById(fromId);
+        V to = graph.getVertexById(toId);
+        if (from == null || to == null) return 0;
+        return updateEdge(graph.indexOf(from), graph.indexOf(to));
+    }
+
+    private int updateEdge(int from, int to) {
+        E edge = graph.getEdge(from, to);
+        double newWeight = edge == null ? Double.POSITIVE_INFINITY : weightSumVia(from, edge);
+
+        if (newWeight < weights[to]) {
+            // the edge has become a shortcut towards its head, propagate the improvement from there
+            weights[to] = newWeight;
+            parents[to] = from;
+            queue.clear();
+            queue.insert(to, newWeight);
+            return propagate(false);
+        }
+        if (parents[to] == from && newWeight > weights[to]) {
+            // a tree edge has become more expensive, only the subtree below it can become more expensive
+            return repairSubtree(to);
+        }
+        return 0;
+    }
+
+    // rebuilds the subtree below the given vertex from its best connections to the rest of the tree
+    private int repairSubtree(int top) {
+        if (++epoch == 0) {
+            Arrays.fill(detachedEpoch, 0);
+            epoch = 1;
+        }
+        int size = collectSubtree(top);
+        for (int i = 0; i < size; i++) {
+            weights[subtree[i]] = Double.POSITIVE_INFINITY;
+            parents[subtree[i]] = -1;
+        }
+
+        queue.clear();
+        for (int i = 0; i < size; i++) {
+            int v = subtree[i];
+            graph.forEachInEdge(v, (predecessor, edgeId, edge) -> {
+                if (edge == null || detachedEpoch[predecessor] == epoch) return;
+                double weightSum = weightSumVia(predecessor, edge);
+                if (weightSum < weights[v]) {
+                    weights[v] = weightSum;
+                    parents[v] = predecessor;
+                }
+            });
+            if (weights[v] < Double.POSITIVE_INFINITY) queue.insert(v, weights[v]);
+        }
+        propagate(true);
+        return size;
+    }
+
+    // collects the given vertex and all its descendants in the tree in subtree and marks them as detached
+    private int collectSubtree(int top) {
+        subtree[0] = top;
+        detachedEpoch[top] = epoch;
+        int size = 1;
+        for (int i = 0; i < size; i++) {
+            int v = subtree[i];
+            int[] neighbours = graph.getNeighbours(v);
+            for (int child : neighbours) {
+                if (parents[child] == v && detachedEpoch[child] != epoch) {
+                    if (size == subtree.length) subtree = Arrays.copyOf(subtree, 2 * size);
+                    subtree[size++] = child;
+                    detachedEpoch[child] = epoch;
+                }
+            }
+        }
+        return size;
+    }
+
+    // settles the vertices in the queue by Dijkstra's algorithm, optionally only relaxing towards detached vertices
+    // returns the number of vertices that have been settled
+    private int propagate(boolean detachedOnly) {
+        int settled = 0;
+        while (!queue.isEmpty()) {
+            int current = queue.poll();
+            settled++;
+            graph.forEachOutEdge(current, (neighbour, edgeId, edge) -> {
+                if (edge == null || (detachedOnly && detachedEpoch[neighbour] != epoch)) return;
+                double weightSum = weightSumVia(current, edge);
+                if (weightSum < weights[neighbour]) {
+                    weights[neighbour] = weightSum;
+                    parents[neighbour] = current;
+                    queue.insertOrDecrease(neighbour, weightSum);
+                }
+            });
+        }
+        return settled;
+    }
+
+    private double weightSumVia(int from, E edge) {
+        return weights[from] + weight.applyAsDouble(edge);
+    }
+
+    /**
+     * @return the root vertex of the tree
+     */
+    public V getRoot() {
+        return graph.vertexAt(root);
+    }
+
+    /**
+     * @param vertex
+     * @return the weight of the shortest path from the root to the vertex,
+     * or Double.POSITIVE_INFINITY if the vertex cannot be reached or is unknown
+     */
+    public double getWeight(V vertex) {
+        int v = graph.indexOf(vertex);
+        return v < 0 ? Double.POSITIVE_INFINITY : weights[v];
+    }
+
+    public double getWeight(String id) {
+        V vertex = graph.getVertexById(id);
+        return vertex == null ? Double.POSITIVE_INFINITY : getWeight(vertex);
+    }
+
+    /**
+     * @param vertex
+     * @return the predecessor of the vertex on its shortest path from the root,
+     * or null for the root and for vertices that cannot be reached
+     */
+    public V getParent(V vertex) {
+        int v = graph.indexOf(vertex);
+        return v < 0 || parents[v] < 0 ? null : graph.vertexAt(parents[v]);
+    }
+
+    /**
+     * @param targetId id of the target vertex
+     * @return the shortest path from the root towards the target, with its weight in totalWeight,
+     * or null if the target is unknown or cannot be reached
+     */
+    public Searcher.DGPath<V> getPath(String targetId) {
+        V target = graph.getVertexById(targetId);
+        if (target == null) return null;
+        int t = graph.indexOf(target);
+        if (weights[t] == Double.POSITIVE_INFINITY) return null;
+
+        Searcher.DGPath<V> path = new Searcher.DGPath<>();
+        for (int v = t; v >= 0; v = parents[v]) {
+            path.getVertices().addFirst(graph.vertexAt(v));
+        }
+        path.setTotalWeight(weights[t]);
+        return path;
+    }
+
+    /**
+     * @return the number of vertices that can be reached from the root, including the root
+     */
+    public int getNumReached() {
+        int count = 0;
+        for (double w : weights) {
+            if (w < Double.POSITIVE_INFINITY) count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,20 @@
+package graphs;
+
+/**
+ * Callback for allocation-free iteration along the out-going or in-coming edges of a vertex by ordinal.
+ *
+ * @param <E> the type of the edge information
+ */
+@FunctionalInterface
+public interface EdgeVisitor<E> {
+
+    /**
+     * visits a single directed edge
+     *
+     * @param neighbour the ordinal of the vertex at the other end of the edge:
+     *                  the to-vertex of an out-going edge or the from-vertex of an in-coming edge
+     * @param edgeId    the position of the edge in the CSR layout of the graph
+     * @param edge      the edge information
+     */
+    void visit(int neighbour, int edgeId, E edge);
+}
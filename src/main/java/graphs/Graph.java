@@ -0,0 +1,195 @@
+package graphs;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Read-only view on a directed graph of identifiable vertices with edge information.
+ * Both the mutable DirectedGraph and its frozen CsrGraph snapshot implement this view,
+ * such that all Searcher algorithms can run on either representation.
+ *
+ * @param <V> the type of the vertices
+ * @param <E> the type of the edge information
+ */
+public interface Graph<V extends Identifiable, E> {
+
+    /**
+     * @return all vertices of the graph
+     */
+    Collection<V> getVertices();
+
+    /**
+     * finds the vertex in the graph identified by the given id
+     *
+     * @param id
+     * @return the vertex that matches the given id
+     * null if none of the vertices matches the id
+     */
+    V getVertexById(String id);
+
+    /**
+     * @param vertex
+     * @return the dense ordinal 0..n-1 of the vertex in the graph, or -1 if it is not part of the graph
+     */
+    int indexOf(V vertex);
+
+    /**
+     * @param ordinal
+     * @return the vertex with the given dense ordinal
+     */
+    V vertexAt(int ordinal);
+
+    /**
+     * retrieves the collection of neighbour vertices that can be reached directly
+     * via an out-going directed edge from 'fromVertex'
+     *
+     * @param fromVertex
+     * @return null if fromVertex cannot be found in the graph
+     * an empty collection if fromVertex has no neighbours
+     */
+    Collection<V> getNeighbours(V fromVertex);
+
+    default Collection<V> getNeighbours(String fromVertexId) {
+        return getNeighbours(getVertexById(fromVertexId));
+    }
+
+    /**
+     * retrieves the ordinals of the neighbour vertices that can be reached directly
+     * via an out-going directed edge from the vertex with ordinal 'from'
+     *
+     * @param from
+     * @return the ordinals of the neighbours, an empty array if the vertex has no neighbours
+     */
+    int[] getNeighbours(int from);
+
+    /**
+     * visits all out-going edges of 'fromVertex' with their neighbour vertex,
+     * without copying them into an intermediate collection
+     *
+     * @param fromVertex
+     * @param action     receives the neighbour vertex and the edge towards it
+     */
+    void forEachOutEdge(V fromVertex, BiConsumer<? super V, ? super E> action);
+
+    /**
+     * visits all out-going edges of the vertex with ordinal 'from',
+     * without copying them into an intermediate collection
+     *
+     * @param from
+     * @param visitor receives the ordinal of the neighbour, the edge position and the edge
+     */
+    void forEachOutEdge(int from, EdgeVisitor<? super E> visitor);
+
+    /**
+     * provides an unmodifiable live view on the out-going edges of 'fromVertex' by their neighbour vertex
+     *
+     * @param fromVertex
+     * @return null if fromVertex cannot be found in the graph
+     */
+    Map<V, E> getOutEdges(V fromVertex);
+
+    /**
+     * provides an unmodifiable view on the in-coming edges of 'toVertex' by their predecessor vertex
+     *
+     * @param toVertex
+     * @return null if toVertex cannot be found in the graph
+     */
+    Map<V, E> getIncoming(V toVertex);
+
+    /**
+     * retrieves the collection of predecessor vertices from which 'toVertex' can be reached directly
+     * via an in-coming directed edge
+     *
+     * @param toVertex
+     * @return null if toVertex cannot be found in the graph
+     * an empty collection if toVertex has no predecessors
+     */
+    default Collection<V> getPredecessors(V toVertex) {
+        Map<V, E> incoming = getIncoming(toVertex);
+        return incoming == null ? null : new ArrayList<>(incoming.keySet());
+    }
+
+    default Collection<V> getPredecessors(String toVertexId) {
+        return getPredecessors(getVertexById(toVertexId));
+    }
+
+    /**
+     * visits all in-coming edges of the vertex with ordinal 'to',
+     * without copying them into an intermediate collection
+     *
+     * @param to
+     * @param visitor receives the ordinal of the predecessor, the edge position and the edge
+     */
+    void forEachInEdge(int to, EdgeVisitor<? super E> visitor);
+
+    /**
+     * retrieves the collection of out-going edges of 'fromVertex'
+     *
+     * @param fromVertex
+     * @return null if fromVertex cannot be found in the graph
+     * an empty collection if fromVertex has no out-going edges
+     */
+    Collection<E> getEdges(V fromVertex);
+
+    default Collection<E> getEdges(String fromId) {
+        return getEdges(getVertexById(fromId));
+    }
+
+    /**
+     * retrieves the directed edge between 'fromVertex' and 'toVertex' from the graph, if any
+     *
+     * @param fromVertex the start vertex of the designated edge
+     * @param toVertex   the end vertex of the designated edge
+     * @return the designated directed edge, or null if no such connection exists
+     */
+    E getEdge(V fromVertex, V toVertex);
+
+    default E getEdge(String fromId, String toId) {
+        return getEdge(getVertexById(fromId), getVertexById(toId));
+    }
+
+    /**
+     * retrieves the directed edge between the vertices with ordinals 'from' and 'to', if any
+     *
+     * @param from
+     * @param to
+     * @return the designated directed edge, or null if no such connection exists
+     */
+    E getEdge(int from, int to);
+
+    /**
+     * @return an upper bound (exclusive) of the edge ids that are reported by the edge visitors
+     */
+    int getEdgeIdBound();
+
+    /**
+     * provides the weights of all edges under the given metric as a primitive column indexed by edge id.
+     * The column is calculated upon first use and cached by the name of the metric,
+     * until the version of the graph changes.
+     * The column shall not be modified.
+     *
+     * @param metric
+     * @return the weight column with length getEdgeIdBound()
+     */
+    double[] weightColumn(Metric<? super E> metric);
+
+    /**
+     * a version counter which changes whenever the structure of the graph
+     * or the weights of its edges may have changed
+     *
+     * @return the current version of the graph
+     */
+    long getVersion();
+
+    /**
+     * @return the total number of vertices in the graph
+     */
+    int getNumVertices();
+
+    /**
+     * @return the total number of directed edges in the graph
+     */
+    int getNumEdges();
+}
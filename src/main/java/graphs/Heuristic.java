@@ -0,0 +1,19 @@
+package graphs;
+
+/**
+ * Estimates the remaining weight of the shortest path from a vertex to the target of a goal-directed search.
+ * For A* to find the shortest path, the estimate shall never exceed the actual remaining weight (admissible)
+ * and shall not drop by more than the weight of an edge along that edge (consistent).
+ *
+ * @param <V> the type of the vertices
+ */
+@FunctionalInterface
+public interface Heuristic<V> {
+
+    /**
+     * @param vertex
+     * @param target
+     * @return a lower bound of the weight of the shortest path from vertex to target
+     */
+    double estimate(V vertex, V target);
+}
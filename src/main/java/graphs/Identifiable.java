@@ -1,5 +1,19 @@
 package graphs;
 
 public interface Identifiable {
+    /**
+     * indicates that an identifiable item has no numeric key
+     */
+    long NO_KEY = -1L;
+
     String getId();
+
+    /**
+     * an optional numeric key of the item, which allows cheap lookups without string hashing
+     *
+     * @return the numeric key, or NO_KEY if the item has none
+     */
+    default long getKey() {
+        return NO_KEY;
+    }
 }
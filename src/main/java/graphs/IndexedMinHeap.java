@@ -0,0 +1,189 @@
+package graphs;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Indexed d-ary min-heap of int ids 0..capacity-1 with primitive double keys.
+ * Every id is held at most once, and the key of a queued id can be decreased in place,
+ * such that the heap never grows beyond the number of ids and no boxed entries are created.
+ * A branching factor of 4 keeps the heap shallow while the children of a node share a cache line.
+ */
+public class IndexedMinHeap {
+
+    private static final int DEFAULT_ARITY = 4;
+
+    private final int arity;
+    private final int[] heap;
+    private final double[] keys;
+    private final int[] positions;
+    private int size = 0;
+
+    /**
+     * representation invariants:
+     * 1.  heap[0 .. size-1] holds the queued ids, keys[p] is the key of the id at heap position p
+     * 2.  positions[heap[p]] == p for all queued ids, positions[id] == -1 for all other ids
+     * 3.  keys[p] >= keys[(p - 1) / arity] for all 0 < p < size
+     **/
+
+    public IndexedMinHeap(int capacity) {
+        this(capacity, DEFAULT_ARITY);
+    }
+
+    /**
+     * @param capacity the ids in the heap range from 0 to capacity-1
+     * @param arity    the branching factor of the heap, at least 2
+     */
+    public IndexedMinHeap(int capacity, int arity) {
+        if (arity < 2) throw new IllegalArgumentException("The arity of a heap should be at least 2");
+        this.arity = arity;
+        this.heap = new int[capacity];
+        this.keys = new double[capacity];
+        this.positions = new int[capacity];
+        Arrays.fill(positions, -1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param id
+     * @return whether the id is queued in the heap
+     */
+    public boolean contains(int id) {
+        return positions[id] >= 0;
+    }
+
+    /**
+     * @param id
+     * @return the key of the queued id
+     */
+    public double keyOf(int id) {
+        return keys[positions[id]];
+    }
+
+    /**
+     * queues the id with the given key
+     *
+     * @param id
+     * @param key
+     * @throws IllegalArgumentException if the id has been queued already
+     */
+    public void insert(int id, double key) {
+        if (contains(id)) throw new IllegalArgumentException("Id " + id + " is queued already");
+        siftUp(size++, id, key);
+    }
+
+    /**
+     * decreases the key of a queued id
+     *
+     * @param id
+     * @param key the new key, which may not be larger than the current key
+     * @throws IllegalArgumentException if the id is not queued or the key would increase
+     */
+    public void decreaseKey(int id, double key) {
+        if (!contains(id) || key > keyOf(id)) {
+            throw new IllegalArgumentException("Cannot decrease the key of id " + id + " to " + key);
+        }
+        siftUp(positions[id], id, key);
+    }
+
+    /**
+     * queues the id with the given key, or decreases its key if it has been queued with a larger key already
+     *
+     * @param id
+     * @param key
+     * @return whether the id has been queued or its key has been decreased
+     */
+    public boolean insertOrDecrease(int id, double key) {
+        int position = positions[id];
+        if (position < 0) {
+            position = size++;
+        } else if (key >= keys[position]) {
+            return false;
+        }
+        siftUp(position, id, key);
+        return true;
+    }
+
+    /**
+     * @return the id with the smallest key
+     * @throws NoSuchElementException if the heap is empty
+     */
+    public int peek() {
+        if (size == 0) throw new NoSuchElementException();
+        return heap[0];
+    }
+
+    /**
+     * @return the smallest key in the heap, or Double.MAX_VALUE if the heap is empty
+     */
+    public double peekKey() {
+        return size == 0 ? Double.MAX_VALUE : keys[0];
+    }
+
+    /**
+     * removes the id with the smallest key from the heap
+     *
+     * @return the removed id
+     * @throws NoSuchElementException if the heap is empty
+     */
+    public int poll() {
+        if (size == 0) throw new NoSuchElementException();
+        int top = heap[0];
+        positions[top] = -1;
+        size--;
+        if (size > 0) siftDown(heap[size], keys[size]);
+        return top;
+    }
+
+    /**
+     * removes all ids from the heap, in time proportional to the number of queued ids
+     */
+    public void clear() {
+        for (int p = 0; p < size; p++) {
+            positions[heap[p]] = -1;
+        }
+        size = 0;
+    }
+
+    // moves the id up from the given position towards the root, until its parent has a smaller key
+    private void siftUp(int position, int id, double key) {
+        while (position > 0) {
+            int parent = (position - 1) / arity;
+            if (keys[parent] <= key) break;
+            place(position, heap[parent], keys[parent]);
+            position = parent;
+        }
+        place(position, id, key);
+    }
+
+    // moves the id down from the root, until all its children have larger keys
+    private void siftDown(int id, double key) {
+        int position = 0;
+        while (true) {
+            int firstChild = position * arity + 1;
+            if (firstChild >= size) break;
+            int smallest = firstChild;
+            int endChild = Math.min(firstChild + arity, size);
+            for (int child = firstChild + 1; child < endChild; child++) {
+                if (keys[child] < keys[smallest]) smallest = child;
+            }
+            if (keys[smallest] >= key) break;
+            place(position, heap[smallest], keys[smallest]);
+            position = smallest;
+        }
+        place(position, id, key);
+    }
+
+    private void place(int position, int id, double key) {
+        heap[position] = id;
+        keys[position] = key;
+        positions[id] = position;
+    }
+}
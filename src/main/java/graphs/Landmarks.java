@@ -0,0 +1,232 @@
+package graphs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Landmark heuristic for goal-directed ALT searches (A*, landmarks and triangle inequality).
+ * For a few landmark vertices L the weights of all shortest paths from L and towards L are precomputed.
+ * The triangle inequality then gives two lower bounds of the remaining weight from any vertex v to the target t:
+ * d(v,t) >= d(L,t) - d(L,v) and d(v,t) >= d(v,L) - d(t,L).
+ * <p>
+ * The bounds remain admissible and consistent as long as edge weights only increase after the precomputation,
+ * e.g. when speed limits are lowered because of an incident; they just become less tight on the affected routes.
+ * After weights have decreased (or the structure of the graph has changed) the landmarks must be recomputed.
+ *
+ * @param <V> the type of the vertices
+ * @param <E> the type of the edge information
+ */
+public class Landmarks<V extends Identifiable, E> implements Heuristic<V> {
+
+    private final Graph<V, E> graph;
+    private final int[] landmarks;
+    private final double[] fromLandmark;
+    private final double[] toLandmark;
+    private final int[] allLandmarks;
+
+    /**
+     * representation invariants:
+     * 1.  landmarks holds the distinct ordinals of the landmark vertices in the graph
+     * 2.  fromLandmark[l * n + v] is the weight of the shortest path from landmarks[l] to vertex v,
+     * toLandmark[l * n + v] the weight of the shortest path from vertex v to landmarks[l]
+     * (with n the number of vertices); both are infinite if there is no such path
+     **/
+
+    private Landmarks(Graph<V, E> graph, int[] landmarks, double[] fromLandmark, double[] toLandmark) {
+        this.graph = graph;
+        this.landmarks = landmarks;
+        this.fromLandmark = fromLandmark;
+        this.toLandmark = toLandmark;
+        this.allLandmarks = IntStream.range(0, landmarks.length).toArray();
+    }
+
+    /**
+     * selects landmarks by farthest-point selection: every next landmark is the vertex
+     * that is farthest away from all landmarks selected sofar, which spreads the landmarks along the borders
+     * of the graph, where they give the tightest bounds
+     *
+     * @param graph
+     * @param weight provides the (non-negative) weight of an edge; a Metric uses the precomputed weight column
+     * @param count  the number of landmarks to select
+     * @return the landmarks with their precomputed distances
+     */
+    public static <V extends Identifiable, E> Landmarks<V, E> farthest(
+            Graph<V, E> graph, ToDoubleFunction<? super E> weight, int count) {
+        int n = graph.getNumVertices();
+        count = Math.min(count, n);
+        WeightColumn weightColumn = Searcher.weightColumnOf(graph, weight);
+        int[] landmarks = new int[count];
+        double[] fromLandmark = new double[count * n];
+        double[] toLandmark = new double[count * n];
+
+        // the closest distance of every vertex to any of the landmarks selected sofar
+        double[] closest = new double[n];
+        Arrays.fill(closest, Double.POSITIVE_INFINITY);
+
+        // start from the vertex that is farthest from an arbitrary vertex
+        int next = n == 0 ? -1 : farthestOf(oneToAll(graph, 0, weight, weightColumn, true), closest);
+        for (int l = 0; l < count; l++) {
+            landmarks[l] = next;
+            precompute(graph, weight, weightColumn, landmarks[l], l, fromLandmark, toLandmark);
+            for (int v = 0; v < n; v++) {
+                closest[v] = Math.min(closest[v], Math.min(fromLandmark[l * n + v], toLandmark[l * n + v]));
+            }
+            next = farthestOf(closest, closest);
+        }
+        return new Landmarks<>(graph, landmarks, fromLandmark, toLandmark);
+    }
+
+    /**
+     * selects the vertices with the highest score as landmarks, e.g. the most populated places
+     *
+     * @param graph
+     * @param weight provides the (non-negative) weight of an edge; a Metric uses the precomputed weight column
+     * @param count  the number of landmarks to select
+     * @param score  provides the score of a vertex
+     * @return the landmarks with their precomputed distances
+     */
+    public static <V extends Identifiable, E> Landmarks<V, E> byScore(
+            Graph<V, E> graph, ToDoubleFunction<? super E> weight, int count, ToDoubleFunction<? super V> score) {
+        int n = graph.getNumVertices();
+        WeightColumn weightColumn = Searcher.weightColumnOf(graph, weight);
+        int[] landmarks = IntStream.range(0, n)
+                .boxed()
+                .sorted(Comparator.comparingDouble((Integer v) -> score.applyAsDouble(graph.vertexAt(v))).reversed())
+                .limit(count)
+                .mapToInt(Integer::intValue)
+                .toArray();
+        double[] fromLandmark = new double[landmarks.length * n];
+        double[] toLandmark = new double[landmarks.length * n];
+        for (int l = 0; l < landmarks.length; l++) {
+            precompute(graph, weight, weightColumn, landmarks[l], l, fromLandmark, toLandmark);
+        }
+        return new Landmarks<>(graph, landmarks, fromLandmark, toLandmark);
+    }
+
+    // picks the vertex with the largest distance that is not a landmark yet (closest[v] == 0.0 marks the landmarks);
+    // an infinite distance counts as the largest, so vertices that cannot reach or be reached by any landmark
+    // are picked first, which spreads the landmarks over the parts of the graph that are not connected
+    private static int farthestOf(double[] distances, double[] closest) {
+        int farthest = 0;
+        for (int v = 1; v < distances.length; v++) {
+            if (closest[v] == 0.0) continue;
+            if (closest[farthest] == 0.0 || distances[v] > distances[farthest]) farthest = v;
+        }
+        return farthest;
+    }
+
+    private static <V extends Identifiable, E> void precompute(
+            Graph<V, E> graph, ToDoubleFunction<? super E> weight, WeightColumn weightColumn,
+            int landmark, int l, double[] fromLandmark, double[] toLandmark) {
+        int n = graph.getNumVertices();
+        System.arraycopy(oneToAll(graph, landmark, weight, weightColumn, true), 0, fromLandmark, l * n, n);
+        System.arraycopy(oneToAll(graph, landmark, weight, weightColumn, false), 0, toLandmark, l * n, n);
+    }
+
+    // dijkstra's algorithm from the origin to all vertices, along out-going edges (forward)
+    // or along in-coming edges (backward, which gives the distances towards the origin)
+    private static <V extends Identifiable, E> double[] oneToAll(
+            Graph<V, E> graph, int origin, ToDoubleFunction<? super E> weight, WeightColumn weightColumn, boolean forward) {
+        double[] weightSumTo = new double[graph.getNumVertices()];
+        boolean[] marked = new boolean[graph.getNumVertices()];
+        Arrays.fill(weightSumTo, Double.POSITIVE_INFINITY);
+        weightSumTo[origin] = 0.0;
+        IndexedMinHeap queue = new IndexedMinHeap(graph.getNumVertices());
+        queue.insert(origin, 0.0);
+        int[] current = new int[1];
+        EdgeVisitor<E> relaxer = (neighbour, edgeId, edge) -> {
+            if (edge == null || marked[neighbour]) return;
+            double newDistance = weightSumTo[current[0]] +
+                    (weightColumn != null ? weightColumn.get(edgeId) : weight.applyAsDouble(edge));
+            if (newDistance < weightSumTo[neighbour]) {
+                weightSumTo[neighbour] = newDistance;
+                queue.insertOrDecrease(neighbour, newDistance);
+            }
+        };
+        while (!queue.isEmpty()) {
+            current[0] = queue.poll();
+            marked[current[0]] = true;
+            if (forward) {
+                graph.forEachOutEdge(current[0], relaxer);
+            } else {
+                graph.forEachInEdge(current[0], relaxer);
+            }
+        }
+        return weightSumTo;
+    }
+
+    /**
+     * @return the landmark vertices
+     */
+    public List<V> getLandmarks() {
+        List<V> vertices = new ArrayList<>(landmarks.length);
+        for (int landmark : landmarks) {
+            vertices.add(graph.vertexAt(landmark));
+        }
+        return vertices;
+    }
+
+    /**
+     * @param vertex
+     * @param target
+     * @return the best lower bound of the weight from vertex to target over all landmarks
+     */
+    @Override
+    public double estimate(V vertex, V target) {
+        return estimate(graph.indexOf(vertex), graph.indexOf(target), allLandmarks);
+    }
+
+    /**
+     * selects the active landmarks of a single query: those that give the best bounds between start and target.
+     * Using only a few active landmarks makes every estimate cheaper, while they hardly lose tightness
+     * for the vertices around the shortest path.
+     *
+     * @param start
+     * @param target
+     * @param count  the number of landmarks to use
+     * @return a heuristic towards the given target
+     */
+    public Heuristic<V> activeFor(V start, V target, int count) {
+        int from = graph.indexOf(start);
+        int to = graph.indexOf(target);
+        int[] active = IntStream.range(0, landmarks.length)
+                .boxed()
+                .sorted(Comparator.comparingDouble((Integer l) -> bound(l, from, to)).reversed())
+                .limit(count)
+                .mapToInt(Integer::intValue)
+                .toArray();
+        return (vertex, otherTarget) -> otherTarget.equals(target)
+                ? estimate(graph.indexOf(vertex), to, active)
+                : estimate(vertex, otherTarget);
+    }
+
+    private double estimate(int vertex, int target, int[] active) {
+        if (vertex < 0 || target < 0) return 0.0;
+        double estimate = 0.0;
+        for (int l : active) {
+            estimate = Math.max(estimate, bound(l, vertex, target));
+        }
+        return estimate;
+    }
+
+    // the lower bounds by landmark l, ignoring the infinite distances of unreachable vertices
+    private double bound(int l, int vertex, int target) {
+        int n = graph.getNumVertices();
+        double bound = 0.0;
+        double fromToTarget = fromLandmark[l * n + target];
+        double fromToVertex = fromLandmark[l * n + vertex];
+        if (fromToTarget < Double.POSITIVE_INFINITY && fromToVertex < Double.POSITIVE_INFINITY) {
+            bound = fromToTarget - fromToVertex;
+        }
+        double vertexToLandmark = toLandmark[l * n + vertex];
+        double targetToLandmark = toLandmark[l * n + target];
+        if (vertexToLandmark < Double.POSITIVE_INFINITY && targetToLandmark < Double.POSITIVE_INFINITY) {
+            bound = Math.max(bound, vertexToLandmark - targetToLandmark);
+        }
+        return bound;
+    }
+}
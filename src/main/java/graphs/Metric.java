@@ -0,0 +1,46 @@
+package graphs;
+
+import java.util.Objects;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * A named edge weight function, like "distance" or "travel-time".
+ * The name identifies the primitive weight column that a graph precomputes for the metric,
+ * such that searches can look up edge weights by a single array load instead of calling the function.
+ * Metrics with the same name shall calculate the same weights.
+ *
+ * @param <E> the type of the edge information
+ */
+public final class Metric<E> implements ToDoubleFunction<E> {
+
+    private final String name;
+    private final ToDoubleFunction<? super E> weight;
+
+    private Metric(String name, ToDoubleFunction<? super E> weight) {
+        this.name = Objects.requireNonNull(name);
+        this.weight = Objects.requireNonNull(weight);
+    }
+
+    /**
+     * @param name   the unique name of the metric
+     * @param weight calculates the weight of an edge
+     * @return the metric
+     */
+    public static <E> Metric<E> of(String name, ToDoubleFunction<? super E> weight) {
+        return new Metric<>(name, weight);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public double applyAsDouble(E edge) {
+        return weight.applyAsDouble(edge);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,349 @@
+package graphs;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Persistent version of a graph, which consists of an immutable CSR base graph and a small overlay of edge changes.
+ * Every change (withEdge, withoutEdge, withEdgeWeight) returns a new version and leaves this version untouched.
+ * Versions share the base graph and all unchanged parts of their overlays,
+ * so the memory of a version is proportional to its changes and not to the size of the base graph.
+ * This allows many what-if scenarios (road closures, speed changes) to be evaluated in parallel.
+ * <p>
+ * Unchanged edges keep their base position as edge id; replaced and added edges get ids beyond the base positions.
+ * Thereby the weight columns of the base graph remain valid for all unchanged edges, and the searches on a version
+ * only need a small patch with the weights of its changed edges.
+ *
+ * @param <V> the type of the vertices
+ * @param <E> the type of the edge information
+ */
+public class OverlayGraph<V extends Identifiable, E> implements Graph<V, E> {
+
+    // a changed edge in the overlay, edge == null marks a removed base edge
+    private static class Change<E> {
+        private final int edgeId;
+        private final E edge;
+
+        private Change(int edgeId, E edge) {
+            this.edgeId = edgeId;
+            this.edge = edge;
+        }
+    }
+
+    private final CsrGraph<V, E> base;
+    private final PersistentIntMap<Map<Integer, Change<E>>> outChanges;
+    private final PersistentIntMap<Map<Integer, Change<E>>> inChanges;
+    private final int numChanges;
+    private final int numEdges;
+    private final int nextEdgeId;
+    private final WeightColumns weightColumns = new WeightColumns();
+    private final WeightColumns weightPatches = new WeightColumns();
+
+    /**
+     * representation invariants:
+     * 1.  outChanges.get(from).get(to) and inChanges.get(to).get(from) hold the same change
+     * of the edge between the ordinals from and to; the base edge is hidden by the change
+     * 2.  the maps of this version are never modified after construction; new versions share the persistent
+     * outer maps and only copy the rows of the two vertices of the changed edge
+     * 3.  numChanges equals the number of changes in all rows of outChanges
+     * 4.  numEdges equals the number of base edges, corrected for the removed and added edges in the overlay
+     * 5.  every change with an edge has an edge id in base.getEdgeIdBound() .. nextEdgeId-1,
+     * removed base edges that have never been replaced have edge id -1
+     **/
+
+    /**
+     * creates a version without any changes
+     *
+     * @param base
+     */
+    public OverlayGraph(CsrGraph<V, E> base) {
+        this(base, PersistentIntMap.empty(), PersistentIntMap.empty(), 0, base.getNumEdges(), base.getNumEdges());
+    }
+
+    private OverlayGraph(CsrGraph<V, E> base,
+                         PersistentIntMap<Map<Integer, Change<E>>> outChanges,
+                         PersistentIntMap<Map<Integer, Change<E>>> inChanges,
+                         int numChanges, int numEdges, int nextEdgeId) {
+        this.base = base;
+        this.outChanges = outChanges;
+        this.inChanges = inChanges;
+        this.numChanges = numChanges;
+        this.numEdges = numEdges;
+        this.nextEdgeId = nextEdgeId;
+    }
+
+    /**
+     * @return the immutable base graph of this version
+     */
+    public CsrGraph<V, E> getBase() {
+        return base;
+    }
+
+    /**
+     * @return the number of edges that are changed, added or removed relative to the base graph
+     */
+    public int getNumChanges() {
+        return numChanges;
+    }
+
+    /**
+     * creates a new version in which the directed edge from 'fromVertex' to 'toVertex' is set to 'newEdge',
+     * replacing the existing edge, if any
+     *
+     * @param fromVertex
+     * @param toVertex
+     * @param newEdge
+     * @return the new version
+     * @throws IllegalArgumentException if any of the vertices is not part of the graph
+     */
+    public OverlayGraph<V, E> withEdge(V fromVertex, V toVertex, E newEdge) {
+        if (newEdge == null) throw new IllegalArgumentException("An edge should be provided");
+        return withChange(ordinalOf(fromVertex), ordinalOf(toVertex), newEdge);
+    }
+
+    public OverlayGraph<V, E> withEdge(String fromId, String toId, E newEdge) {
+        return withEdge(getVertexById(fromId), getVertexById(toId), newEdge);
+    }
+
+    /**
+     * creates a new version without the directed edge from 'fromVertex' to 'toVertex'
+     *
+     * @param fromVertex
+     * @param toVertex
+     * @return the new version, or this version if there is no such edge
+     * @throws IllegalArgumentException if any of the vertices is not part of the graph
+     */
+    public OverlayGraph<V, E> withoutEdge(V fromVertex, V toVertex) {
+        int from = ordinalOf(fromVertex);
+        int to = ordinalOf(toVertex);
+        if (getEdge(from, to) == null) return this;
+        return withChange(from, to, null);
+    }
+
+    public OverlayGraph<V, E> withoutEdge(String fromId, String toId) {
+        return withoutEdge(getVertexById(fromId), getVertexById(toId));
+    }
+
+    /**
+     * creates a new version in which the directed edge from 'fromVertex' to 'toVertex'
+     * is replaced by a reweighed copy. The existing edge instance is not modified.
+     *
+     * @param fromVertex
+     * @param toVertex
+     * @param reweigh    provides the replacement of the existing edge, e.g. a copy with another speed limit
+     * @return the new version, or this version if there is no such edge
+     * @throws IllegalArgumentException if any of the vertices is not part of the graph
+     */
+    public OverlayGraph<V, E> withEdgeWeight(V fromVertex, V toVertex, UnaryOperator<E> reweigh) {
+        int from = ordinalOf(fromVertex);
+        int to = ordinalOf(toVertex);
+        E existing = getEdge(from, to);
+        if (existing == null) return this;
+        return withChange(from, to, reweigh.apply(existing));
+    }
+
+    public OverlayGraph<V, E> withEdgeWeight(String fromId, String toId, UnaryOperator<E> reweigh) {
+        return withEdgeWeight(getVertexById(fromId), getVertexById(toId), reweigh);
+    }
+
+    private int ordinalOf(V vertex) {
+        int ordinal = indexOf(vertex);
+        if (ordinal < 0) throw new IllegalArgumentException("Unknown vertex " + vertex);
+        return ordinal;
+    }
+
+    // creates the new version by copying only the rows of the changed edge and the paths towards them
+    private OverlayGraph<V, E> withChange(int from, int to, E newEdge) {
+        boolean existedBefore = getEdge(from, to) != null;
+        Change<E> previous = changeOf(from, to);
+        int edgeId = previous != null && previous.edgeId >= 0 ? previous.edgeId : newEdge != null ? nextEdgeId : -1;
+        Change<E> change = new Change<>(edgeId, newEdge);
+
+        Map<Integer, Change<E>> outRow = rowCopy(outChanges.get(from));
+        outRow.put(to, change);
+        Map<Integer, Change<E>> inRow = rowCopy(inChanges.get(to));
+        inRow.put(from, change);
+
+        int newNumEdges = numEdges + (newEdge != null ? 1 : 0) - (existedBefore ? 1 : 0);
+        return new OverlayGraph<>(base, outChanges.put(from, outRow), inChanges.put(to, inRow),
+                previous == null ? numChanges + 1 : numChanges, newNumEdges,
+                edgeId == nextEdgeId ? nextEdgeId + 1 : nextEdgeId);
+    }
+
+    private static <E> Map<Integer, Change<E>> rowCopy(Map<Integer, Change<E>> row) {
+        return row == null ? new HashMap<>() : new HashMap<>(row);
+    }
+
+    private Change<E> changeOf(int from, int to) {
+        Map<Integer, Change<E>> row = outChanges.get(from);
+        return row == null ? null : row.get(to);
+    }
+
+    @Override
+    public Collection<V> getVertices() {
+        return base.getVertices();
+    }
+
+    @Override
+    public V getVertexById(String id) {
+        return base.getVertexById(id);
+    }
+
+    @Override
+    public int indexOf(V vertex) {
+        return base.indexOf(vertex);
+    }
+
+    @Override
+    public V vertexAt(int ordinal) {
+        return base.vertexAt(ordinal);
+    }
+
+    @Override
+    public Collection<V> getNeighbours(V fromVertex) {
+        Map<V, E> outEdges = getOutEdges(fromVertex);
+        return outEdges == null ? null : new ArrayList<>(outEdges.keySet());
+    }
+
+    @Override
+    public int[] getNeighbours(int from) {
+        Map<Integer, Change<E>> row = outChanges.get(from);
+        if (row == null) return base.getNeighbours(from);
+        int[] neighbours = new int[base.endEdge(from) - base.firstEdge(from) + row.size()];
+        int[] count = {0};
+        forEachOutEdge(from, (to, edgeId, edge) -> neighbours[count[0]++] = to);
+        return Arrays.copyOf(neighbours, count[0]);
+    }
+
+    @Override
+    public void forEachOutEdge(V fromVertex, BiConsumer<? super V, ? super E> action) {
+        int from = indexOf(fromVertex);
+        if (from < 0) return;
+        forEachOutEdge(from, (to, edgeId, edge) -> action.accept(vertexAt(to), edge));
+    }
+
+    @Override
+    public void forEachOutEdge(int from, EdgeVisitor<? super E> visitor) {
+        Map<Integer, Change<E>> row = outChanges.get(from);
+        if (row == null) {
+            base.forEachOutEdge(from, visitor);
+            return;
+        }
+        base.forEachOutEdge(from, (to, edgeId, edge) -> {
+            if (!row.containsKey(to)) visitor.visit(to, edgeId, edge);
+        });
+        row.forEach((to, change) -> {
+            if (change.edge != null) visitor.visit(to, change.edgeId, change.edge);
+        });
+    }
+
+    @Override
+    public Map<V, E> getOutEdges(V fromVertex) {
+        int from = indexOf(fromVertex);
+        if (from < 0) return null;
+        Map<V, E> outEdges = new LinkedHashMap<>();
+        forEachOutEdge(from, (to, edgeId, edge) -> outEdges.put(vertexAt(to), edge));
+        return Collections.unmodifiableMap(outEdges);
+    }
+
+    @Override
+    public Map<V, E> getIncoming(V toVertex) {
+        int to = indexOf(toVertex);
+        if (to < 0) return null;
+        Map<V, E> incoming = new LinkedHashMap<>();
+        forEachInEdge(to, (from, edgeId, edge) -> incoming.put(vertexAt(from), edge));
+        return Collections.unmodifiableMap(incoming);
+    }
+
+    @Override
+    public void forEachInEdge(int to, EdgeVisitor<? super E> visitor) {
+        Map<Integer, Change<E>> row = inChanges.get(to);
+        if (row == null) {
+            base.forEachInEdge(to, visitor);
+            return;
+        }
+        base.forEachInEdge(to, (from, edgeId, edge) -> {
+            if (!row.containsKey(from)) visitor.visit(from, edgeId, edge);
+        });
+        row.forEach((from, change) -> {
+            if (change.edge != null) visitor.visit(from, change.edgeId, change.edge);
+        });
+    }
+
+    @Override
+    public Collection<E> getEdges(V fromVertex) {
+        Map<V, E> outEdges = getOutEdges(fromVertex);
+        return outEdges == null ? null : new ArrayList<>(outEdges.values());
+    }
+
+    @Override
+    public E getEdge(V fromVertex, V toVertex) {
+        int from = indexOf(fromVertex);
+        int to = indexOf(toVertex);
+        if (from < 0 || to < 0) return null;
+        return getEdge(from, to);
+    }
+
+    @Override
+    public E getEdge(int from, int to) {
+        Change<E> change = changeOf(from, to);
+        return change != null ? change.edge : base.getEdge(from, to);
+    }
+
+    @Override
+    public int getEdgeIdBound() {
+        return nextEdgeId;
+    }
+
+    /**
+     * provides the weight column of this version, which is a copy of the base column
+     * extended with the weights of the changed edges.
+     * The searches do not need this copy, they use the patched column instead.
+     */
+    @Override
+    public double[] weightColumn(Metric<? super E> metric) {
+        return weightColumns.get(metric, getVersion(), () -> {
+            WeightColumn patched = patchedWeightColumn(metric);
+            double[] column = Arrays.copyOf(patched.base(), nextEdgeId);
+            for (int e = base.getEdgeIdBound(); e < nextEdgeId; e++) {
+                column[e] = patched.get(e);
+            }
+            return column;
+        });
+    }
+
+    /**
+     * provides the weights of this version as the shared column of the base graph
+     * with a patch that only holds the weights of the replaced and added edges
+     *
+     * @param metric
+     * @return the patched column
+     */
+    WeightColumn patchedWeightColumn(Metric<? super E> metric) {
+        int patchStart = base.getEdgeIdBound();
+        double[] patch = weightPatches.get(metric, getVersion(), () -> {
+            double[] weights = new double[nextEdgeId - patchStart];
+            outChanges.forEachValue(row -> row.values().forEach(change -> {
+                if (change.edge != null) weights[change.edgeId - patchStart] = metric.applyAsDouble(change.edge);
+            }));
+            return weights;
+        });
+        return new WeightColumn(base.weightColumn(metric), patchStart, patch);
+    }
+
+    @Override
+    public long getVersion() {
+        return base.getVersion();
+    }
+
+    @Override
+    public int getNumVertices() {
+        return base.getNumVertices();
+    }
+
+    @Override
+    public int getNumEdges() {
+        return numEdges;
+    }
+}
@@ -0,0 +1,149 @@
+package graphs;
+
+import java.util.function.Consumer;
+
+/**
+ * Persistent map from non-negative int keys (e.g. vertex ordinals) to values, organised as a
+ * hash array mapped trie on the bits of the key, five bits per level.
+ * put() returns a new version and leaves this version untouched: only the at most seven nodes
+ * along the path of the key are copied, all other nodes are shared between the versions.
+ * Thereby a sequence of k changes costs O(k log n) time and memory instead of O(k^2) with full copies.
+ *
+ * @param <T> the type of the values
+ */
+final class PersistentIntMap<T> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final PersistentIntMap<?> EMPTY = new PersistentIntMap<>(new Node(0, new Object[0]), 0);
+
+    // an inner node of the trie, slots holds a Leaf or a child Node for every bit set in bitmap
+    private static final class Node {
+        private final int bitmap;
+        private final Object[] slots;
+
+        private Node(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+    }
+
+    // a single entry of the map
+    private static final class Leaf {
+        private final int key;
+        private final Object value;
+
+        private Leaf(int key, Object value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    private final Node root;
+    private final int size;
+
+    /**
+     * representation invariants:
+     * 1.  the nodes of a version are never modified after construction
+     * 2.  a leaf at depth d is found by the key bits d*BITS .. d*BITS+BITS-1 at every level above it,
+     * and is the only leaf below its position in its parent node
+     * 3.  slots are ordered by their bit in the bitmap and no leaf holds a null value
+     * 4.  size is the number of leaves
+     **/
+
+    private PersistentIntMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> PersistentIntMap<T> empty() {
+        return (PersistentIntMap<T>) EMPTY;
+    }
+
+    /**
+     * @param key
+     * @return the value of the key, or null if the key is not in the map
+     */
+    @SuppressWarnings("unchecked")
+    T get(int key) {
+        Node node = root;
+        for (int shift = 0; ; shift += BITS) {
+            int bit = 1 << ((key >>> shift) & MASK);
+            if ((node.bitmap & bit) == 0) return null;
+            Object slot = node.slots[Integer.bitCount(node.bitmap & (bit - 1))];
+            if (slot instanceof Leaf leaf) return leaf.key == key ? (T) leaf.value : null;
+            node = (Node) slot;
+        }
+    }
+
+    /**
+     * @param key   a non-negative key
+     * @param value the new value of the key, not null
+     * @return the new version of the map in which the key has the given value
+     */
+    PersistentIntMap<T> put(int key, T value) {
+        if (key < 0 || value == null) throw new IllegalArgumentException("A non-negative key and a value should be provided");
+        int newSize = get(key) == null ? size + 1 : size;
+        return new PersistentIntMap<>(put(root, 0, new Leaf(key, value)), newSize);
+    }
+
+    // copies the path towards the key of the leaf and puts the leaf at its end
+    private static Node put(Node node, int shift, Leaf leaf) {
+        int bit = 1 << ((leaf.key >>> shift) & MASK);
+        int index = Integer.bitCount(node.bitmap & (bit - 1));
+        if ((node.bitmap & bit) == 0) {
+            Object[] slots = new Object[node.slots.length + 1];
+            System.arraycopy(node.slots, 0, slots, 0, index);
+            slots[index] = leaf;
+            System.arraycopy(node.slots, index, slots, index + 1, node.slots.length - index);
+            return new Node(node.bitmap | bit, slots);
+        }
+        Object slot = node.slots[index];
+        Object[] slots = node.slots.clone();
+        if (slot instanceof Leaf existing) {
+            slots[index] = existing.key == leaf.key ? leaf : split(shift + BITS, existing, leaf);
+        } else {
+            slots[index] = put((Node) slot, shift + BITS, leaf);
+        }
+        return new Node(node.bitmap, slots);
+    }
+
+    // creates the subtrie below the given level which holds two leaves with different keys
+    private static Node split(int shift, Leaf a, Leaf b) {
+        int fragmentA = (a.key >>> shift) & MASK;
+        int fragmentB = (b.key >>> shift) & MASK;
+        if (fragmentA == fragmentB) {
+            return new Node(1 << fragmentA, new Object[]{split(shift + BITS, a, b)});
+        }
+        Object[] slots = fragmentA < fragmentB ? new Object[]{a, b} : new Object[]{b, a};
+        return new Node((1 << fragmentA) | (1 << fragmentB), slots);
+    }
+
+    /**
+     * @return the number of keys in the map
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * performs the action on every value in the map, in no particular order
+     *
+     * @param action
+     */
+    void forEachValue(Consumer<? super T> action) {
+        forEachValue(root, action);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void forEachValue(Node node, Consumer<? super T> action) {
+        for (Object slot : node.slots) {
+            if (slot instanceof Leaf leaf) {
+                action.accept((T) leaf.value);
+            } else {
+                forEachValue((Node) slot, action);
+            }
+        }
+    }
+}
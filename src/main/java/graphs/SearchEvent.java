@@ -0,0 +1,49 @@
+package graphs;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Java Flight Recorder event of a single instrumented search, see SearchStats.
+ * It is only created while the instrumentation is enabled, and only committed
+ * when a flight recording has enabled the "graphs.Search" event.
+ */
+@Name("graphs.Search")
+@Label("Route Search")
+@Category({"Route Planner", "Search"})
+@Description("Counters and latency of a shortest path search")
+@StackTrace(false)
+class SearchEvent extends jdk.jfr.Event {
+
+    @Label("Algorithm")
+    String algorithm;
+
+    @Label("Start")
+    String startId;
+
+    @Label("Target")
+    String targetId;
+
+    @Label("Settled Vertices")
+    long settled;
+
+    @Label("Edge Relaxations")
+    long relaxations;
+
+    @Label("Heap Pushes")
+    long pushes;
+
+    @Label("Heap Pops")
+    long pops;
+
+    @Label("Path Length")
+    int pathLength;
+
+    @Label("Latency")
+    @Timespan(Timespan.NANOSECONDS)
+    long latency;
+}
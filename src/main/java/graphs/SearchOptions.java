@@ -0,0 +1,150 @@
+package graphs;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Limits of a bounded shortest path search, see Searcher.boundedShortestPath.
+ * A search stops as soon as any of its limits is hit and reports a partial result with the reason
+ * of its termination, instead of exploring a graph to exhaustion,
+ * e.g. between disconnected components or across a whole country.
+ * <p>
+ * Options are immutable; every with-method provides a new version, such that options can be shared by
+ * many searches. The deadline and the cancellation are checked once every CHECK_INTERVAL settled vertices,
+ * which keeps the overhead of reading the clock negligible.
+ */
+public final class SearchOptions {
+
+    /**
+     * the reason why a search has terminated
+     */
+    public enum Termination {
+        /** the target has been settled, the path is the shortest path */
+        TARGET_REACHED,
+        /** all vertices that can be reached from the start have been settled without reaching the target */
+        EXHAUSTED,
+        /** the shortest path to the target would exceed the maximum cost */
+        MAX_COST,
+        /** the maximum number of settled vertices has been reached */
+        MAX_SETTLED,
+        /** the deadline has passed */
+        DEADLINE,
+        /** the search has been cancelled */
+        CANCELLED
+    }
+
+    /**
+     * the number of settled vertices between two checks of the deadline and cancellation, a power of two
+     */
+    public static final int CHECK_INTERVAL = 64;
+
+    /**
+     * options without any limit
+     */
+    public static final SearchOptions UNBOUNDED = new SearchOptions(Double.POSITIVE_INFINITY, Integer.MAX_VALUE,
+            false, 0L, null);
+
+    private final double maxCost;
+    private final int maxSettled;
+    private final boolean hasDeadline;
+    private final long deadline;
+    private final BooleanSupplier cancelled;
+
+    /**
+     * representation invariants:
+     * 1.  maxCost >= 0 and maxSettled >= 1
+     * 2.  deadline is a System.nanoTime() value, which is only relevant if hasDeadline
+     * 3.  cancelled is null if the search cannot be cancelled
+     **/
+
+    private SearchOptions(double maxCost, int maxSettled, boolean hasDeadline, long deadline,
+                          BooleanSupplier cancelled) {
+        this.maxCost = maxCost;
+        this.maxSettled = maxSettled;
+        this.hasDeadline = hasDeadline;
+        this.deadline = deadline;
+        this.cancelled = cancelled;
+    }
+
+    /**
+     * @param maxCost the maximum weight of the path; vertices beyond it are not settled
+     * @return options that also limit the cost of the path
+     */
+    public SearchOptions withMaxCost(double maxCost) {
+        if (!(maxCost >= 0.0)) throw new IllegalArgumentException("The maximum cost should not be negative");
+        return new SearchOptions(maxCost, maxSettled, hasDeadline, deadline, cancelled);
+    }
+
+    /**
+     * @param maxSettled the maximum number of vertices that may be settled by the search
+     * @return options that also limit the number of settled vertices
+     */
+    public SearchOptions withMaxSettled(int maxSettled) {
+        if (maxSettled < 1) throw new IllegalArgumentException("The maximum number of settled vertices should be positive");
+        return new SearchOptions(maxCost, maxSettled, hasDeadline, deadline, cancelled);
+    }
+
+    /**
+     * @param deadline the System.nanoTime() after which the search shall stop
+     * @return options that also limit the duration of the search
+     */
+    public SearchOptions withDeadline(long deadline) {
+        return new SearchOptions(maxCost, maxSettled, true, deadline, cancelled);
+    }
+
+    /**
+     * @param timeout the maximum duration of the search, from now on
+     * @param unit    the unit of the timeout
+     * @return options with a deadline at the given time from now
+     */
+    public SearchOptions withTimeout(long timeout, TimeUnit unit) {
+        return withDeadline(System.nanoTime() + unit.toNanos(timeout));
+    }
+
+    /**
+     * adds a condition of cooperative cancellation, e.g. future::isCancelled or an AtomicBoolean::get;
+     * the search stops as soon as this or any earlier condition holds
+     *
+     * @param cancelled tells whether the search shall stop; it shall be cheap and safe to call from the searching thread
+     * @return options that can also be cancelled by the given condition
+     */
+    public SearchOptions withCancellation(BooleanSupplier cancelled) {
+        BooleanSupplier previous = this.cancelled;
+        BooleanSupplier combined = previous == null ? cancelled
+                : () -> previous.getAsBoolean() || cancelled.getAsBoolean();
+        return new SearchOptions(maxCost, maxSettled, hasDeadline, deadline, combined);
+    }
+
+    public double getMaxCost() {
+        return maxCost;
+    }
+
+    public int getMaxSettled() {
+        return maxSettled;
+    }
+
+    public boolean hasDeadline() {
+        return hasDeadline;
+    }
+
+    public long getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * checks the limits that do not depend on the progress of the search itself
+     *
+     * @return DEADLINE or CANCELLED if the search shall stop, null otherwise
+     */
+    Termination checkInterruption() {
+        if (cancelled != null && cancelled.getAsBoolean()) return Termination.CANCELLED;
+        if (hasDeadline && System.nanoTime() - deadline > 0) return Termination.DEADLINE;
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SearchOptions(maxCost=%s, maxSettled=%d, deadline=%s, cancellable=%b)",
+                maxCost, maxSettled, hasDeadline ? deadline : "none", cancelled != null);
+    }
+}
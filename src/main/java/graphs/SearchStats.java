@@ -0,0 +1,297 @@
+package graphs;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Opt-in instrumentation of the shortest path searches of Searcher.
+ * While enabled, every search of dijkstra, A*, ALT and bidirectional dijkstra is recorded as a Query
+ * with its counters and wall-clock latency. Queries are aggregated per algorithm
+ * (totals, a log2 latency histogram and the slowest query), passed on to an optional listener,
+ * and committed as "graphs.Search" events to Java Flight Recorder when a recording has enabled them.
+ * <p>
+ * While disabled, a search only pays a single volatile read for the instrumentation.
+ * The relaxations are counted by the searches as they relax edges; the heap counters follow from
+ * the search workspace, as the indexed heap queues every vertex at most once and never holds outdated entries.
+ * All methods are thread-safe, such that concurrent searches can be recorded by the same stats.
+ */
+public class SearchStats {
+
+    /**
+     * the instrumented search algorithms
+     */
+    public enum Algorithm {
+        DIJKSTRA,
+        A_STAR,
+        ALT,
+        BIDIRECTIONAL_DIJKSTRA
+    }
+
+    private static volatile SearchStats active;
+
+    // the latency histogram has a bucket per power of 2 nanoseconds
+    private static final int NUM_BUCKETS = 64;
+
+    private final Map<Algorithm, AlgorithmStats> algorithms = new EnumMap<>(Algorithm.class);
+    private final Consumer<? super Query> listener;
+
+    private SearchStats(Consumer<? super Query> listener) {
+        this.listener = listener;
+        for (Algorithm algorithm : Algorithm.values()) {
+            algorithms.put(algorithm, new AlgorithmStats());
+        }
+    }
+
+    /**
+     * starts recording all searches of all threads into new stats
+     *
+     * @return the stats that record the searches from now on
+     */
+    public static SearchStats enable() {
+        return enable(null);
+    }
+
+    /**
+     * starts recording all searches of all threads into new stats
+     *
+     * @param listener receives every recorded query on the thread that ran the search, may be null
+     * @return the stats that record the searches from now on
+     */
+    public static SearchStats enable(Consumer<? super Query> listener) {
+        SearchStats stats = new SearchStats(listener);
+        active = stats;
+        return stats;
+    }
+
+    /**
+     * stops recording searches; the stats that have been recorded sofar remain available
+     */
+    public static void disable() {
+        active = null;
+    }
+
+    /**
+     * @return the stats that record the searches, or null if the instrumentation is disabled
+     */
+    static SearchStats active() {
+        return active;
+    }
+
+    /**
+     * @param algorithm
+     * @return the aggregated stats of all recorded searches by the algorithm
+     */
+    public AlgorithmStats of(Algorithm algorithm) {
+        return algorithms.get(algorithm);
+    }
+
+    // aggregates and publishes a single query
+    void record(Query query) {
+        algorithms.get(query.algorithm).add(query);
+        if (listener != null) listener.accept(query);
+
+        SearchEvent event = new SearchEvent();
+        if (event.shouldCommit()) {
+            event.algorithm = query.algorithm.name();
+            event.startId = query.startId;
+            event.targetId = query.targetId;
+            event.settled = query.settled;
+            event.relaxations = query.relaxations;
+            event.pushes = query.pushes;
+            event.pops = query.pops;
+            event.pathLength = query.pathLength;
+            event.latency = query.latencyNanos;
+            event.commit();
+        }
+    }
+
+    /**
+     * the counters and latency of a single search
+     */
+    public static class Query {
+        private final Algorithm algorithm;
+        private final String startId;
+        private final String targetId;
+        private final long settled;
+        private final long relaxations;
+        private final long pushes;
+        private final long pops;
+        private final int pathLength;
+        private final long latencyNanos;
+
+        Query(Algorithm algorithm, String startId, String targetId, long settled, long relaxations,
+              long pushes, long pops, int pathLength, long latencyNanos) {
+            this.algorithm = algorithm;
+            this.startId = startId;
+            this.targetId = targetId;
+            this.settled = settled;
+            this.relaxations = relaxations;
+            this.pushes = pushes;
+            this.pops = pops;
+            this.pathLength = pathLength;
+            this.latencyNanos = latencyNanos;
+        }
+
+        public Algorithm getAlgorithm() {
+            return algorithm;
+        }
+
+        public String getStartId() {
+            return startId;
+        }
+
+        public String getTargetId() {
+            return targetId;
+        }
+
+        /**
+         * @return the number of vertices that have been settled, by both directions of a bidirectional search
+         */
+        public long getSettled() {
+            return settled;
+        }
+
+        /**
+         * @return the number of edges that have been relaxed
+         */
+        public long getRelaxations() {
+            return relaxations;
+        }
+
+        /**
+         * @return the number of vertices that have been queued
+         */
+        public long getPushes() {
+            return pushes;
+        }
+
+        /**
+         * @return the number of vertices that have been taken from the queue
+         */
+        public long getPops() {
+            return pops;
+        }
+
+        /**
+         * @return the number of vertices of the path found, 0 if there is none
+         */
+        public int getPathLength() {
+            return pathLength;
+        }
+
+        public long getLatencyNanos() {
+            return latencyNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s %s->%s settled=%d relaxations=%d pushes=%d pops=%d length=%d latency=%dus",
+                    algorithm, startId, targetId, settled, relaxations, pushes, pops, pathLength,
+                    latencyNanos / 1000);
+        }
+    }
+
+    /**
+     * the aggregated counters and latencies of all recorded searches by one algorithm
+     */
+    public static class AlgorithmStats {
+        private final LongAdder queries = new LongAdder();
+        private final LongAdder settled = new LongAdder();
+        private final LongAdder relaxations = new LongAdder();
+        private final LongAdder pushes = new LongAdder();
+        private final LongAdder pops = new LongAdder();
+        private final LongAdder pathLengths = new LongAdder();
+        private final AtomicLongArray latencyBuckets = new AtomicLongArray(NUM_BUCKETS);
+        private final AtomicReference<Query> slowest = new AtomicReference<>();
+
+        private void add(Query query) {
+            queries.increment();
+            settled.add(query.settled);
+            relaxations.add(query.relaxations);
+            pushes.add(query.pushes);
+            pops.add(query.pops);
+            pathLengths.add(query.pathLength);
+            latencyBuckets.incrementAndGet(bucketOf(query.latencyNanos));
+            slowest.accumulateAndGet(query,
+                    (current, next) -> current == null || next.latencyNanos > current.latencyNanos ? next : current);
+        }
+
+        // the bucket of latencies in [2^b, 2^(b+1)) nanoseconds
+        private static int bucketOf(long nanos) {
+            return 63 - Long.numberOfLeadingZeros(Math.max(1L, nanos));
+        }
+
+        public long getNumQueries() {
+            return queries.sum();
+        }
+
+        public long getSettled() {
+            return settled.sum();
+        }
+
+        public long getRelaxations() {
+            return relaxations.sum();
+        }
+
+        public long getPushes() {
+            return pushes.sum();
+        }
+
+        public long getPops() {
+            return pops.sum();
+        }
+
+        public long getPathLengths() {
+            return pathLengths.sum();
+        }
+
+        /**
+         * @return the number of queries by latency, where bucket b counts latencies in [2^b, 2^(b+1)) nanoseconds
+         */
+        public long[] getLatencyHistogram() {
+            long[] histogram = new long[NUM_BUCKETS];
+            for (int b = 0; b < NUM_BUCKETS; b++) {
+                histogram[b] = latencyBuckets.get(b);
+            }
+            return histogram;
+        }
+
+        /**
+         * @param percentile between 0.0 and 100.0
+         * @return an upper bound of the latency in nanoseconds that the given percentage of queries has not exceeded,
+         * which is within a factor 2 of the exact percentile; 0 if no queries have been recorded
+         */
+        public long getLatencyPercentile(double percentile) {
+            long[] histogram = getLatencyHistogram();
+            long total = 0;
+            for (long count : histogram) total += count;
+            if (total == 0) return 0L;
+            long rank = (long) Math.ceil(percentile / 100.0 * total);
+            long seen = 0;
+            for (int b = 0; b < NUM_BUCKETS - 1; b++) {
+                seen += histogram[b];
+                if (seen >= rank) return (1L << (b + 1)) - 1;
+            }
+            return Long.MAX_VALUE;
+        }
+
+        /**
+         * @return the query with the largest latency, or null if no queries have been recorded
+         */
+        public Query getSlowest() {
+            return slowest.get();
+        }
+
+        @Override
+        public String toString() {
+            long n = Math.max(1L, getNumQueries());
+            return String.format("queries=%d settled/query=%d relaxations/query=%d p50<=%dus p99<=%dus",
+                    getNumQueries(), getSettled() / n, getRelaxations() / n,
+                    getLatencyPercentile(50.0) / 1000, getLatencyPercentile(99.0) / 1000);
+        }
+    }
+}
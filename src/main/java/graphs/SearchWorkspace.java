@@ -0,0 +1,209 @@
+package graphs;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Reusable state of a single search at a time, for all searches of Searcher.
+ * Distances, parents and marks are kept in primitive arrays indexed by vertex ordinal and stamped with
+ * the epoch of the search that wrote them. Values with an older stamp count as unset,
+ * so starting the next search costs O(1) instead of clearing all arrays.
+ * <p>
+ * A workspace shall not be used by more than one search (or thread) at a time.
+ * acquire() lends a workspace from a pool per thread, which gets it back upon close(),
+ * such that nested searches (e.g. within a heuristic) get a workspace of their own.
+ * The arrays grow to the largest graph that has been searched and are kept for the next searches.
+ */
+public class SearchWorkspace implements AutoCloseable {
+
+    private static final ThreadLocal<Deque<SearchWorkspace>> POOL = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private int capacity;
+    private int epoch = 0;
+    private int[] reachedEpoch;
+    private double[] weightSumTo;
+    private int[] fromVertex;
+    private int[] settledEpoch;
+    private int[] estimatedEpoch;
+    private double[] estimates;
+    private int[] visitOrder;
+    private int numVisited = 0;
+    private IndexedMinHeap queue;
+    private SearchWorkspace reverse;
+    private boolean pooled = false;
+
+    /**
+     * representation invariants:
+     * 1.  all arrays have length capacity
+     * 2.  weightSumTo[v] and fromVertex[v] are set by the current search iff reachedEpoch[v] == epoch,
+     * v has been settled by the current search iff settledEpoch[v] == epoch,
+     * estimates[v] has been calculated by the current search iff estimatedEpoch[v] == epoch
+     * 3.  visitOrder[0 .. numVisited-1] holds the vertices visited by the current search in order of their visit
+     **/
+
+    /**
+     * @param capacity the initial number of vertices that can be searched
+     */
+    public SearchWorkspace(int capacity) {
+        allocate(capacity);
+    }
+
+    /**
+     * lends a workspace from the pool of the current thread, which shall be returned by close()
+     *
+     * @return a workspace that is not in use by any other search
+     */
+    public static SearchWorkspace acquire() {
+        SearchWorkspace workspace = POOL.get().poll();
+        if (workspace == null) {
+            workspace = new SearchWorkspace(0);
+            workspace.pooled = true;
+        }
+        return workspace;
+    }
+
+    /**
+     * returns a workspace that has been acquired to the pool of the current thread,
+     * workspaces that have been created by the constructor are left alone
+     */
+    @Override
+    public void close() {
+        if (pooled) POOL.get().push(this);
+    }
+
+    private void allocate(int capacity) {
+        this.capacity = capacity;
+        this.epoch = 0;
+        this.reachedEpoch = new int[capacity];
+        this.weightSumTo = new double[capacity];
+        this.fromVertex = new int[capacity];
+        this.settledEpoch = new int[capacity];
+        this.estimatedEpoch = new int[capacity];
+        this.estimates = new double[capacity];
+        this.visitOrder = new int[capacity];
+        this.queue = new IndexedMinHeap(capacity);
+    }
+
+    /**
+     * @return the number of vertices that can be searched without growing the workspace
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * starts a new search on a graph with the given number of vertices, discarding all state of the previous search
+     *
+     * @param numVertices
+     */
+    void reset(int numVertices) {
+        if (numVertices > capacity) {
+            allocate(Math.max(numVertices, 2 * capacity));
+        } else {
+            queue.clear();
+        }
+        numVisited = 0;
+        if (++epoch == Integer.MAX_VALUE) {
+            // the stamps would wrap around, so they are cleared once every 2^31 searches
+            Arrays.fill(reachedEpoch, 0);
+            Arrays.fill(settledEpoch, 0);
+            Arrays.fill(estimatedEpoch, 0);
+            epoch = 1;
+        }
+    }
+
+    /**
+     * @return the companion workspace for the backward direction of bidirectional searches
+     */
+    SearchWorkspace reverse() {
+        if (reverse == null) reverse = new SearchWorkspace(capacity);
+        return reverse;
+    }
+
+    /**
+     * @param vertex
+     * @return the weight of the shortest path to the vertex found sofar, or Double.MAX_VALUE if it has not been reached
+     */
+    double weightSumTo(int vertex) {
+        return reachedEpoch[vertex] == epoch ? weightSumTo[vertex] : Double.MAX_VALUE;
+    }
+
+    /**
+     * @param vertex
+     * @return the parent of the vertex on the path found sofar, or -1 if there is none
+     */
+    int fromVertex(int vertex) {
+        return reachedEpoch[vertex] == epoch ? fromVertex[vertex] : -1;
+    }
+
+    boolean isReached(int vertex) {
+        return reachedEpoch[vertex] == epoch;
+    }
+
+    /**
+     * registers a (shorter) path towards the vertex
+     *
+     * @param vertex
+     * @param weightSum the weight of the path
+     * @param from      the parent of the vertex on the path
+     */
+    void reach(int vertex, double weightSum, int from) {
+        reachedEpoch[vertex] = epoch;
+        weightSumTo[vertex] = weightSum;
+        fromVertex[vertex] = from;
+    }
+
+    boolean isSettled(int vertex) {
+        return settledEpoch[vertex] == epoch;
+    }
+
+    void settle(int vertex) {
+        settledEpoch[vertex] = epoch;
+    }
+
+    /**
+     * @param vertex
+     * @return the heuristic estimate of the vertex calculated by the current search, or NaN if there is none
+     */
+    double estimate(int vertex) {
+        return estimatedEpoch[vertex] == epoch ? estimates[vertex] : Double.NaN;
+    }
+
+    void storeEstimate(int vertex, double estimate) {
+        estimatedEpoch[vertex] = epoch;
+        estimates[vertex] = estimate;
+    }
+
+    /**
+     * records the visit of a vertex by the current search; every vertex shall be visited at most once
+     *
+     * @param vertex
+     */
+    void visit(int vertex) {
+        visitOrder[numVisited++] = vertex;
+    }
+
+    int getNumVisited() {
+        return numVisited;
+    }
+
+    /**
+     * @param index
+     * @return the vertex that has been visited at the given position in the order of visits
+     */
+    int visitedAt(int index) {
+        return visitOrder[index];
+    }
+
+    /**
+     * @return a copy of the vertices visited by the current search in order of their visit
+     */
+    int[] visitedVertices() {
+        return Arrays.copyOf(visitOrder, numVisited);
+    }
+
+    IndexedMinHeap queue() {
+        return queue;
+    }
+}
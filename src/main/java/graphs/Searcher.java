@@ -2,10 +2,16 @@ package graphs;
 
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.IntStream;
 
 public class Searcher {
 
+    // the number of landmarks that guide a single ALT search
+    private static final int ACTIVE_LANDMARKS = 4;
+
     /**
      * represents a path of connected vertices and edges in the graph
      */
@@ -13,6 +19,9 @@ public class Searcher {
         private final SinglyLinkedList<V> vertices = new SinglyLinkedList<>();
         private final Set<V> visited = new HashSet<>();
         private double totalWeight = 0.0;
+        private Graph<V, ?> visitedGraph;       // the graph of the visited vertices that are still held by ordinal
+        private int[] visitedOrdinals;
+        private SearchOptions.Termination termination = SearchOptions.Termination.TARGET_REACHED;
 
         /**
          * representation invariants:
@@ -22,13 +31,15 @@ public class Searcher {
          * 3. a path without vertices is empty
          * totalWeight is a helper attribute to capture additional info from searches, not a fundamental property of a path
          * visited is a helper set to be able to track visited vertices in searches, not a fundamental property of a path
+         * termination tells why the search stopped; unless TARGET_REACHED, the path is a partial result
+         * without vertices and totalWeight is a lower bound of the weight of the shortest path
          **/
 
         @Override
         public String toString() {
             StringBuilder sb = new StringBuilder(
                     String.format("Weight=%f Length=%d visited=%d (",
-                            totalWeight, vertices.size(), visited.size()));
+                            totalWeight, vertices.size(), getVisited().size()));
             String separator = "";
             for (V v : vertices) {
                 sb.append(separator).append(v.getId());
@@ -50,9 +61,35 @@ public class Searcher {
             this.totalWeight = totalWeight;
         }
 
+        public SearchOptions.Termination getTermination() {
+            return termination;
+        }
+
+        /**
+         * @return whether the search has reached its target, i.e. the vertices make up the shortest path
+         */
+        public boolean isComplete() {
+            return termination == SearchOptions.Termination.TARGET_REACHED;
+        }
+
         public Set<V> getVisited() {
+            if (visitedOrdinals != null) {
+                for (int ordinal : visitedOrdinals) {
+                    visited.add(visitedGraph.vertexAt(ordinal));
+                }
+                visitedOrdinals = null;
+                visitedGraph = null;
+            }
             return visited;
         }
+
+        // registers visited vertices by their ordinal in the graph;
+        // searches only pay for the lookup of the vertices when the visited set is inspected
+        void addVisited(Graph<V, ?> graph, int[] ordinals) {
+            getVisited();
+            visitedGraph = graph;
+            visitedOrdinals = ordinals;
+        }
     }
 
 
@@ -66,42 +103,179 @@ public class Searcher {
      * returns null if either start or target cannot be matched with a vertex in the graph
      * or no path can be found from start to target
      */
-    public static <V extends Identifiable, E> DGPath<V> depthFirstSearch(DirectedGraph<V, E> graph, String startId, String targetId) {
+    public static <V extends Identifiable, E> DGPath<V> depthFirstSearch(Graph<V, E> graph, String startId, String targetId) {
+        try (SearchWorkspace workspace = SearchWorkspace.acquire()) {
+            return depthFirstSearch(graph, startId, targetId, workspace);
+        }
+    }
+
+    /**
+     * depth-first search that keeps its state in the given workspace instead of allocating it per search
+     *
+     * @param startId
+     * @param targetId
+     * @param workspace
+     * @return the path from start to target
+     * returns null if either start or target cannot be matched with a vertex in the graph
+     * or no path can be found from start to target
+     */
+    public static <V extends Identifiable, E> DGPath<V> depthFirstSearch(
+            Graph<V, E> graph, String startId, String targetId, SearchWorkspace workspace) {
 
         V start = graph.getVertexById(startId);
         V target = graph.getVertexById(targetId);
         if (start == null || target == null) return null;
 
-        DGPath<V> path = new DGPath<>();
+        workspace.reset(graph.getNumVertices());
+        DGPath<V> path = iterativeDepthFirstSearch(graph, start, target, new DFSMarks() {
+            @Override
+            boolean isMarked(int vertex) {
+                return workspace.isReached(vertex);
+            }
 
-        // TODO calculate the path from start to target by recursive depth-first-search
+            @Override
+            void mark(int vertex, int parent) {
+                workspace.reach(vertex, 0.0, parent);
+                workspace.visit(vertex);
+            }
 
-        boolean found = dfsRecursive(graph, start, target, path);
-        return found ? path : null;
+            @Override
+            int parentOf(int vertex) {
+                return workspace.fromVertex(vertex);
+            }
+        });
+        if (path != null) path.addVisited(graph, workspace.visitedVertices());
+        return path;
     }
 
-    private static <V extends Identifiable, E> boolean dfsRecursive(DirectedGraph<V, E> graph, V current, V target, DGPath<V> path){
-        // Mark as visited
-        path.getVisited().add(current);
-        path.getVertices().add(current);
+    /**
+     * memory-lean depth-first search for very large graphs, which marks the visited vertices in a bitset
+     * and only keeps a parent ordinal per vertex besides.
+     * The visited vertices are not registered in path.visited, which only holds the vertices of the path.
+     *
+     * @param startId
+     * @param targetId
+     * @return the path from start to target
+     * returns null if either start or target cannot be matched with a vertex in the graph
+     * or no path can be found from start to target
+     */
+    public static <V extends Identifiable, E> DGPath<V> compactDepthFirstSearch(
+            Graph<V, E> graph, String startId, String targetId) {
 
-        //
-        if (current.equals(target)){
-            return true;
+        V start = graph.getVertexById(startId);
+        V target = graph.getVertexById(targetId);
+        if (start == null || target == null) return null;
+
+        BitSet marked = new BitSet(graph.getNumVertices());
+        int[] parents = new int[graph.getNumVertices()];
+        DGPath<V> path = iterativeDepthFirstSearch(graph, start, target, new DFSMarks() {
+            @Override
+            boolean isMarked(int vertex) {
+                return marked.get(vertex);
+            }
+
+            @Override
+            void mark(int vertex, int parent) {
+                marked.set(vertex);
+                parents[vertex] = parent;
+            }
+
+            @Override
+            int parentOf(int vertex) {
+                return parents[vertex];
+            }
+        });
+        if (path != null) {
+            for (V v : path.vertices) {
+                path.visited.add(v);
+            }
+        }
+        return path;
+    }
+
+    // the visited marks and parents of the vertices in a depth-first search
+    private abstract static class DFSMarks {
+        abstract boolean isMarked(int vertex);
+
+        abstract void mark(int vertex, int parent);
+
+        abstract int parentOf(int vertex);
+    }
+
+    // helper class with the explicit stack of an iterative depth-first search
+    // every entry holds a discovered vertex together with the parent it has been discovered from
+    private static class DFSStack<E> implements EdgeVisitor<E> {
+        private final DFSMarks marks;
+        private int[] vertices = new int[64];
+        private int[] parents = new int[64];
+        private int size = 0;
+        private int parent;                     // the vertex whose out-going edges are being pushed
+
+        private DFSStack(DFSMarks marks) {
+            this.marks = marks;
         }
 
-        // Search every unvisited neighbour
-        Collection<V> neighbours = graph.getNeighbours(current);
-        if (neighbours != null){
-            for (V neighbour : neighbours){
-                if (!path.getVisited().contains(neighbour)){
-                    boolean found = dfsRecursive(graph, neighbour, target, path);
-                    if (found) return true;
+        private void push(int vertex, int parent) {
+            if (size == vertices.length) {
+                vertices = Arrays.copyOf(vertices, 2 * size);
+                parents = Arrays.copyOf(parents, 2 * size);
+            }
+            vertices[size] = vertex;
+            parents[size] = parent;
+            size++;
+        }
+
+        @Override
+        public void visit(int neighbour, int edgeId, E edge) {
+            if (edge != null && !marks.isMarked(neighbour)) push(neighbour, parent);
+        }
+
+        // reverses the entries from position 'first', such that the first neighbour is explored first
+        private void reverseFrom(int first) {
+            for (int i = first, j = size - 1; i < j; i++, j--) {
+                int vertex = vertices[i];
+                vertices[i] = vertices[j];
+                vertices[j] = vertex;
+                int parent = parents[i];
+                parents[i] = parents[j];
+                parents[j] = parent;
+            }
+        }
+    }
+
+    // shared implementation of the depth-first searches, which explores the neighbours from an explicit stack
+    // instead of recursion, such that the depth of the search is not limited by the call stack
+    private static <V extends Identifiable, E> DGPath<V> iterativeDepthFirstSearch(
+            Graph<V, E> graph, V start, V target, DFSMarks marks) {
+
+        DGPath<V> path = new DGPath<>();
+        int targetIndex = graph.indexOf(target);
+        DFSStack<E> stack = new DFSStack<>(marks);
+        stack.push(graph.indexOf(start), -1);
+
+        while (stack.size > 0) {
+            stack.size--;
+            int current = stack.vertices[stack.size];
+
+            // a vertex may have been pushed several times before it got visited
+            if (marks.isMarked(current)) continue;
+            marks.mark(current, stack.parents[stack.size]);
+
+            if (current == targetIndex) {
+                // rebuild the path along the parents from which the vertices have been discovered
+                for (int v = current; v >= 0; v = marks.parentOf(v)) {
+                    path.vertices.addFirst(graph.vertexAt(v));
                 }
+                return path;
             }
+
+            int first = stack.size;
+            stack.parent = current;
+            graph.forEachOutEdge(current, stack);
+            stack.reverseFrom(first);
         }
 
-        return false;
+        return null;
     }
 
 
@@ -115,7 +289,24 @@ public class Searcher {
      * returns null if either start or target cannot be matched with a vertex in the graph
      * or no path can be found from start to target
      */
-    public static <V extends Identifiable, E> DGPath<V> breadthFirstSearch(DirectedGraph<V, E> graph, String startId, String targetId) {
+    public static <V extends Identifiable, E> DGPath<V> breadthFirstSearch(Graph<V, E> graph, String startId, String targetId) {
+        try (SearchWorkspace workspace = SearchWorkspace.acquire()) {
+            return breadthFirstSearch(graph, startId, targetId, workspace);
+        }
+    }
+
+    /**
+     * breadth-first search that keeps its state in the given workspace instead of allocating it per search
+     *
+     * @param startId
+     * @param targetId
+     * @param workspace
+     * @return the path from start to target
+     * returns null if either start or target cannot be matched with a vertex in the graph
+     * or no path can be found from start to target
+     */
+    public static <V extends Identifiable, E> DGPath<V> breadthFirstSearch(
+            Graph<V, E> graph, String startId, String targetId, SearchWorkspace workspace) {
 
         V start = graph.getVertexById(startId);
         V target = graph.getVertexById(targetId);
@@ -123,60 +314,94 @@ public class Searcher {
 
         // initialise the result path of the search
         DGPath<V> path = new DGPath<>();
-        path.getVisited().add(start);
 
         // easy target
         if (start.equals(target)) {
-            path.getVertices().add(target);
+            path.visited.add(start);
+            path.vertices.add(target);
             return path;
         }
 
-        // TODO calculate the path from start to target by breadth-first-search
-        Map<V, V> parent = new HashMap<>();
-        Queue<V> queue = new ArrayDeque<>();
-        queue.add(start);
+        // the order of visits in the workspace serves as the queue of the search
+        workspace.reset(graph.getNumVertices());
+        int startIndex = graph.indexOf(start);
+        int targetIndex = graph.indexOf(target);
+        workspace.reach(startIndex, 0.0, -1);
+        workspace.visit(startIndex);
+        int[] current = new int[1];
+        EdgeVisitor<E> visitor = (neighbour, edgeId, edge) -> {
+            if (edge != null && !workspace.isReached(neighbour)) {
+                workspace.reach(neighbour, 0.0, current[0]);
+                workspace.visit(neighbour);
+            }
+        };
 
-        while (!queue.isEmpty()){
-            V current = queue.remove();
+        for (int head = 0; head < workspace.getNumVisited(); head++) {
+            current[0] = workspace.visitedAt(head);
 
             // When the target is found we reconstruct path
-            if (current.equals(target)){
-                // Create path
-                for (V v = target; v != null; v = parent.get(v)) {
-                    path.getVertices().addFirst(v);
+            if (current[0] == targetIndex) {
+                for (int v = targetIndex; v >= 0; v = workspace.fromVertex(v)) {
+                    path.vertices.addFirst(graph.vertexAt(v));
                 }
-
+                path.addVisited(graph, workspace.visitedVertices());
                 return path;
             }
 
-            for (V neighbour : graph.getNeighbours(current)){
-                if (!path.getVisited().contains(neighbour)){
-                    path.getVisited().add(neighbour);
-                    parent.put(neighbour, current);
-                    queue.add(neighbour);
-                }
-            }
+            graph.forEachOutEdge(current[0], visitor);
         }
 
-
         return null;
     }
 
-    // helper class to build the spanning tree of visited vertices in dijkstra's shortest path algorithm
-    private static class DSPNode<V> implements Comparable<DSPNode<V>> {
-        protected V vertex;                // the graph vertex that is concerned with this DSPNode
-        protected V fromVertex = null;     // the parent's node vertex that has an edge towards this node's vertex
-        protected boolean marked = false;  // indicates DSP processing has been marked complete for this vertex
-        protected double weightSumTo = Double.MAX_VALUE;   // sum of weights of current shortest path to this node's vertex
+    // helper class to relax the out-going edges of the vertex that is being settled
+    // a single instance is reused for all settled vertices of a search, which avoids allocations per vertex
+    private static class DSPRelaxer<V extends Identifiable, E> implements EdgeVisitor<E> {
+        private final Graph<V, E> graph;
+        private final SearchWorkspace workspace;        // the progress of all vertices by their ordinal
+        private final ToDoubleFunction<? super E> weight;
+        private final WeightColumn weightColumn;    // precomputed weights by edge id, or null to apply the weight function
+        private final Heuristic<? super V> heuristic;   // null for an uninformed search
+        private final V target;
+        private int current;                    // the ordinal of the vertex whose edges are being relaxed
+        private double currentWeightSum;        // the weight of the shortest path to the current vertex
+        private long relaxations;               // the number of edges that have been relaxed, for the instrumentation
 
-        private DSPNode(V vertex) {
-            this.vertex = vertex;
+        private DSPRelaxer(Graph<V, E> graph, SearchWorkspace workspace,
+                           ToDoubleFunction<? super E> weight, WeightColumn weightColumn,
+                           Heuristic<? super V> heuristic, V target) {
+            this.graph = graph;
+            this.workspace = workspace;
+            this.weight = weight;
+            this.weightColumn = weightColumn;
+            this.heuristic = heuristic;
+            this.target = target;
         }
 
-        // comparable interface helps to find a node with the shortest current path, sofar
         @Override
-        public int compareTo(DSPNode dspv) {
-            return Double.compare(weightSumTo, dspv.weightSumTo);
+        public void visit(int neighbor, int edgeId, E edge) {
+            relaxations++;
+            if (edge == null || workspace.isSettled(neighbor)) return;
+
+            double newDistance = currentWeightSum +
+                    (weightColumn != null ? weightColumn.get(edgeId) : weight.applyAsDouble(edge));
+
+            // if we found a shorter path to this neighbor, update it
+            if (newDistance < workspace.weightSumTo(neighbor)) {
+                workspace.reach(neighbor, newDistance, current);
+                workspace.queue().insertOrDecrease(neighbor, newDistance + estimate(neighbor));
+            }
+        }
+
+        // heuristic estimates are cached in the workspace, they are calculated once per vertex and search
+        private double estimate(int vertex) {
+            if (heuristic == null) return 0.0;
+            double estimate = workspace.estimate(vertex);
+            if (Double.isNaN(estimate)) {
+                estimate = heuristic.estimate(graph.vertexAt(vertex), target);
+                workspace.storeEstimate(vertex, estimate);
+            }
+            return estimate;
         }
     }
 
@@ -192,85 +417,985 @@ public class Searcher {
      * or no path can be found from start to target
      */
     public static <V extends Identifiable, E> DGPath<V> dijkstraShortestPath(
-            DirectedGraph<V, E> graph, String startId, String targetId,
+            Graph<V, E> graph, String startId, String targetId,
             Function<E, Double> weightMapper) {
+        try (SearchWorkspace workspace = SearchWorkspace.acquire()) {
+            return dijkstraShortestPath(graph, startId, targetId, weightMapper, workspace);
+        }
+    }
+
+    /**
+     * dijkstra's algorithm that keeps its state in the given workspace instead of allocating it per search
+     */
+    public static <V extends Identifiable, E> DGPath<V> dijkstraShortestPath(
+            Graph<V, E> graph, String startId, String targetId,
+            Function<E, Double> weightMapper, SearchWorkspace workspace) {
+        return shortestPath(SearchStats.Algorithm.DIJKSTRA, graph, startId, targetId, weightMapper::apply, null, null,
+                null, workspace);
+    }
+
+    /**
+     * Calculates the edge-weighted shortest path from start to target
+     * according to Dijkstra's algorithm, using the primitive weight column of the metric,
+     * which the graph precomputes upon first use.
+     * Every relaxation then takes a single array load, without calling the weight function or boxing.
+     *
+     * @param startId id of the start vertex of the search
+     * @param targetId id of the target vertex of the search
+     * @param metric the named weight function of the edges
+     * @return the shortest path from start to target
+     * returns null if either start or target cannot be matched with a vertex in the graph
+     * or no path can be found from start to target
+     */
+    public static <V extends Identifiable, E> DGPath<V> dijkstraShortestPath(
+            Graph<V, E> graph, String startId, String targetId, Metric<? super E> metric) {
+        try (SearchWorkspace workspace = SearchWorkspace.acquire()) {
+            return dijkstraShortestPath(graph, startId, targetId, metric, workspace);
+        }
+    }
+
+    /**
+     * dijkstra's algorithm by metric that keeps its state in the given workspace instead of allocating it per search
+     */
+    public static <V extends Identifiable, E> DGPath<V> dijkstraShortestPath(
+            Graph<V, E> graph, String startId, String targetId, Metric<? super E> metric, SearchWorkspace workspace) {
+        return shortestPath(SearchStats.Algorithm.DIJKSTRA, graph, startId, targetId, metric, weightColumnOf(graph, metric),
+                null, null, workspace);
+    }
+
+    /**
+     * Calculates the edge-weighted shortest path from start to target by the goal-directed A* algorithm.
+     * Vertices are settled in order of their weight sum from the start plus the estimated remaining weight
+     * towards the target, such that far fewer vertices are visited than by Dijkstra's algorithm.
+     * The heuristic shall be admissible and consistent for the result to be the shortest path.
+     *
+     * @param startId   id of the start vertex of the search
+     * @param targetId  id of the target vertex of the search
+     * @param weight    provides the weight of an edge; a Metric uses the precomputed weight column of the graph
+     * @param heuristic estimates the remaining weight from a vertex to the target
+     * @return the shortest path from start to target, with the vertices that have been settled in path.visited
+     * returns null if either start or target cannot be matched with a vertex in the graph
+     * or no path can be found from start to target
+     */
+    public static <V extends Identifiable, E> DGPath<V> aStarShortestPath(
+            Graph<V, E> graph, String startId, String targetId,
+            ToDoubleFunction<? super E> weight, Heuristic<? super V> heuristic) {
+        try (SearchWorkspace workspace = SearchWorkspace.acquire()) {
+            return aStarShortestPath(graph, startId, targetId, weight, heuristic, workspace);
+        }
+    }
+
+    /**
+     * A* search that keeps its state in the given workspace instead of allocating it per search
+     */
+    public static <V extends Identifiable, E> DGPath<V> aStarShortestPath(
+            Graph<V, E> graph, String startId, String targetId,
+            ToDoubleFunction<? super E> weight, Heuristic<? super V> heuristic, SearchWorkspace workspace) {
+        return shortestPath(SearchStats.Algorithm.A_STAR, graph, startId, targetId, weight, weightColumnOf(graph, weight),
+                heuristic, null, workspace);
+    }
+
+    /**
+     * Calculates the edge-weighted shortest path from start to target by A* with landmark bounds (ALT).
+     * Only the landmarks that give the best bounds between start and target are used during the search.
+     *
+     * @param startId   id of the start vertex of the search
+     * @param targetId  id of the target vertex of the search
+     * @param weight    provides the weight of an edge; a Metric uses the precomputed weight column of the graph
+     * @param landmarks landmarks that have been precomputed with the same weight function,
+     *                  or with weights that have only increased since
+     * @return the shortest path from start to target
+     * returns null if either start or target cannot be matched with a vertex in the graph
+     * or no path can be found from start to target
+     */
+    public static <V extends Identifiable, E> DGPath<V> altShortestPath(
+            Graph<V, E> graph, String startId, String targetId,
+            ToDoubleFunction<? super E> weight, Landmarks<V, ?> landmarks) {
+        try (SearchWorkspace workspace = SearchWorkspace.acquire()) {
+            return altShortestPath(graph, startId, targetId, weight, landmarks, workspace);
+        }
+    }
+
+    /**
+     * ALT search that keeps its state in the given workspace instead of allocating it per search
+     */
+    public static <V extends Identifiable, E> DGPath<V> altShortestPath(
+            Graph<V, E> graph, String startId, String targetId,
+            ToDoubleFunction<? super E> weight, Landmarks<V, ?> landmarks, SearchWorkspace workspace) {
+        V start = graph.getVertexById(startId);
+        V target = graph.getVertexById(targetId);
+        if (start == null || target == null) return null;
+        return shortestPath(SearchStats.Algorithm.ALT, graph, startId, targetId, weight, weightColumnOf(graph, weight),
+                landmarks.activeFor(start, target, ACTIVE_LANDMARKS), null, workspace);
+    }
+
+    /**
+     * Calculates the edge-weighted shortest path from start to target by Dijkstra's algorithm, or by A*
+     * if a heuristic is given, within the limits of the options.
+     * If a limit is hit before the target has been settled, the search stops and provides a partial result:
+     * a path without vertices, with the reason in path.termination, the vertices that have been settled sofar
+     * in path.visited and a lower bound of the weight of the shortest path in path.totalWeight.
+     *
+     * @param startId   id of the start vertex of the search
+     * @param targetId  id of the target vertex of the search
+     * @param weight    provides the weight of an edge; a Metric uses the precomputed weight column of the graph
+     * @param heuristic estimates the remaining weight from a vertex to the target, null for dijkstra's algorithm
+     * @param options   the limits of the search
+     * @return the shortest path from start to target, or the partial result of the search,
+     * also with termination EXHAUSTED if no path exists
+     * returns null if either start or target cannot be matched with a vertex in the graph
+     */
+    public static <V extends Identifiable, E> DGPath<V> boundedShortestPath(
+            Graph<V, E> graph, String startId, String targetId, ToDoubleFunction<? super E> weight,
+            Heuristic<? super V> heuristic, SearchOptions options) {
+        try (SearchWorkspace workspace = SearchWorkspace.acquire()) {
+            return boundedShortestPath(graph, startId, targetId, weight, heuristic, options, workspace);
+        }
+    }
+
+    /**
+     * bounded search that keeps its state in the given workspace instead of allocating it per search
+     */
+    public static <V extends Identifiable, E> DGPath<V> boundedShortestPath(
+            Graph<V, E> graph, String startId, String targetId, ToDoubleFunction<? super E> weight,
+            Heuristic<? super V> heuristic, SearchOptions options, SearchWorkspace workspace) {
+        return shortestPath(heuristic == null ? SearchStats.Algorithm.DIJKSTRA : SearchStats.Algorithm.A_STAR,
+                graph, startId, targetId, weight, weightColumnOf(graph, weight), heuristic, options, workspace);
+    }
+
+    /**
+     * Calculates the weights of the shortest paths between all sources and all targets.
+     * Every source runs a single one-to-many dijkstra search which stops as soon as all targets have been settled;
+     * no search runs at all without targets.
+     * The searches of the sources run in parallel on the common fork-join pool,
+     * each with a search workspace of its worker thread.
+     *
+     * @param sourceIds ids of the start vertices of the paths
+     * @param targetIds ids of the target vertices of the paths
+     * @param weight    provides the weight of an edge; a Metric uses the precomputed weight column of the graph,
+     *                  other weight functions shall be safe to be called from multiple threads
+     * @return matrix[s][t] holds the weight of the shortest path from sourceIds[s] to targetIds[t],
+     * or Double.POSITIVE_INFINITY if there is no such path
+     * returns null if any of the ids cannot be matched with a vertex in the graph
+     */
+    public static <V extends Identifiable, E> double[][] distanceMatrix(
+            Graph<V, E> graph, List<String> sourceIds, List<String> targetIds, ToDoubleFunction<? super E> weight) {
+        int[] sources = ordinalsOf(graph, sourceIds);
+        int[] targets = ordinalsOf(graph, targetIds);
+        if (sources == null || targets == null) return null;
+        // without targets, no search would ever meet its stop condition
+        if (targets.length == 0) return new double[sources.length][0];
+
+        // the targets by ordinal, shared read-only by all searches
+        BitSet isTarget = new BitSet(graph.getNumVertices());
+        for (int target : targets) {
+            isTarget.set(target);
+        }
+        int numDistinctTargets = isTarget.cardinality();
+        WeightColumn weightColumn = weightColumnOf(graph, weight);
+
+        double[][] matrix = new double[sources.length][];
+        IntStream.range(0, sources.length).parallel().forEach(s -> {
+            try (SearchWorkspace workspace = SearchWorkspace.acquire()) {
+                oneToMany(graph, sources[s], isTarget, numDistinctTargets, weight, weightColumn, workspace);
+                double[] row = new double[targets.length];
+                for (int t = 0; t < targets.length; t++) {
+                    double weightSum = workspace.weightSumTo(targets[t]);
+                    row[t] = weightSum < Double.MAX_VALUE ? weightSum : Double.POSITIVE_INFINITY;
+                }
+                matrix[s] = row;
+            }
+        });
+        return matrix;
+    }
+
+    // dijkstra search from the source which stops as soon as all targets have been settled
+    // the weights of the shortest paths are left in the workspace
+    private static <V extends Identifiable, E> void oneToMany(
+            Graph<V, E> graph, int source, BitSet isTarget, int numTargets,
+            ToDoubleFunction<? super E> weight, WeightColumn weightColumn, SearchWorkspace workspace) {
+        workspace.reset(graph.getNumVertices());
+        workspace.reach(source, 0.0, -1);
+        IndexedMinHeap queue = workspace.queue();
+        queue.insert(source, 0.0);
+        DSPRelaxer<V, E> relaxer = new DSPRelaxer<>(graph, workspace, weight, weightColumn, null, null);
+
+        int targetsToSettle = numTargets;
+        while (!queue.isEmpty()) {
+            int current = queue.poll();
+            workspace.settle(current);
+            if (isTarget.get(current) && --targetsToSettle == 0) return;
+            relaxer.current = current;
+            relaxer.currentWeightSum = workspace.weightSumTo(current);
+            graph.forEachOutEdge(current, relaxer);
+        }
+    }
+
+    // provides the ordinals of the vertices with the given ids, or null if any of the ids is unknown
+    private static <V extends Identifiable> int[] ordinalsOf(Graph<V, ?> graph, List<String> ids) {
+        int[] ordinals = new int[ids.size()];
+        for (int i = 0; i < ordinals.length; i++) {
+            V vertex = graph.getVertexById(ids.get(i));
+            if (vertex == null) return null;
+            ordinals[i] = graph.indexOf(vertex);
+        }
+        return ordinals;
+    }
+
+    /**
+     * Calculates the shortest paths from the start towards all vertices that can be reached within a budget,
+     * by a single dijkstra search which stops at the first vertex beyond the budget.
+     *
+     * @param startId id of the root vertex of the tree
+     * @param weight  provides the weight of an edge; a Metric uses the precomputed weight column of the graph
+     * @param maxCost the budget: vertices with a larger weight from the start are not included
+     * @return the tree of shortest paths, in order of the weight from the start
+     * returns null if the start cannot be matched with a vertex in the graph
+     */
+    public static <V extends Identifiable, E> ShortestPathTree<V> shortestPathTree(
+            Graph<V, E> graph, String startId, ToDoubleFunction<? super E> weight, double maxCost) {
+        try (SearchWorkspace workspace = SearchWorkspace.acquire()) {
+            return shortestPathTree(graph, startId, weight, maxCost, workspace);
+        }
+    }
+
+    /**
+     * shortest path tree search that keeps its state in the given workspace instead of allocating it per search
+     */
+    public static <V extends Identifiable, E> ShortestPathTree<V> shortestPathTree(
+            Graph<V, E> graph, String startId, ToDoubleFunction<? super E> weight, double maxCost,
+            SearchWorkspace workspace) {
+        V start = graph.getVertexById(startId);
+        if (start == null) return null;
+
+        int startIndex = graph.indexOf(start);
+        workspace.reset(graph.getNumVertices());
+        workspace.reach(startIndex, 0.0, -1);
+        IndexedMinHeap queue = workspace.queue();
+        queue.insert(startIndex, 0.0);
+        DSPRelaxer<V, E> relaxer = new DSPRelaxer<>(graph, workspace, weight, weightColumnOf(graph, weight), null, null);
+
+        while (!queue.isEmpty() && queue.peekKey() <= maxCost) {
+            int current = queue.poll();
+            workspace.settle(current);
+            workspace.visit(current);
+            relaxer.current = current;
+            relaxer.currentWeightSum = workspace.weightSumTo(current);
+            graph.forEachOutEdge(current, relaxer);
+        }
+
+        int[] ordinals = workspace.visitedVertices();
+        double[] weights = new double[ordinals.length];
+        int[] parents = new int[ordinals.length];
+        for (int i = 0; i < ordinals.length; i++) {
+            weights[i] = workspace.weightSumTo(ordinals[i]);
+            parents[i] = workspace.fromVertex(ordinals[i]);
+        }
+        return new ShortestPathTree<>(graph, ordinals, weights, parents);
+    }
+
+    /**
+     * Calculates the shortest paths from the start towards all reachable vertices by parallel delta-stepping
+     * on the common fork-join pool, with a bucket width that is derived from the edge weights of the graph.
+     * The weights in the tree equal those of dijkstra's algorithm.
+     *
+     * @param startId id of the root vertex of the tree
+     * @param weight  provides the non-negative weight of an edge; a Metric uses the precomputed weight column
+     *                of the graph, other weight functions shall be safe to be called from multiple threads
+     * @return the tree of shortest paths, in order of the weight from the start
+     * returns null if the start cannot be matched with a vertex in the graph
+     */
+    public static <V extends Identifiable, E> ShortestPathTree<V> deltaSteppingShortestPathTree(
+            Graph<V, E> graph, String startId, ToDoubleFunction<? super E> weight) {
+        return deltaSteppingShortestPathTree(graph, startId, weight,
+                DeltaStepping.suggestDelta(graph, weight), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * delta-stepping with a given bucket width on a given pool
+     *
+     * @param delta edges with a weight up to delta are light and relaxed repeatedly within a bucket,
+     *              heavier edges are relaxed once per bucket
+     * @param pool  the pool that runs the parallel relaxations
+     */
+    public static <V extends Identifiable, E> ShortestPathTree<V> deltaSteppingShortestPathTree(
+            Graph<V, E> graph, String startId, ToDoubleFunction<? super E> weight, double delta, ForkJoinPool pool) {
+        V start = graph.getVertexById(startId);
+        if (start == null) return null;
+        return new DeltaStepping<>(graph, weight, delta, pool).run(graph.indexOf(start));
+    }
+
+    // helper class to relax the out-going edges of the vertex that is being settled by a time-dependent search
+    // the travel time of an edge is evaluated at the time of arrival at the current vertex
+    private static class TDRelaxer<V extends Identifiable, E> implements EdgeVisitor<E> {
+        private final Graph<V, E> graph;
+        private final SearchWorkspace workspace;
+        private final TimeDependentWeight<? super E> weight;
+        private final double departureTime;
+        private final Heuristic<? super V> heuristic;   // null for an uninformed search
+        private final V target;
+        private int current;
+        private double currentWeightSum;        // the earliest travel time from the start to the current vertex
+
+        private TDRelaxer(Graph<V, E> graph, SearchWorkspace workspace, TimeDependentWeight<? super E> weight,
+                          double departureTime, Heuristic<? super V> heuristic, V target) {
+            this.graph = graph;
+            this.workspace = workspace;
+            this.weight = weight;
+            this.departureTime = departureTime;
+            this.heuristic = heuristic;
+            this.target = target;
+        }
+
+        @Override
+        public void visit(int neighbor, int edgeId, E edge) {
+            if (edge == null || workspace.isSettled(neighbor)) return;
+
+            double newDistance = currentWeightSum + weight.travelTime(edge, departureTime + currentWeightSum);
+            if (newDistance < workspace.weightSumTo(neighbor)) {
+                workspace.reach(neighbor, newDistance, current);
+                workspace.queue().insertOrDecrease(neighbor, newDistance + estimate(neighbor));
+            }
+        }
+
+        // heuristic estimates are cached in the workspace, they are calculated once per vertex and search
+        private double estimate(int vertex) {
+            if (heuristic == null) return 0.0;
+            double estimate = workspace.estimate(vertex);
+            if (Double.isNaN(estimate)) {
+                estimate = heuristic.estimate(graph.vertexAt(vertex), target);
+                workspace.storeEstimate(vertex, estimate);
+            }
+            return estimate;
+        }
+    }
+
+    /**
+     * Calculates the earliest arrival path from start to target when departing at the given time,
+     * by a time-dependent variant of Dijkstra's algorithm: the travel time of every edge is evaluated
+     * at the earliest time at which its from-vertex can be reached.
+     * The weights shall satisfy the FIFO property for the result to be the earliest arrival.
+     *
+     * @param startId       id of the start vertex of the search
+     * @param targetId      id of the target vertex of the search
+     * @param weight        provides the travel time of an edge depending on the time at which it is entered
+     * @param departureTime the time of departure at the start
+     * @return the earliest arrival path from start to target, with the travel time in path.totalWeight
+     * returns null if either start or target cannot be matched with a vertex in the graph
+     * or no path can be found from start to target
+     */
+    public static <V extends Identifiable, E> DGPath<V> timeDependentShortestPath(
+            Graph<V, E> graph, String startId, String targetId,
+            TimeDependentWeight<? super E> weight, double departureTime) {
+        try (SearchWorkspace workspace = SearchWorkspace.acquire()) {
+            return timeDependentShortestPath(graph, startId, targetId, weight, departureTime, null, workspace);
+        }
+    }
+
+    /**
+     * Calculates the earliest arrival path from start to target when departing at the given time,
+     * by a time-dependent variant of A*.
+     * The heuristic shall never exceed the remaining travel time at any time of departure,
+     * e.g. the straight-line distance at the maximum speed times the smallest factor of all profiles.
+     *
+     * @param startId       id of the start vertex of the search
+     * @param targetId      id of the target vertex of the search
+     * @param weight        provides the travel time of an edge depending on the time at which it is entered
+     * @param departureTime the time of departure at the start
+     * @param heuristic     estimates the remaining travel time from a vertex to the target, null for none
+     * @param workspace     keeps the state of the search
+     * @return the earliest arrival path from start to target, with the travel time in path.totalWeight
+     * returns null if either start or target cannot be matched with a vertex in the graph
+     * or no path can be found from start to target
+     */
+    public static <V extends Identifiable, E> DGPath<V> timeDependentShortestPath(
+            Graph<V, E> graph, String startId, String targetId, TimeDependentWeight<? super E> weight,
+            double departureTime, Heuristic<? super V> heuristic, SearchWorkspace workspace) {
+
+        V start = graph.getVertexById(startId);
+        V target = graph.getVertexById(targetId);
+        if (start == null || target == null) return null;
+
+        DGPath<V> path = new DGPath<>();
+        if (start.equals(target)) {
+            path.visited.add(start);
+            path.vertices.add(start);
+            return path;
+        }
+
+        workspace.reset(graph.getNumVertices());
+        int startIndex = graph.indexOf(start);
+        int targetIndex = graph.indexOf(target);
+        workspace.reach(startIndex, 0.0, -1);
+        IndexedMinHeap queue = workspace.queue();
+        queue.insert(startIndex, 0.0);
+        TDRelaxer<V, E> relaxer = new TDRelaxer<>(graph, workspace, weight, departureTime, heuristic, target);
+
+        while (!queue.isEmpty()) {
+            int current = queue.poll();
+            workspace.settle(current);
+            workspace.visit(current);
+
+            if (current == targetIndex) {
+                for (int v = current; v >= 0; v = workspace.fromVertex(v)) {
+                    path.vertices.addFirst(graph.vertexAt(v));
+                }
+                path.totalWeight = workspace.weightSumTo(current);
+                path.addVisited(graph, workspace.visitedVertices());
+                return path;
+            }
+
+            relaxer.current = current;
+            relaxer.currentWeightSum = workspace.weightSumTo(current);
+            graph.forEachOutEdge(current, relaxer);
+        }
+
+        return null;
+    }
+
+    // provides the precomputed weight column if the weight function is a metric, null otherwise
+    // an overlay provides its patch on top of the column of its base graph instead of a full copy
+    static <E> WeightColumn weightColumnOf(Graph<?, E> graph, ToDoubleFunction<? super E> weight) {
+        if (weight instanceof Metric) {
+            @SuppressWarnings("unchecked")
+            Metric<? super E> metric = (Metric<? super E>) weight;
+            if (graph instanceof OverlayGraph) return ((OverlayGraph<?, E>) graph).patchedWeightColumn(metric);
+            return WeightColumn.of(graph.weightColumn(metric));
+        }
+        return null;
+    }
+
+    // shared implementation of dijkstra's algorithm and A*, which is dijkstra's algorithm with a heuristic
+    private static <V extends Identifiable, E> DGPath<V> shortestPath(
+            SearchStats.Algorithm algorithm, Graph<V, E> graph, String startId, String targetId,
+            ToDoubleFunction<? super E> weight, WeightColumn weightColumn, Heuristic<? super V> heuristic,
+            SearchOptions options, SearchWorkspace workspace) {
 
         V start = graph.getVertexById(startId);
         V target = graph.getVertexById(targetId);
         if (start == null || target == null) return null;
 
+        // the instrumentation only takes the time of the search if it has been enabled
+        SearchStats stats = SearchStats.active();
+        long started = stats != null ? System.nanoTime() : 0L;
+
         // initialise the result path of the search
         DGPath<V> path = new DGPath<>();
-        path.visited.add(start);
 
         // easy target
         if (start.equals(target)) {
+            path.visited.add(start);
             path.vertices.add(start);
+            if (stats != null) stats.record(new SearchStats.Query(algorithm, startId, targetId,
+                    0, 0, 0, 0, 1, System.nanoTime() - started));
             return path;
         }
 
-        // keep track of the DSP status of all visited nodes
-        Map<V, DSPNode<V>> progressData = new HashMap<>();
-
-        // initialise the progress of the start node
-        DSPNode<V> nextDspNode = new DSPNode<>(start);
-        nextDspNode.weightSumTo = 0.0;
-        progressData.put(start, nextDspNode);
+        // keep track of the DSP status of all vertices by their ordinal in the workspace
+        workspace.reset(graph.getNumVertices());
+        int startIndex = graph.indexOf(start);
+        int targetIndex = graph.indexOf(target);
+        workspace.reach(startIndex, 0.0, -1);
 
-        // use a priority queue so we always grab the vertex with smallest current distance
-        PriorityQueue<DSPNode<V>> queue = new PriorityQueue<>();
-        queue.add(nextDspNode);
+        // use an indexed heap so we always grab the vertex with smallest current (estimated) distance
+        // every vertex is queued at most once and its priority is decreased in place upon a shorter path
+        IndexedMinHeap queue = workspace.queue();
+        queue.insert(startIndex, 0.0);
+        DSPRelaxer<V, E> relaxer = new DSPRelaxer<>(graph, workspace, weight, weightColumn, heuristic, target);
+        SearchOptions limits = options != null ? options : SearchOptions.UNBOUNDED;
 
         while (!queue.isEmpty()) {
-            DSPNode<V> current = queue.poll();
+            // the smallest key in the queue is a lower bound of the weight of the path to the target
+            SearchOptions.Termination termination = null;
+            int numSettled = workspace.getNumVisited();
+            if (queue.peekKey() > limits.getMaxCost()) {
+                termination = SearchOptions.Termination.MAX_COST;
+            } else if (numSettled >= limits.getMaxSettled()) {
+                termination = SearchOptions.Termination.MAX_SETTLED;
+            } else if ((numSettled & (SearchOptions.CHECK_INTERVAL - 1)) == 0) {
+                termination = limits.checkInterruption();
+            }
+            if (termination != null) {
+                partial(path, termination, queue.peekKey(), graph, workspace);
+                if (stats != null) record(stats, algorithm, startId, targetId, path, started,
+                        workspace, relaxer.relaxations, null);
+                return path;
+            }
 
-            // skip nodes we’ve already finalized
-            if (current.marked) continue;
-            current.marked = true;
-            path.visited.add(current.vertex);
+            int current = queue.poll();
+            workspace.settle(current);
+            workspace.visit(current);
 
             // if we hit the target stop early
-            if (current.vertex.equals(target)) {
+            if (current == targetIndex) {
                 // rebuild the shortest path by walking backwards
-                LinkedList<V> reversedPath = new LinkedList<>();
-                DSPNode<V> temp = current;
-                while (temp != null) {
-                    reversedPath.addFirst(temp.vertex);
-                    temp = (temp.fromVertex == null) ? null : progressData.get(temp.fromVertex);
+                for (int v = current; v >= 0; v = workspace.fromVertex(v)) {
+                    path.vertices.addFirst(graph.vertexAt(v));
                 }
-
-                // add the vertices to DGPath
-                for (V v : reversedPath) {
-                    path.vertices.add(v);
-                }
-
-                path.totalWeight = current.weightSumTo;
+                path.totalWeight = workspace.weightSumTo(current);
+                path.addVisited(graph, workspace.visitedVertices());
+                // the target has been settled without relaxing its edges
+                if (stats != null) record(stats, algorithm, startId, targetId, path, started,
+                        workspace, relaxer.relaxations, null);
                 return path;
             }
 
             // check all neighbors of the current vertex
-            for (V neighbor : graph.getNeighbours(current.vertex)) {
-                E edge = graph.getEdge(current.vertex, neighbor);
-                if (edge == null) continue;
-
-                double weight = weightMapper.apply(edge);
-                double newDistance = current.weightSumTo + weight;
-
-                // get or create DSPNode for neighbor
-                DSPNode<V> neighborNode = progressData.getOrDefault(neighbor, new DSPNode<>(neighbor));
-
-                // if we found a shorter path to this neighbor, update it
-                if (newDistance < neighborNode.weightSumTo) {
-                    neighborNode.weightSumTo = newDistance;
-                    neighborNode.fromVertex = current.vertex;
-                    progressData.put(neighbor, neighborNode);
-                    queue.add(neighborNode);
+            relaxer.current = current;
+            relaxer.currentWeightSum = workspace.weightSumTo(current);
+            graph.forEachOutEdge(current, relaxer);
+        }
+
+
+        // no path found
+        if (stats != null) record(stats, algorithm, startId, targetId, null, started,
+                workspace, relaxer.relaxations, null);
+        if (options == null) return null;
+        partial(path, SearchOptions.Termination.EXHAUSTED, Double.POSITIVE_INFINITY, graph, workspace);
+        return path;
+    }
+
+    // turns the path into the partial result of a search that stopped before reaching its target
+    private static <V extends Identifiable> void partial(DGPath<V> path, SearchOptions.Termination termination,
+                                                         double lowerBound, Graph<V, ?> graph, SearchWorkspace workspace) {
+        path.termination = termination;
+        path.totalWeight = lowerBound;
+        path.addVisited(graph, workspace.visitedVertices());
+    }
+
+    // records a heap-based search in the stats with the relaxations counted by its relaxers;
+    // the heap counters follow from the workspace(s) of the search, as the indexed heap pushes every vertex
+    // once when it is reached and pops it once when it is settled
+    private static <V extends Identifiable> void record(
+            SearchStats stats, SearchStats.Algorithm algorithm, String startId, String targetId,
+            DGPath<V> path, long started, SearchWorkspace forward, long relaxations, SearchWorkspace backward) {
+        long latency = System.nanoTime() - started;
+        long settled = forward.getNumVisited();
+        long pushes = settled + forward.queue().size();
+        if (backward != null) {
+            settled += backward.getNumVisited();
+            pushes += backward.getNumVisited() + backward.queue().size();
+        }
+        stats.record(new SearchStats.Query(algorithm, startId, targetId, settled, relaxations,
+                pushes, settled, path == null ? 0 : path.vertices.size(), latency));
+    }
+
+    // helper class with the progress of one direction of a bidirectional search
+    // it relaxes the out-going edges (forward) or in-coming edges (backward) of the vertex that is being settled
+    private static class BidirectionalSide<E> implements EdgeVisitor<E> {
+        private final boolean forward;
+        private final SearchWorkspace workspace;
+        private final ToDoubleFunction<? super E> weight;
+        private final WeightColumn weightColumn;
+        private BidirectionalSide<E> other;
+        private int current;
+        private double bestWeight = Double.MAX_VALUE;   // shortest path weight found sofar via meetingVertex
+        private int meetingVertex = -1;
+        private long relaxations;           // the number of edges that have been relaxed, for the instrumentation
+
+        private BidirectionalSide(boolean forward, SearchWorkspace workspace, int numVertices, int origin,
+                                  ToDoubleFunction<? super E> weight, WeightColumn weightColumn) {
+            this.forward = forward;
+            this.workspace = workspace;
+            this.weight = weight;
+            this.weightColumn = weightColumn;
+            workspace.reset(numVertices);
+            workspace.reach(origin, 0.0, -1);
+            workspace.queue().insert(origin, 0.0);
+        }
+
+        private double topPriority() {
+            return workspace.queue().peekKey();
+        }
+
+        private int queueSize() {
+            return workspace.queue().size();
+        }
+
+        private <V extends Identifiable> void settleNext(Graph<V, E> graph) {
+            current = workspace.queue().poll();
+            workspace.settle(current);
+            workspace.visit(current);
+            if (forward) {
+                graph.forEachOutEdge(current, this);
+            } else {
+                graph.forEachInEdge(current, this);
+            }
+        }
+
+        @Override
+        public void visit(int neighbor, int edgeId, E edge) {
+            relaxations++;
+            if (edge == null) return;
+            double newDistance = workspace.weightSumTo(current) +
+                    (weightColumn != null ? weightColumn.get(edgeId) : weight.applyAsDouble(edge));
+
+            if (!workspace.isSettled(neighbor) && newDistance < workspace.weightSumTo(neighbor)) {
+                workspace.reach(neighbor, newDistance, current);
+                workspace.queue().insertOrDecrease(neighbor, newDistance);
+            }
+
+            // check whether the two searches meet at the neighbor with a shorter path than found sofar
+            double otherWeightSum = other.workspace.weightSumTo(neighbor);
+            if (otherWeightSum < Double.MAX_VALUE &&
+                    workspace.weightSumTo(neighbor) + otherWeightSum < bestWeight) {
+                bestWeight = workspace.weightSumTo(neighbor) + otherWeightSum;
+                other.bestWeight = bestWeight;
+                meetingVertex = neighbor;
+                other.meetingVertex = neighbor;
+            }
+        }
+    }
+
+    /**
+     * Calculates the edge-weighted shortest path from start to target by a bidirectional variant of dijkstra's algorithm.
+     * A forward search from the start along out-going edges and a backward search from the target
+     * along in-coming edges run in turns, always expanding the side with the smaller frontier.
+     * The search stops as soon as the sum of the smallest tentative distances of both frontiers
+     * reaches the weight of the best path via any meeting point found sofar.
+     * Both searches together typically settle about half the vertices of a single dijkstra search.
+     *
+     * @param startId  id of the start vertex of the search
+     * @param targetId id of the target vertex of the search
+     * @param weight   provides the weight of an edge; a Metric uses the precomputed weight column of the graph
+     * @return the shortest path from start to target, with the vertices settled by both searches in path.visited
+     * returns null if either start or target cannot be matched with a vertex in the graph
+     * or no path can be found from start to target
+     */
+    public static <V extends Identifiable, E> DGPath<V> bidirectionalDijkstra(
+            Graph<V, E> graph, String startId, String targetId, ToDoubleFunction<? super E> weight) {
+        try (SearchWorkspace workspace = SearchWorkspace.acquire()) {
+            return bidirectionalDijkstra(graph, startId, targetId, weight, workspace);
+        }
+    }
+
+    /**
+     * bidirectional dijkstra that keeps the state of both searches in the given workspace
+     * (and its companion for the backward search) instead of allocating it per search
+     */
+    public static <V extends Identifiable, E> DGPath<V> bidirectionalDijkstra(
+            Graph<V, E> graph, String startId, String targetId, ToDoubleFunction<? super E> weight,
+            SearchWorkspace workspace) {
+
+        V start = graph.getVertexById(startId);
+        V target = graph.getVertexById(targetId);
+        if (start == null || target == null) return null;
+
+        // the instrumentation only takes the time of the search if it has been enabled
+        SearchStats stats = SearchStats.active();
+        long started = stats != null ? System.nanoTime() : 0L;
+
+        // initialise the result path of the search
+        DGPath<V> path = new DGPath<>();
+        path.visited.add(start);
+
+        // easy target
+        if (start.equals(target)) {
+            path.vertices.add(start);
+            if (stats != null) stats.record(new SearchStats.Query(SearchStats.Algorithm.BIDIRECTIONAL_DIJKSTRA,
+                    startId, targetId, 0, 0, 0, 0, 1, System.nanoTime() - started));
+            return path;
+        }
+
+        // the target is where the backward search starts
+        path.visited.add(target);
+
+        WeightColumn weightColumn = weightColumnOf(graph, weight);
+        int startIndex = graph.indexOf(start);
+        int targetIndex = graph.indexOf(target);
+        BidirectionalSide<E> forward = new BidirectionalSide<>(true, workspace,
+                graph.getNumVertices(), startIndex, weight, weightColumn);
+        BidirectionalSide<E> backward = new BidirectionalSide<>(false, workspace.reverse(),
+                graph.getNumVertices(), targetIndex, weight, weightColumn);
+        forward.other = backward;
+        backward.other = forward;
+
+        while (true) {
+            double forwardTop = forward.topPriority();
+            double backwardTop = backward.topPriority();
+            // no shorter path can be found once the frontiers together are beyond the best path
+            if (forwardTop == Double.MAX_VALUE || backwardTop == Double.MAX_VALUE ||
+                    forwardTop + backwardTop >= forward.bestWeight) {
+                break;
+            }
+            if (forward.queueSize() <= backward.queueSize()) {
+                forward.settleNext(graph);
+            } else {
+                backward.settleNext(graph);
+            }
+        }
+
+        if (forward.meetingVertex < 0) {
+            if (stats != null) record(stats, SearchStats.Algorithm.BIDIRECTIONAL_DIJKSTRA, startId, targetId,
+                    null, started, forward.workspace, forward.relaxations + backward.relaxations, backward.workspace);
+            return null;
+        }
+        path.visited.add(graph.vertexAt(forward.meetingVertex));
+        path.addVisited(graph, forward.workspace.visitedVertices());
+        path.addVisited(graph, backward.workspace.visitedVertices());
+
+        // rebuild the path from the meeting vertex backwards to the start and forwards to the target
+        for (int v = forward.meetingVertex; v >= 0; v = forward.workspace.fromVertex(v)) {
+            path.vertices.addFirst(graph.vertexAt(v));
+        }
+        for (int v = backward.workspace.fromVertex(forward.meetingVertex); v >= 0; v = backward.workspace.fromVertex(v)) {
+            path.vertices.add(graph.vertexAt(v));
+        }
+        path.totalWeight = forward.bestWeight;
+        if (stats != null) record(stats, SearchStats.Algorithm.BIDIRECTIONAL_DIJKSTRA, startId, targetId,
+                path, started, forward.workspace, forward.relaxations + backward.relaxations, backward.workspace);
+        return path;
+    }
+
+    // a loopless path by the ordinals of its vertices, with the weight from the start towards each of them
+    private static class YenPath implements Comparable<YenPath> {
+        private final int[] vertices;
+        private final double[] weightSums;
+        private final int[] visited;    // the vertices settled by the search that found the path
+
+        private YenPath(int[] vertices, double[] weightSums, int[] visited) {
+            this.vertices = vertices;
+            this.weightSums = weightSums;
+            this.visited = visited;
+        }
+
+        private double weight() {
+            return weightSums[weightSums.length - 1];
+        }
+
+        // whether the path starts with the first length vertices of the other path
+        private boolean startsWith(YenPath other, int length) {
+            if (vertices.length < length) return false;
+            for (int i = 0; i < length; i++) {
+                if (vertices[i] != other.vertices[i]) return false;
+            }
+            return true;
+        }
+
+        private <V extends Identifiable> DGPath<V> toPath(Graph<V, ?> graph) {
+            DGPath<V> path = new DGPath<>();
+            for (int v : vertices) {
+                path.vertices.add(graph.vertexAt(v));
+            }
+            path.totalWeight = weight();
+            path.addVisited(graph, visited);
+            return path;
+        }
+
+        @Override
+        public int compareTo(YenPath other) {
+            int byWeight = Double.compare(weight(), other.weight());
+            return byWeight != 0 ? byWeight : Integer.compare(vertices.length, other.vertices.length);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof YenPath && Arrays.equals(vertices, ((YenPath) o).vertices);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(vertices);
+        }
+    }
+
+    // helper class for the deviation searches of yen's algorithm
+    // it relaxes the edges that are not blocked by the root path, guided by the exact weights towards the target
+    // in the unrestricted graph, which remain admissible and consistent when edges are blocked
+    private static class SpurRelaxer<E> implements EdgeVisitor<E> {
+        private final SearchWorkspace workspace;
+        private final ToDoubleFunction<? super E> weight;
+        private final WeightColumn weightColumn;
+        private final double[] toTarget;
+        private final BitSet blockedVertices;       // the vertices of the root path before the spur vertex
+        private final BitSet blockedNext;           // the neighbours of the spur vertex that continue accepted paths
+        private final int spur;
+        private int current;
+        private double currentWeightSum;
+
+        private SpurRelaxer(SearchWorkspace workspace, ToDoubleFunction<? super E> weight, WeightColumn weightColumn,
+                            double[] toTarget, BitSet blockedVertices, BitSet blockedNext, int spur) {
+            this.workspace = workspace;
+            this.weight = weight;
+            this.weightColumn = weightColumn;
+            this.toTarget = toTarget;
+            this.blockedVertices = blockedVertices;
+            this.blockedNext = blockedNext;
+            this.spur = spur;
+        }
+
+        @Override
+        public void visit(int neighbor, int edgeId, E edge) {
+            if (edge == null || workspace.isSettled(neighbor) || toTarget[neighbor] == Double.POSITIVE_INFINITY ||
+                    blockedVertices.get(neighbor) || (current == spur && blockedNext.get(neighbor))) {
+                return;
+            }
+            double newDistance = currentWeightSum +
+                    (weightColumn != null ? weightColumn.get(edgeId) : weight.applyAsDouble(edge));
+            if (newDistance < workspace.weightSumTo(neighbor)) {
+                workspace.reach(neighbor, newDistance, current);
+                workspace.queue().insertOrDecrease(neighbor, newDistance + toTarget[neighbor]);
+            }
+        }
+    }
+
+    /**
+     * Calculates the k shortest loopless paths from start to target by Yen's algorithm.
+     * Every next path deviates from one of the paths found sofar at a spur vertex,
+     * after sharing the root path up to that vertex. The deviation searches for all spur vertices
+     * of a path are independent and run in parallel on the common fork-join pool.
+     * <p>
+     * A single backward dijkstra search from the target provides the shortest path tree towards the target.
+     * A deviation that is not blocked by its root path follows this tree without any search,
+     * other deviations run an A* search that is guided by the exact weights of the tree.
+     *
+     * @param startId  id of the start vertex of the paths
+     * @param targetId id of the target vertex of the paths
+     * @param k        the maximum number of paths
+     * @param weight   provides the weight of an edge; a Metric uses the precomputed weight column of the graph,
+     *                 other weight functions shall be safe to be called from multiple threads
+     * @return at most k distinct loopless paths from start to target in order of their weight,
+     * an empty list if there is no path at all
+     * returns null if either start or target cannot be matched with a vertex in the graph
+     */
+    public static <V extends Identifiable, E> List<DGPath<V>> kShortestPaths(
+            Graph<V, E> graph, String startId, String targetId, int k, ToDoubleFunction<? super E> weight) {
+
+        V start = graph.getVertexById(startId);
+        V target = graph.getVertexById(targetId);
+        if (start == null || target == null) return null;
+
+        List<DGPath<V>> paths = new ArrayList<>();
+        if (k <= 0) return paths;
+
+        WeightColumn weightColumn = weightColumnOf(graph, weight);
+        int numVertices = graph.getNumVertices();
+        int startIndex = graph.indexOf(start);
+        int targetIndex = graph.indexOf(target);
+
+        // the shortest path tree towards the target, by a backward search along in-coming edges
+        double[] toTarget = new double[numVertices];
+        int[] towardsTarget = new int[numVertices];
+        int[] treeVisited;
+        try (SearchWorkspace workspace = SearchWorkspace.acquire()) {
+            workspace.reset(numVertices);
+            workspace.reach(targetIndex, 0.0, -1);
+            IndexedMinHeap queue = workspace.queue();
+            queue.insert(targetIndex, 0.0);
+            DSPRelaxer<V, E> relaxer = new DSPRelaxer<>(graph, workspace, weight, weightColumn, null, null);
+            while (!queue.isEmpty()) {
+                int current = queue.poll();
+                workspace.settle(current);
+                workspace.visit(current);
+                relaxer.current = current;
+                relaxer.currentWeightSum = workspace.weightSumTo(current);
+                graph.forEachInEdge(current, relaxer);
+            }
+            for (int v = 0; v < numVertices; v++) {
+                toTarget[v] = workspace.isReached(v) ? workspace.weightSumTo(v) : Double.POSITIVE_INFINITY;
+                towardsTarget[v] = workspace.fromVertex(v);
+            }
+            treeVisited = workspace.visitedVertices();
+        }
+        if (toTarget[startIndex] == Double.POSITIVE_INFINITY) return paths;
+
+        List<YenPath> accepted = new ArrayList<>();
+        accepted.add(treePath(new int[0], new double[0], 0.0, startIndex, toTarget, towardsTarget, treeVisited));
+        PriorityQueue<YenPath> candidates = new PriorityQueue<>();
+        Set<YenPath> known = new HashSet<>(accepted);
+
+        while (accepted.size() < k) {
+            YenPath previous = accepted.get(accepted.size() - 1);
+            YenPath[] deviations = new YenPath[previous.vertices.length - 1];
+            IntStream.range(0, deviations.length).parallel().forEach(i -> {
+                try (SearchWorkspace workspace = SearchWorkspace.acquire()) {
+                    deviations[i] = deviation(graph, previous, i, accepted, weight, weightColumn,
+                            toTarget, towardsTarget, workspace);
                 }
+            });
+            for (YenPath deviation : deviations) {
+                if (deviation != null && known.add(deviation)) candidates.add(deviation);
             }
+            if (candidates.isEmpty()) break;
+            accepted.add(candidates.poll());
         }
 
+        for (YenPath path : accepted) {
+            paths.add(path.toPath(graph));
+        }
+        return paths;
+    }
 
-        // no path found
+    // the root path extended by the path from the spur vertex along the shortest path tree towards the target
+    // rootWeight is the weight sum of the root path up to and including the spur vertex
+    private static YenPath treePath(int[] root, double[] rootWeightSums, double rootWeight, int spur,
+                                    double[] toTarget, int[] towardsTarget, int[] visited) {
+        int length = root.length;
+        for (int v = spur; v >= 0; v = towardsTarget[v]) length++;
+        int[] vertices = Arrays.copyOf(root, length);
+        double[] weightSums = Arrays.copyOf(rootWeightSums, length);
+        int i = root.length;
+        for (int v = spur; v >= 0; v = towardsTarget[v], i++) {
+            vertices[i] = v;
+            weightSums[i] = rootWeight + (toTarget[spur] - toTarget[v]);
+        }
+        return new YenPath(vertices, weightSums, visited);
+    }
+
+    // the shortest path that shares the first spurIndex+1 vertices with the previous path and then deviates
+    // from all accepted paths with the same root, or null if there is no such path
+    private static <V extends Identifiable, E> YenPath deviation(
+            Graph<V, E> graph, YenPath previous, int spurIndex, List<YenPath> accepted,
+            ToDoubleFunction<? super E> weight, WeightColumn weightColumn,
+            double[] toTarget, int[] towardsTarget, SearchWorkspace workspace) {
+
+        int spur = previous.vertices[spurIndex];
+        int[] root = Arrays.copyOf(previous.vertices, spurIndex);
+        double[] rootWeightSums = Arrays.copyOf(previous.weightSums, spurIndex);
+        double rootWeight = previous.weightSums[spurIndex];
+        BitSet blockedVertices = new BitSet();
+        for (int v : root) blockedVertices.set(v);
+        BitSet blockedNext = new BitSet();
+        for (YenPath path : accepted) {
+            if (path.startsWith(previous, spurIndex + 1)) blockedNext.set(path.vertices[spurIndex + 1]);
+        }
+
+        // the tree path from the spur vertex is the shortest deviation, if the root does not block it
+        if (!blockedNext.get(towardsTarget[spur])) {
+            boolean blocked = false;
+            for (int v = spur; v >= 0 && !blocked; v = towardsTarget[v]) {
+                blocked = blockedVertices.get(v);
+            }
+            if (!blocked) return treePath(root, rootWeightSums, rootWeight, spur, toTarget, towardsTarget, new int[0]);
+        }
+
+        // otherwise search the remaining graph towards the target
+        int target = previous.vertices[previous.vertices.length - 1];
+        workspace.reset(graph.getNumVertices());
+        workspace.reach(spur, 0.0, -1);
+        IndexedMinHeap queue = workspace.queue();
+        queue.insert(spur, toTarget[spur]);
+        SpurRelaxer<E> relaxer = new SpurRelaxer<>(workspace, weight, weightColumn,
+                toTarget, blockedVertices, blockedNext, spur);
+        while (!queue.isEmpty()) {
+            int current = queue.poll();
+            workspace.settle(current);
+            workspace.visit(current);
+            if (current == target) {
+                int length = spurIndex;
+                for (int v = current; v >= 0; v = workspace.fromVertex(v)) length++;
+                int[] vertices = Arrays.copyOf(root, length);
+                double[] weightSums = Arrays.copyOf(rootWeightSums, length);
+                for (int v = current, i = length - 1; v >= 0; v = workspace.fromVertex(v), i--) {
+                    vertices[i] = v;
+                    weightSums[i] = rootWeight + workspace.weightSumTo(v);
+                }
+                return new YenPath(vertices, weightSums, workspace.visitedVertices());
+            }
+            relaxer.current = current;
+            relaxer.currentWeightSum = workspace.weightSumTo(current);
+            graph.forEachOutEdge(current, relaxer);
+        }
         return null;
     }
 }
@@ -0,0 +1,160 @@
+package graphs;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Shortest path tree from a single root vertex towards all vertices that have been reached within a search budget.
+ * Only the reached vertices are stored, in order of their weight from the root,
+ * by parallel primitive arrays of their ordinal, their weight and the ordinal of their parent in the tree.
+ * Lookups by vertex use a sorted index of the ordinals.
+ *
+ * @param <V> the type of the vertices
+ */
+public class ShortestPathTree<V extends Identifiable> {
+
+    private final Graph<V, ?> graph;
+    private final int[] ordinals;
+    private final double[] weights;
+    private final int[] parents;
+    private final int[] sortedOrdinals;
+    private final int[] sortedPositions;
+
+    /**
+     * representation invariants:
+     * 1.  ordinals[0] is the root of the tree with weights[0] == 0.0 and parents[0] == -1
+     * 2.  weights is non-decreasing; weights[i] is the weight of the shortest path from the root to ordinals[i]
+     * 3.  for all i > 0, parents[i] is the ordinal of a vertex ordinals[j] with weights[j] <= weights[i],
+     * the edge from parents[i] to ordinals[i] is the last edge of the shortest path towards ordinals[i],
+     * and following the parents from any vertex leads to the root
+     * 4.  sortedOrdinals holds the ordinals in ascending order and
+     * ordinals[sortedPositions[k]] == sortedOrdinals[k] for all k
+     **/
+
+    /**
+     * @param graph
+     * @param ordinals the ordinals of the reached vertices in order of their weight, starting with the root
+     * @param weights  the weights of the reached vertices
+     * @param parents  the ordinal of the parent of every reached vertex, -1 for the root
+     */
+    ShortestPathTree(Graph<V, ?> graph, int[] ordinals, double[] weights, int[] parents) {
+        this.graph = graph;
+        this.ordinals = ordinals;
+        this.weights = weights;
+        this.parents = parents;
+
+        long[] keyed = new long[ordinals.length];
+        for (int i = 0; i < ordinals.length; i++) {
+            keyed[i] = ((long) ordinals[i] << 32) | i;
+        }
+        Arrays.sort(keyed);
+        this.sortedOrdinals = new int[ordinals.length];
+        this.sortedPositions = new int[ordinals.length];
+        for (int k = 0; k < keyed.length; k++) {
+            sortedOrdinals[k] = (int) (keyed[k] >>> 32);
+            sortedPositions[k] = (int) keyed[k];
+        }
+    }
+
+    /**
+     * @return the root vertex of the tree
+     */
+    public V getRoot() {
+        return graph.vertexAt(ordinals[0]);
+    }
+
+    /**
+     * @return the number of vertices in the tree, including the root
+     */
+    public int size() {
+        return ordinals.length;
+    }
+
+    /**
+     * @param index
+     * @return the vertex at the given position in order of weight
+     */
+    public V vertexAt(int index) {
+        return graph.vertexAt(ordinals[index]);
+    }
+
+    /**
+     * @param index
+     * @return the weight of the shortest path towards the vertex at the given position in order of weight
+     */
+    public double weightAt(int index) {
+        return weights[index];
+    }
+
+    /**
+     * @return an unmodifiable view on the vertices of the tree in order of their weight from the root
+     */
+    public List<V> getVertices() {
+        return new AbstractList<>() {
+            @Override
+            public V get(int index) {
+                return vertexAt(index);
+            }
+
+            @Override
+            public int size() {
+                return ordinals.length;
+            }
+        };
+    }
+
+    /**
+     * @param vertex
+     * @return whether the vertex has been reached within the budget of the search
+     */
+    public boolean contains(V vertex) {
+        return positionOf(vertex) >= 0;
+    }
+
+    /**
+     * @param vertex
+     * @return the weight of the shortest path from the root to the vertex,
+     * or Double.POSITIVE_INFINITY if the vertex has not been reached
+     */
+    public double getWeight(V vertex) {
+        int position = positionOf(vertex);
+        return position < 0 ? Double.POSITIVE_INFINITY : weights[position];
+    }
+
+    /**
+     * @param vertex
+     * @return the predecessor of the vertex on the shortest path from the root,
+     * or null for the root and for vertices that have not been reached
+     */
+    public V getParent(V vertex) {
+        int position = positionOf(vertex);
+        return position <= 0 ? null : graph.vertexAt(parents[position]);
+    }
+
+    /**
+     * @param vertex
+     * @return the shortest path from the root to the vertex, or null if the vertex has not been reached
+     */
+    public Searcher.DGPath<V> getPath(V vertex) {
+        int position = positionOf(vertex);
+        if (position < 0) return null;
+        Searcher.DGPath<V> path = new Searcher.DGPath<>();
+        for (int i = position; i >= 0; i = i == 0 ? -1 : positionOf(parents[i])) {
+            path.getVertices().addFirst(graph.vertexAt(ordinals[i]));
+        }
+        path.setTotalWeight(weights[position]);
+        return path;
+    }
+
+    // the position of the vertex in the tree, or -1 if it has not been reached
+    private int positionOf(V vertex) {
+        return positionOf(graph.indexOf(vertex));
+    }
+
+    private int positionOf(int ordinal) {
+        if (ordinal < 0) return -1;
+        int k = Arrays.binarySearch(sortedOrdinals, ordinal);
+        return k < 0 ? -1 : sortedPositions[k];
+    }
+}
@@ -0,0 +1,20 @@
+package graphs;
+
+/**
+ * Provides the weight (travel time) of an edge that depends on the time at which the edge is entered,
+ * for time-dependent searches. The arrival time departureTime + travelTime(edge, departureTime)
+ * shall not decrease for later departures (FIFO), i.e. waiting never gets you there earlier;
+ * then the time-dependent searches find the earliest arrival.
+ *
+ * @param <E> the type of the edge information
+ */
+@FunctionalInterface
+public interface TimeDependentWeight<E> {
+
+    /**
+     * @param edge
+     * @param departureTime the time at which the edge is entered
+     * @return the non-negative time it takes to traverse the edge
+     */
+    double travelTime(E edge, double departureTime);
+}
@@ -0,0 +1,58 @@
+package graphs;
+
+/**
+ * Read-only view of the edge weights of a graph under a metric, as used by the searches.
+ * The weights of edge ids below patchStart are read from a shared base column,
+ * those of higher edge ids from a small patch; a graph without changes has an empty patch.
+ * Thereby an OverlayGraph serves its weights without copying the column of its base graph.
+ */
+final class WeightColumn {
+
+    private static final double[] NO_PATCH = new double[0];
+
+    private final double[] base;
+    private final int patchStart;
+    private final double[] patch;
+
+    /**
+     * representation invariants:
+     * 1.  0 <= patchStart <= base.length
+     * 2.  the weight of edge id e is base[e] if e < patchStart, and patch[e - patchStart] otherwise
+     **/
+
+    WeightColumn(double[] base, int patchStart, double[] patch) {
+        this.base = base;
+        this.patchStart = patchStart;
+        this.patch = patch;
+    }
+
+    /**
+     * @param column a complete weight column indexed by edge id
+     * @return the view of the column without a patch
+     */
+    static WeightColumn of(double[] column) {
+        return new WeightColumn(column, column.length, NO_PATCH);
+    }
+
+    /**
+     * @param edgeId
+     * @return the weight of the edge with the given id
+     */
+    double get(int edgeId) {
+        return edgeId < patchStart ? base[edgeId] : patch[edgeId - patchStart];
+    }
+
+    /**
+     * @return the number of edge ids that are covered by the column
+     */
+    int size() {
+        return patchStart + patch.length;
+    }
+
+    /**
+     * @return the shared base column
+     */
+    double[] base() {
+        return base;
+    }
+}
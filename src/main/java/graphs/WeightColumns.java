@@ -0,0 +1,41 @@
+package graphs;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Cache of the primitive weight columns of a graph by metric name.
+ * A column is recalculated when the weight version of the graph has changed since its calculation,
+ * at most once per version, also when it is requested by many threads at the same time.
+ */
+class WeightColumns {
+
+    // a calculated column together with the weight version it has been calculated for
+    private static class Column {
+        private final long version;
+        private final double[] values;
+
+        private Column(long version, double[] values) {
+            this.version = version;
+            this.values = values;
+        }
+    }
+
+    private final Map<String, Column> columns = new ConcurrentHashMap<>();
+
+    /**
+     * @param metric     the metric of the column
+     * @param version    the current weight version of the graph
+     * @param calculator calculates the column if it is missing or outdated
+     * @return the up-to-date column
+     */
+    double[] get(Metric<?> metric, long version, Supplier<double[]> calculator) {
+        Column column = columns.get(metric.getName());
+        if (column != null && column.version == version) return column.values;
+        // concurrent callers of the same metric wait for a single calculation instead of repeating it
+        return columns.compute(metric.getName(), (name, existing) ->
+                existing != null && existing.version == version ? existing : new Column(version, calculator.get())
+        ).values;
+    }
+}
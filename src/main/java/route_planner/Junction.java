@@ -11,6 +11,7 @@ public class Junction implements Identifiable
 
 {
     private String name;            // unique name of the junction
+    private long code = NO_KEY;     // optional numeric CBS code of the municipality
     private double locationX;       // RD x-coordinate in km
     private double locationY;       // RD y-coordinate in km
     private String province;
@@ -18,6 +19,7 @@ public class Junction implements Identifiable
 
     public Junction(Builder builder) {
         name = builder.name;
+        code = builder.code;
         locationX = builder.locationX;
         locationY = builder.locationY;
         province = builder.province;
@@ -38,6 +40,10 @@ public class Junction implements Identifiable
         return name;
     }
 
+    public long getCode() {
+        return code;
+    }
+
     public double getLocationX() {
         return locationX;
     }
@@ -64,7 +70,8 @@ public class Junction implements Identifiable
 
     @Override
     public int hashCode() {
-        return Objects.hash(name);
+        // Objects.hashCode avoids the varargs array allocation of Objects.hash on every probe
+        return Objects.hashCode(name);
     }
 
     // -----------------------------
@@ -127,11 +134,17 @@ public class Junction implements Identifiable
         return name;
     }
 
+    @Override
+    public long getKey() {
+        return code;
+    }
+
     /**
      * Builder class for creating Junction objects in a readable and flexible way.
      */
     public static class Builder {
         private String name;
+        private long code = NO_KEY;
         private double locationX;
         private double locationY;
         private String province;
@@ -145,6 +158,11 @@ public class Junction implements Identifiable
             return this;
         }
 
+        public Builder code(long code) {
+            this.code = code;
+            return this;
+        }
+
         public Builder location(double locationX, double locationY) {
             this.locationX = locationX;
             this.locationY = locationY;
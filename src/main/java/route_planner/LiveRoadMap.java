@@ -0,0 +1,140 @@
+package route_planner;
+
+import graphs.CsrGraph;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Thread-safe mode of a RoadMap for serving route searches while live traffic updates keep flowing.
+ * <p>
+ * Readers obtain the current version of the road map by snapshot(), which is a lock-free volatile read.
+ * A version and its number are published together, such that getVersion() never lags behind snapshot().
+ * Every version is an immutable CsrGraph that will never change after publication,
+ * so a search on a snapshot sees a consistent road map from start to end.
+ * <p>
+ * Writers batch their changes in update(), which copies the affected roads (copy-on-write),
+ * and publish them all at once as a new version. Unchanged roads and the adjacency structure
+ * are shared between versions. Concurrent writers are serialised.
+ * <p>
+ * Publishing a version costs O(E) time and memory for any batch, however small:
+ * the new version gets its own flat array of road references, and its weight columns are
+ * calculated again upon its first search by metric. The flat array keeps the edge lookups of the searches
+ * at a single array access; the per-version weight columns would cost O(E) anyway.
+ * Hence incident updates shall be collected into batches rather than published one by one,
+ * e.g. once per second; for many independent what-if changes, use RoadMap.overlay() instead.
+ * <p>
+ * Roads in a published version shall not be modified through their setters; use update() instead.
+ */
+public class LiveRoadMap {
+
+    private volatile Published current;
+    private final Object writeLock = new Object();
+
+    // a version of the road map together with its number, published by a single volatile write
+    private static final class Published {
+        private final CsrGraph<Junction, Road> graph;
+        private final long version;
+
+        private Published(CsrGraph<Junction, Road> graph, long version) {
+            this.graph = graph;
+            this.version = version;
+        }
+    }
+
+    /**
+     * creates a live mode of the given road map.
+     * All roads are copied, such that later changes to the roads of the given road map
+     * are not seen by the live versions.
+     *
+     * @param roadMap
+     */
+    public LiveRoadMap(RoadMap roadMap) {
+        this.current = new Published(roadMap.copyRoads(), 0L);
+    }
+
+    /**
+     * @return the current immutable version of the road map
+     */
+    public CsrGraph<Junction, Road> snapshot() {
+        return current.graph;
+    }
+
+    /**
+     * @return the number of versions that have been published since the live road map was created
+     */
+    public long getVersion() {
+        return current.version;
+    }
+
+    /**
+     * applies a batch of changes and publishes the result atomically as a new version
+     *
+     * @param changes receives a batch to register all changes on
+     * @return the newly published version
+     */
+    public CsrGraph<Junction, Road> update(Consumer<Batch> changes) {
+        synchronized (writeLock) {
+            Published published = current;
+            Batch batch = new Batch(published.graph);
+            changes.accept(batch);
+            if (!batch.replacements.isEmpty()) {
+                published = new Published(published.graph.withEdges(batch.replacements), published.version + 1);
+                current = published;
+            }
+            return published.graph;
+        }
+    }
+
+    /**
+     * collects changes of road attributes which are published together
+     * the roads of the current version are never changed; the batch works on copies
+     */
+    public static class Batch {
+        private final CsrGraph<Junction, Road> base;
+        private final Map<Integer, Road> replacements = new HashMap<>();
+
+        private Batch(CsrGraph<Junction, Road> base) {
+            this.base = base;
+        }
+
+        /**
+         * changes the maximum speed of the road segment from one junction to another
+         *
+         * @param fromId
+         * @param toId
+         * @param maxSpeed
+         * @return whether the road segment exists
+         */
+        public boolean setMaxSpeed(String fromId, String toId, int maxSpeed) {
+            Road road = copyOf(fromId, toId);
+            if (road == null) return false;
+            road.setMaxSpeed(maxSpeed);
+            return true;
+        }
+
+        /**
+         * changes the length of the road segment from one junction to another
+         *
+         * @param fromId
+         * @param toId
+         * @param length
+         * @return whether the road segment exists
+         */
+        public boolean setLength(String fromId, String toId, double length) {
+            Road road = copyOf(fromId, toId);
+            if (road == null) return false;
+            road.setLength(length);
+            return true;
+        }
+
+        // retrieves the private copy of the road segment in this batch, creating it upon first change
+        private Road copyOf(String fromId, String toId) {
+            int edgeIndex = base.edgeIndex(base.indexOf(base.getVertexById(fromId)),
+                    base.indexOf(base.getVertexById(toId)));
+            if (edgeIndex < 0) return null;
+            return replacements.computeIfAbsent(edgeIndex, e -> new Road(base.edgeAt(e)));
+        }
+    }
+}
@@ -1,9 +1,66 @@
 package route_planner;
 
+import graphs.Metric;
+import graphs.TimeDependentWeight;
+
+import java.util.concurrent.atomic.AtomicLong;
+
 public class Road {
+    /**
+     * the physical length of a road segment in km
+     */
+    public static final Metric<Road> DISTANCE = Metric.of("distance", Road::getLength);
+    /**
+     * the travel time along a road segment at its maximum speed in hours
+     */
+    public static final Metric<Road> TRAVEL_TIME = Metric.of("travel-time", r -> r.getLength() / r.getMaxSpeed());
+    /**
+     * the travel time along a road segment in hours when entering it at a given time, according to its profile
+     */
+    public static final TimeDependentWeight<Road> TIME_DEPENDENT_TRAVEL_TIME = Road::getTravelTime;
+
+    /**
+     * counters of the weight changes of all roads in one road network, such that the precomputed weight columns
+     * and cached routes of that network can be invalidated. Every road map and every copy of its roads
+     * keeps its own counters, such that changes in one network do not invalidate the others.
+     */
+    public static final class Versions {
+        // counts all changes of road weights
+        private final AtomicLong weightVersion = new AtomicLong();
+        // counts the changes which may have decreased a road weight, such that other paths may have become shorter
+        private final AtomicLong decreaseVersion = new AtomicLong();
+        // counts the changes of travel time profiles
+        private final AtomicLong profileVersion = new AtomicLong();
+
+        /**
+         * @return a counter which increases whenever the length or maximum speed of any road in the network changes
+         */
+        public long getWeightVersion() {
+            return weightVersion.get();
+        }
+
+        /**
+         * @return a counter which increases whenever the length of any road in the network decreases
+         * or its maximum speed increases, i.e. whenever any path may have become shorter or faster
+         */
+        public long getDecreaseVersion() {
+            return decreaseVersion.get();
+        }
+
+        /**
+         * @return a counter which increases whenever the travel time profile of any road in the network changes
+         */
+        public long getProfileVersion() {
+            return profileVersion.get();
+        }
+    }
+
     private String name;        // the name of the road segment
     private double length;      // the fysical length of the segment in km
     private int maxSpeed;       // the maximum driving speed on the segment in km/h
+    private TravelTimeProfile profile = TravelTimeProfile.FREE_FLOW;    // shared between segments
+    private volatile long version;      // counts the changes of the length or maximum speed of this segment
+    private Versions versions;          // the counters of the network of the segment, null if it has none
 
     public Road(String name) {
         this.name = name;
@@ -15,8 +72,34 @@ public class Road {
         this.maxSpeed = maxSpeed;
     }
 
+    /**
+     * copies a road segment, without it joining the network of the original
+     *
+     * @param copy
+     */
     public Road(Road copy) {
         this(copy.name, copy.length, copy.maxSpeed);
+        this.profile = copy.profile;
+    }
+
+    /**
+     * copies a road segment into another network
+     *
+     * @param copy
+     * @param versions the counters of the network of the copy
+     */
+    public Road(Road copy, Versions versions) {
+        this(copy);
+        this.versions = versions;
+    }
+
+    /**
+     * lets the road segment report its changes to the counters of the network it has been added to
+     *
+     * @param versions
+     */
+    void joinNetwork(Versions versions) {
+        this.versions = versions;
     }
 
     public String getName() {
@@ -32,7 +115,10 @@ public class Road {
     }
 
     public void setLength(double length) {
+        boolean decrease = length < this.length;
         this.length = length;
+        version++;
+        registerChange(decrease);
     }
 
     public int getMaxSpeed() {
@@ -40,7 +126,46 @@ public class Road {
     }
 
     public void setMaxSpeed(int maxSpeed) {
+        boolean decrease = maxSpeed > this.maxSpeed;
         this.maxSpeed = maxSpeed;
+        version++;
+        registerChange(decrease);
+    }
+
+    private void registerChange(boolean decrease) {
+        if (versions == null) return;
+        if (decrease) versions.decreaseVersion.incrementAndGet();
+        versions.weightVersion.incrementAndGet();
+    }
+
+    public TravelTimeProfile getProfile() {
+        return profile;
+    }
+
+    /**
+     * changes the daily travel time profile of this road segment,
+     * which only affects time-dependent travel times, not the DISTANCE and TRAVEL_TIME metrics
+     *
+     * @param profile
+     */
+    public void setProfile(TravelTimeProfile profile) {
+        this.profile = profile;
+        if (versions != null) versions.profileVersion.incrementAndGet();
+    }
+
+    /**
+     * @param departureTime the time in hours at which the road segment is entered
+     * @return the travel time along the road segment in hours, at its maximum speed scaled by its profile
+     */
+    public double getTravelTime(double departureTime) {
+        return length / maxSpeed * profile.factorAt(departureTime);
+    }
+
+    /**
+     * @return a counter which increases whenever the length or maximum speed of this road changes
+     */
+    public long getVersion() {
+        return version;
     }
 
     @Override
@@ -1,14 +1,23 @@
 package route_planner;
 
+import graphs.CsrGraph;
 import graphs.DirectedGraph;
+import graphs.Heuristic;
+import graphs.Landmarks;
 import graphs.Searcher;
-
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.PrintStream;
-import java.util.Locale;
-import java.util.Random;
-import java.util.Scanner;
+import graphs.SearchWorkspace;
+import graphs.ShortestPathTree;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.ToDoubleFunction;
 
 public class RoadMap extends DirectedGraph<Junction, Road> {
     public final String COLOR_OTHER = "black";
@@ -17,8 +26,14 @@ public class RoadMap extends DirectedGraph<Junction, Road> {
     public final String COLOR_PATH = "lime";
     public final String COLOR_CITY_ROAD = "gray";
     public final String COLOR_VISITED_CITY = "mediumblue";
+    public final String COLOR_AREA_CITY = "crimson";
+
+    private final Road.Versions versions = new Road.Versions();    // the weight counters of the roads of this map
+    private volatile NetworkBounds bounds;     // the cached speed bounds of the roads, null until first use
 
     public RoadMap(String junctionsResource, String roadsResource) {
+        // maintain the in-coming roads per junction for backward searches
+        super(true);
         System.out.printf("\nImporting junctions and roads from %s and %s...\n",
                 junctionsResource, roadsResource);
 
@@ -31,6 +46,11 @@ public class RoadMap extends DirectedGraph<Junction, Road> {
                 getNumVertices(), getNumEdges());
     }
 
+    // creates an empty road map, to be filled from a binary snapshot
+    private RoadMap() {
+        super(true);
+    }
+
     /**
      * the randomizor is used to generate missing authentic data about the fysical length of roads.
      * Repreducible results of calculations can be obtained by fixing the seed of the randomizer
@@ -43,9 +63,13 @@ public class RoadMap extends DirectedGraph<Junction, Road> {
 
     private static final String DELIMITER = ";";
 
+    private static final int SNAPSHOT_MAGIC = 0x524D4150;   // "RMAP"
+    private static final int SNAPSHOT_VERSION = 2;
+    private static final int SNAPSHOT_VERSION_WITHOUT_PROFILES = 1;
+
     /**
      * imports a list of junctions from a resource file in the project.
-     * imports name, x-coordinate, y-coordinate and population at the junction
+     * imports code, name, x-coordinate, y-coordinate and population at the junction
      * uses the Dutch RD-coordinate system measured in km (see https://nl.wikipedia.org/wiki/Rijksdriehoeksco%C3%B6rdinaten)
      *
      * @param resourceName
@@ -66,9 +90,8 @@ public class RoadMap extends DirectedGraph<Junction, Road> {
         // System.out.println(header);
 
         while (scanner.hasNext()) {
-            scanner.nextInt(); // skip code
-
             Junction junction = new Junction.Builder()
+                    .code(scanner.nextInt())
                     .name(scanner.next().trim())
                     .location(scanner.nextDouble(), scanner.nextDouble())
                     .province(scanner.next())
@@ -144,6 +167,336 @@ public class RoadMap extends DirectedGraph<Junction, Road> {
         return numLoaded;
     }
 
+    /**
+     * saves the road map into a compact binary snapshot file, which can be loaded much faster than the csv resources.
+     * The file consists of:
+     * a header with magic number, format version and the numbers of junctions, road segments, strings and profiles,
+     * a table with all distinct strings (names and provinces), which are referred to by their index or -1 for null,
+     * a table with all distinct travel time profiles (number of breakpoints, their hours and their factors),
+     * the junction attributes in order of their ordinal,
+     * the adjacency in CSR layout (offsets per junction and target ordinals per road segment)
+     * and the attributes of all road segments in the same order, including the index of their profile.
+     * All numbers are stored big-endian.
+     *
+     * @param file
+     * @throws IOException
+     */
+    public void save(Path file) throws IOException {
+        CsrGraph<Junction, Road> graph = freeze();
+        int numJunctions = graph.getNumVertices();
+        int numRoads = graph.getNumEdges();
+
+        // collect all distinct strings in order of first appearance
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        for (int j = 0; j < numJunctions; j++) {
+            addString(strings, graph.vertexAt(j).getName());
+            addString(strings, graph.vertexAt(j).getProvince());
+        }
+        Map<TravelTimeProfile, Integer> profiles = new LinkedHashMap<>();
+        for (int e = 0; e < numRoads; e++) {
+            addString(strings, graph.edgeAt(e).getName());
+            profiles.putIfAbsent(graph.edgeAt(e).getProfile(), profiles.size());
+        }
+
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeInt(numJunctions);
+            out.writeInt(numRoads);
+            out.writeInt(strings.size());
+            out.writeInt(profiles.size());
+
+            for (String string : strings.keySet()) {
+                byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+
+            for (TravelTimeProfile profile : profiles.keySet()) {
+                out.writeInt(profile.getNumBreakpoints());
+                for (int i = 0; i < profile.getNumBreakpoints(); i++) {
+                    out.writeDouble(profile.getHour(i));
+                }
+                for (int i = 0; i < profile.getNumBreakpoints(); i++) {
+                    out.writeDouble(profile.getFactor(i));
+                }
+            }
+
+            for (int j = 0; j < numJunctions; j++) {
+                Junction junction = graph.vertexAt(j);
+                out.writeInt(stringIndex(strings, junction.getName()));
+                out.writeInt(stringIndex(strings, junction.getProvince()));
+                out.writeLong(junction.getCode());
+                out.writeDouble(junction.getLocationX());
+                out.writeDouble(junction.getLocationY());
+                out.writeInt(junction.getPopulation());
+            }
+
+            for (int j = 0; j <= numJunctions; j++) {
+                out.writeInt(j < numJunctions ? graph.firstEdge(j) : numRoads);
+            }
+            for (int e = 0; e < numRoads; e++) {
+                out.writeInt(graph.edgeTarget(e));
+            }
+            for (int e = 0; e < numRoads; e++) {
+                Road road = graph.edgeAt(e);
+                out.writeInt(stringIndex(strings, road.getName()));
+                out.writeDouble(road.getLength());
+                out.writeInt(road.getMaxSpeed());
+                out.writeInt(profiles.get(road.getProfile()));
+            }
+        }
+    }
+
+    /**
+     * loads a road map from a binary snapshot file that has been produced by save().
+     * The file is memory-mapped, such that no parsing is involved,
+     * and the stored CSR layout becomes the frozen snapshot of the road map without being rebuilt.
+     * The junctions keep their ordinals and the road segments keep their lengths,
+     * so the randomizer is not used.
+     *
+     * @param file
+     * @return the road map
+     * @throws IOException if the file cannot be read or is not a valid road map snapshot
+     */
+    public static RoadMap load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            try {
+                return load(buffer);
+            } catch (RuntimeException e) {
+                throw new IOException("Invalid road map snapshot " + file, e);
+            }
+        }
+    }
+
+    private static RoadMap load(ByteBuffer buffer) throws IOException {
+        if (buffer.getInt() != SNAPSHOT_MAGIC) {
+            throw new IOException("Not a road map snapshot");
+        }
+        int version = buffer.getInt();
+        if (version != SNAPSHOT_VERSION && version != SNAPSHOT_VERSION_WITHOUT_PROFILES) {
+            throw new IOException("Unsupported road map snapshot version " + version);
+        }
+        // snapshots of the first version predate the travel time profiles; all their roads flow freely
+        boolean hasProfiles = version != SNAPSHOT_VERSION_WITHOUT_PROFILES;
+        int numJunctions = buffer.getInt();
+        int numRoads = buffer.getInt();
+        String[] strings = new String[buffer.getInt()];
+        TravelTimeProfile[] profiles = new TravelTimeProfile[hasProfiles ? buffer.getInt() : 0];
+
+        for (int i = 0; i < strings.length; i++) {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        for (int p = 0; p < profiles.length; p++) {
+            double[] hours = new double[buffer.getInt()];
+            double[] factors = new double[hours.length];
+            buffer.asDoubleBuffer().get(hours);
+            buffer.position(buffer.position() + Double.BYTES * hours.length);
+            buffer.asDoubleBuffer().get(factors);
+            buffer.position(buffer.position() + Double.BYTES * factors.length);
+            profiles[p] = TravelTimeProfile.of(hours, factors);
+        }
+
+        Junction[] junctions = new Junction[numJunctions];
+        for (int j = 0; j < numJunctions; j++) {
+            junctions[j] = new Junction.Builder()
+                    .name(stringAt(strings, buffer.getInt()))
+                    .province(stringAt(strings, buffer.getInt()))
+                    .code(buffer.getLong())
+                    .location(buffer.getDouble(), buffer.getDouble())
+                    .population(buffer.getInt())
+                    .build();
+        }
+
+        int[] offsets = new int[numJunctions + 1];
+        buffer.asIntBuffer().get(offsets);
+        buffer.position(buffer.position() + Integer.BYTES * offsets.length);
+        int[] targets = new int[numRoads];
+        buffer.asIntBuffer().get(targets);
+        buffer.position(buffer.position() + Integer.BYTES * targets.length);
+
+        RoadMap roadMap = new RoadMap();
+        Road[] roads = new Road[numRoads];
+        for (int e = 0; e < numRoads; e++) {
+            roads[e] = new Road(stringAt(strings, buffer.getInt()), buffer.getDouble(), buffer.getInt());
+            if (hasProfiles) roads[e].setProfile(profiles[buffer.getInt()]);
+            roads[e].joinNetwork(roadMap.versions);
+        }
+        roadMap.fillFromCsr(junctions, offsets, targets, roads);
+        return roadMap;
+    }
+
+    // registers a string for the string table of a snapshot, null is not stored
+    private static void addString(Map<String, Integer> strings, String string) {
+        if (string != null) strings.putIfAbsent(string, strings.size());
+    }
+
+    private static int stringIndex(Map<String, Integer> strings, String string) {
+        return string == null ? -1 : strings.get(string);
+    }
+
+    private static String stringAt(String[] strings, int index) {
+        return index < 0 ? null : strings[index];
+    }
+
+    /**
+     * selects the most populated junctions as landmarks for ALT searches.
+     * Landmarks precomputed by travel time remain valid while speed limits are only lowered.
+     *
+     * @param count  the number of landmarks
+     * @param weight the weight of the road segments in the searches that are to be guided
+     * @return the landmarks with their precomputed distances
+     */
+    public Landmarks<Junction, Road> populationLandmarks(int count, ToDoubleFunction<? super Road> weight) {
+        return Landmarks.byScore(this, weight, count, Junction::getPopulation);
+    }
+
+    /**
+     * finds all junctions that can be reached from the start within the given travel time
+     *
+     * @param startId       id of the junction where the travel starts
+     * @param maxTravelTime the maximum travel time in hours
+     * @return the junctions within reach, including the start,
+     * returns null if the start cannot be matched with a junction
+     */
+    public Set<Junction> isochrone(String startId, double maxTravelTime) {
+        ShortestPathTree<Junction> tree = Searcher.shortestPathTree(this, startId, Road.TRAVEL_TIME, maxTravelTime);
+        if (tree == null) return null;
+        return new HashSet<>(tree.getVertices());
+    }
+
+    /**
+     * provides an admissible heuristic for A* searches by distance:
+     * the straight-line distance between the RD-coordinates of two junctions,
+     * which can never exceed the length of the roads between them
+     *
+     * @return the distance heuristic
+     */
+    public Heuristic<Junction> distanceHeuristic() {
+        return Junction::getDistance;
+    }
+
+    /**
+     * provides an admissible heuristic for A* searches by travel time:
+     * the straight-line distance between two junctions driven at the maximum speed limit of the whole network.
+     * The maximum speed limit is determined upon this call;
+     * the heuristic becomes inadmissible if any speed limit is raised beyond it later on.
+     *
+     * @return the travel time heuristic
+     */
+    public Heuristic<Junction> travelTimeHeuristic() {
+        return networkBounds().travelTimeHeuristic;
+    }
+
+    // the speed bounds of all roads, together with the versions of the road map they have been derived from
+    private static class NetworkBounds {
+        private final long version;
+        private final long profileVersion;
+        private final Heuristic<Junction> travelTimeHeuristic;
+        private final Heuristic<Junction> earliestArrivalHeuristic;
+
+        private NetworkBounds(long version, long profileVersion, int maxSpeed, double minFactor) {
+            this.version = version;
+            this.profileVersion = profileVersion;
+            double maxNetworkSpeed = maxSpeed;
+            this.travelTimeHeuristic = (junction, target) -> junction.getDistance(target) / maxNetworkSpeed;
+            double maxProfileSpeed = maxSpeed / minFactor;
+            this.earliestArrivalHeuristic = (junction, target) -> junction.getDistance(target) / maxProfileSpeed;
+        }
+    }
+
+    // provides the speed bounds of the current roads, which are only derived again after roads have changed
+    private NetworkBounds networkBounds() {
+        NetworkBounds bounds = this.bounds;
+        long version = getVersion();
+        long profileVersion = versions.getProfileVersion();
+        if (bounds == null || bounds.version != version || bounds.profileVersion != profileVersion) {
+            CsrGraph<Junction, Road> graph = freeze();
+            int maxSpeed = 1;
+            double minFactor = 1.0;
+            for (int e = 0; e < graph.getNumEdges(); e++) {
+                Road road = graph.edgeAt(e);
+                maxSpeed = Math.max(maxSpeed, road.getMaxSpeed());
+                minFactor = Math.min(minFactor, road.getProfile().getMinFactor());
+            }
+            bounds = new NetworkBounds(version, profileVersion, maxSpeed, minFactor);
+            this.bounds = bounds;
+        }
+        return bounds;
+    }
+
+    /**
+     * finds the route with the earliest arrival when departing at the given time of day,
+     * taking the travel time profiles of all roads into account.
+     * Uses time-dependent A* with the travel time heuristic scaled by the smallest profile factor in the network,
+     * which keeps it admissible at any time of day. The bound is only derived again after roads have changed.
+     *
+     * @param startId       id of the start junction
+     * @param targetId      id of the target junction
+     * @param departureTime the time of departure in hours since midnight
+     * @return the earliest arrival path with the travel time in hours as totalWeight,
+     * or null if either junction is unknown or cannot be reached
+     */
+    public Searcher.DGPath<Junction> earliestArrivalPath(String startId, String targetId, double departureTime) {
+        Heuristic<Junction> heuristic = networkBounds().earliestArrivalHeuristic;
+        try (SearchWorkspace workspace = SearchWorkspace.acquire()) {
+            return Searcher.timeDependentShortestPath(this, startId, targetId,
+                    Road.TIME_DEPENDENT_TRAVEL_TIME, departureTime, heuristic, workspace);
+        }
+    }
+
+    /**
+     * road lengths and speeds can be changed in place, which invalidates precomputed weight columns
+     */
+    @Override
+    protected long getWeightVersion() {
+        return versions.getWeightVersion();
+    }
+
+    /**
+     * @return a counter which increases whenever the length of any road in this road map decreases
+     * or its maximum speed increases, i.e. whenever any path may have become shorter or faster
+     */
+    public long getDecreaseVersion() {
+        return versions.getDecreaseVersion();
+    }
+
+    /**
+     * adds the road segment to this road map, which then tracks the changes of its length and maximum speed
+     */
+    @Override
+    public boolean addEdge(Junction fromVertex, Junction toVertex, Road newEdge) {
+        if (!super.addEdge(fromVertex, toVertex, newEdge)) return false;
+        newEdge.joinNetwork(versions);
+        return true;
+    }
+
+    /**
+     * copies all roads into an immutable snapshot of the road network, which keeps its own weight version:
+     * changes of the roads of this road map do not affect the copies or their weight columns and vice versa
+     *
+     * @return the snapshot with copied roads
+     */
+    public CsrGraph<Junction, Road> copyRoads() {
+        Road.Versions copyVersions = new Road.Versions();
+        return freeze().mapEdges(road -> new Road(road, copyVersions), copyVersions::getWeightVersion);
+    }
+
+    /**
+     * creates a thread-safe live mode of this road map, which serves consistent immutable versions
+     * to concurrent searches while batches of road changes are being published
+     *
+     * @return the live road map
+     */
+    public LiveRoadMap live() {
+        return new LiveRoadMap(this);
+    }
+
     /**
      * produces an .svg file in the target classpath folder, which depicts the roadMap and the optional path
      * .svg files can be viewed with a regular browser
@@ -152,6 +505,18 @@ public class RoadMap extends DirectedGraph<Junction, Road> {
      * @param path         optional search path with visited vertices to be coloured into the map
      */
     public void svgDrawMap(String resourceName, Searcher.DGPath<Junction> path) {
+        svgDrawMap(resourceName, path, null);
+    }
+
+    /**
+     * produces an .svg file in the target classpath folder, which depicts the roadMap, the optional path
+     * and an optional area of junctions, e.g. an isochrone
+     *
+     * @param resourceName name of the file to be generated
+     * @param path         optional search path with visited vertices to be coloured into the map
+     * @param area         optional junctions to be coloured into the map
+     */
+    public void svgDrawMap(String resourceName, Searcher.DGPath<Junction> path, Collection<Junction> area) {
         try {
             //Path resources = Paths.get(this.getClass().getResource("/").getPath());
             //String svgPath = resources.toAbsolutePath() + "/" + resourceName;
@@ -183,7 +548,8 @@ public class RoadMap extends DirectedGraph<Junction, Road> {
             // on top of that, draw all junctions with a colour depending on their status in the optional path
             for (Junction junction : getVertices()) {
                 junction.svgDraw(svgWriter,
-                        path != null && path.getVisited().contains(junction) ? COLOR_VISITED_CITY : COLOR_OTHER);
+                        area != null && area.contains(junction) ? COLOR_AREA_CITY :
+                                path != null && path.getVisited().contains(junction) ? COLOR_VISITED_CITY : COLOR_OTHER);
             }
 
             svgWriter.println("</svg>");
@@ -198,13 +564,12 @@ public class RoadMap extends DirectedGraph<Junction, Road> {
      * @param svgWriter
      */
     private void svgDrawRoads(PrintStream svgWriter, Junction from) {
-        for (Junction neighbour : getNeighbours(from)) {
-            Road road = getEdge(from, neighbour);
+        forEachOutEdge(from, (neighbour, road) -> {
             String colour = (road.getMaxSpeed() >= 100 ? COLOR_HIGHWAY :
                     road.getMaxSpeed() >= 80 ? COLOR_DISTRICT_ROAD : COLOR_CITY_ROAD);
             double width = 0.2 + road.getMaxSpeed() * 0.008;
             neighbour.svgDrawRoad(svgWriter, from, width, colour);
-        }
+        });
     }
 
     @Override
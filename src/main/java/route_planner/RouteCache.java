@@ -0,0 +1,262 @@
+package route_planner;
+
+import graphs.Metric;
+import graphs.Searcher;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Bounded cache of shortest path results on a road map, keyed by (from, to, metric).
+ * The least recently used route is evicted when the cache is full.
+ * <p>
+ * A cached route is validated upon every hit, by either of two policies:
+ * GRAPH_VERSION discards all routes upon any change of the road map.
+ * CHANGED_ROADS only discards a route if one of its own roads has changed,
+ * or if some road anywhere has become shorter or faster (which may give a better path),
+ * or if junctions or roads have been added or removed.
+ * Changes that only slow down roads off a cached route therefore leave it in the cache.
+ * <p>
+ * All methods are thread-safe; the searches of misses run outside the lock.
+ * Cached paths are shared between callers and shall not be modified;
+ * their visited sets are completed before they are cached, such that they can be read concurrently.
+ */
+public class RouteCache {
+
+    /**
+     * the policy by which cached routes are invalidated
+     */
+    public enum Invalidation {
+        GRAPH_VERSION,
+        CHANGED_ROADS
+    }
+
+    // the identification of a route request
+    private static class Key {
+        private final String fromId;
+        private final String toId;
+        private final String metric;
+
+        private Key(String fromId, String toId, String metric) {
+            this.fromId = fromId;
+            this.toId = toId;
+            this.metric = metric;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return fromId.equals(key.fromId) && toId.equals(key.toId) && metric.equals(key.metric);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(fromId, toId, metric);
+        }
+    }
+
+    // a cached route together with the versions of the road map it has been found on
+    private static class Entry {
+        private final Searcher.DGPath<Junction> path;      // null if there is no route
+        private final long graphVersion;
+        private final long structureVersion;
+        private final long decreaseVersion;
+        private final Road[] roads;                         // the roads along the path
+        private final long[] roadVersions;
+
+        private Entry(Searcher.DGPath<Junction> path, long graphVersion, long structureVersion,
+                      long decreaseVersion, Road[] roads, long[] roadVersions) {
+            this.path = path;
+            this.graphVersion = graphVersion;
+            this.structureVersion = structureVersion;
+            this.decreaseVersion = decreaseVersion;
+            this.roads = roads;
+            this.roadVersions = roadVersions;
+        }
+    }
+
+    /**
+     * counters of the cache since its creation
+     */
+    public static class Stats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long invalidations;
+
+        private Stats(long hits, long misses, long evictions, long invalidations) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.invalidations = invalidations;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        /**
+         * @return the number of requests that required a search, including those of invalidated routes
+         */
+        public long getMisses() {
+            return misses;
+        }
+
+        /**
+         * @return the number of routes that have been discarded because the cache was full
+         */
+        public long getEvictions() {
+            return evictions;
+        }
+
+        /**
+         * @return the number of routes that have been discarded because the road map had changed
+         */
+        public long getInvalidations() {
+            return invalidations;
+        }
+
+        public double getHitRate() {
+            return hits + misses == 0 ? 0.0 : (double) hits / (hits + misses);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("hits=%d misses=%d evictions=%d invalidations=%d hit-rate=%.3f",
+                    hits, misses, evictions, invalidations, getHitRate());
+        }
+    }
+
+    private final RoadMap roadMap;
+    private final int capacity;
+    private final Invalidation invalidation;
+    private final Map<Key, Entry> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    /**
+     * @param roadMap      the road map to be searched
+     * @param capacity     the maximum number of cached routes
+     * @param invalidation the policy by which cached routes are invalidated upon changes of the road map
+     */
+    public RouteCache(RoadMap roadMap, int capacity, Invalidation invalidation) {
+        if (capacity < 1) throw new IllegalArgumentException("The capacity of a cache should be positive");
+        this.roadMap = roadMap;
+        this.capacity = capacity;
+        this.invalidation = invalidation;
+        // an access-ordered map keeps the least recently used route first
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() <= RouteCache.this.capacity) return false;
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    /**
+     * provides the shortest path from the cache, or searches it by dijkstra's algorithm upon a miss
+     *
+     * @param fromId id of the start junction
+     * @param toId   id of the target junction
+     * @param metric the weight of the road segments
+     * @return the shortest path from start to target,
+     * or null if either junction is unknown or no path can be found
+     */
+    public Searcher.DGPath<Junction> shortestPath(String fromId, String toId, Metric<Road> metric) {
+        Key key = new Key(fromId, toId, metric.getName());
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (isValid(entry)) {
+                    hits++;
+                    return entry.path;
+                }
+                entries.remove(key);
+                invalidations++;
+            }
+            misses++;
+        }
+
+        long graphVersion = roadMap.getVersion();
+        long structureVersion = roadMap.getStructureVersion();
+        long decreaseVersion = roadMap.getDecreaseVersion();
+        Searcher.DGPath<Junction> path = Searcher.dijkstraShortestPath(roadMap, fromId, toId, metric);
+        // the visited set is filled lazily, which shall be done before the path is shared between threads
+        if (path != null) path.getVisited();
+
+        Entry entry = invalidation == Invalidation.CHANGED_ROADS ?
+                entryWithRoads(path, graphVersion, structureVersion, decreaseVersion) :
+                new Entry(path, graphVersion, structureVersion, decreaseVersion, null, null);
+
+        // a result that may have seen changes during the search or while reading the versions of its roads
+        // is not cached, otherwise a stale route could be registered with the versions of its changed roads
+        if (graphVersion != roadMap.getVersion()) return path;
+        synchronized (this) {
+            entries.put(key, entry);
+        }
+        return path;
+    }
+
+    // registers the roads along the path with their current versions
+    private Entry entryWithRoads(Searcher.DGPath<Junction> path,
+                                 long graphVersion, long structureVersion, long decreaseVersion) {
+        int numRoads = path == null ? 0 : Math.max(0, path.getVertices().size() - 1);
+        Road[] roads = new Road[numRoads];
+        long[] roadVersions = new long[numRoads];
+        if (path != null) {
+            Junction from = null;
+            int r = 0;
+            for (Junction junction : path.getVertices()) {
+                if (from != null) {
+                    roads[r] = roadMap.getEdge(from, junction);
+                    roadVersions[r] = roads[r].getVersion();
+                    r++;
+                }
+                from = junction;
+            }
+        }
+        return new Entry(path, graphVersion, structureVersion, decreaseVersion, roads, roadVersions);
+    }
+
+    private boolean isValid(Entry entry) {
+        if (invalidation == Invalidation.GRAPH_VERSION) {
+            return entry.graphVersion == roadMap.getVersion();
+        }
+        if (entry.structureVersion != roadMap.getStructureVersion() ||
+                entry.decreaseVersion != roadMap.getDecreaseVersion()) {
+            return false;
+        }
+        for (int r = 0; r < entry.roads.length; r++) {
+            if (entry.roads[r].getVersion() != entry.roadVersions[r]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of cached routes
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * discards all cached routes, the statistics are kept
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * @return a snapshot of the counters of the cache
+     */
+    public synchronized Stats getStats() {
+        return new Stats(hits, misses, evictions, invalidations);
+    }
+}
@@ -1,9 +1,14 @@
 package route_planner;
 
+import graphs.ContractionHierarchy;
+import graphs.CsrGraph;
+import graphs.DynamicShortestPathTree;
+import graphs.OverlayGraph;
 import graphs.Searcher;
 import graphs.Sorter;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 
 /**
@@ -32,6 +37,8 @@ public class RoutePlannerMain {
 
         RoadMap roadMap = loadFullMapDemo();
         simulateAccidentDemo(roadMap);
+        repairDepotTreesDemo(roadMap);
+        batchRerouteDemo(roadMap);
         analyzeRoadNetwork(roadMap);
         runSortingDemo(roadMap);
 
@@ -72,17 +79,67 @@ public class RoutePlannerMain {
 
     /**
      * Simulates an accident between Diemen and Weesp and finds alternative routes.
+     * The accident is modelled as a what-if scenario, which leaves the shared road map untouched.
      */
     private static void simulateAccidentDemo(RoadMap roadMap) {
         System.out.println("\n⚠️ Accident detected between Diemen and Weesp...");
-        roadMap.getEdge("Diemen", "Weesp").setMaxSpeed(5);
+        OverlayGraph<Junction, Road> accident = roadMap.overlay()
+                .withEdgeWeight("Diemen", "Weesp", r -> new Road(r.getName(), r.getLength(), 5));
 
         Searcher.DGPath<Junction> path =
-                Searcher.dijkstraShortestPath(roadMap, FROM_ID, TO_ID,
-                        r -> r.getLength() / r.getMaxSpeed());
+                Searcher.dijkstraShortestPath(accident, FROM_ID, TO_ID, Road.TRAVEL_TIME);
 
         System.out.println("➡️ Fastest alternative route avoiding accident: " + path);
         roadMap.svgDrawMap(String.format("DSPACC-%s-%s.svg", FROM_ID, TO_ID), path);
+
+        List<Searcher.DGPath<Junction>> alternatives =
+                Searcher.kShortestPaths(accident, FROM_ID, TO_ID, 3, Road.TRAVEL_TIME);
+        for (int i = 1; i < alternatives.size(); i++) {
+            System.out.println("➡️ Alternative route " + i + ": " + alternatives.get(i));
+        }
+    }
+
+    /**
+     * Keeps the fastest routes from a few depots up to date while the accident between Diemen and Weesp
+     * slows down traffic, by repairing their shortest path trees instead of recomputing them.
+     * The trees are kept on a copy of the roads, which leaves the shared road map untouched.
+     */
+    private static void repairDepotTreesDemo(RoadMap roadMap) {
+        System.out.println("\n🚚 Repairing the routes from the depots after the accident...");
+        CsrGraph<Junction, Road> roads = roadMap.copyRoads();
+        List<DynamicShortestPathTree<Junction, Road>> depots = new ArrayList<>();
+        for (String depotId : new String[]{FROM_ID, TO_ID, "Utrecht", "Zwolle"}) {
+            DynamicShortestPathTree<Junction, Road> tree = DynamicShortestPathTree.of(roads, depotId, Road.TRAVEL_TIME);
+            if (tree != null) depots.add(tree);
+        }
+
+        roads.getEdge("Diemen", "Weesp").setMaxSpeed(5);
+        roads.getEdge("Weesp", "Diemen").setMaxSpeed(5);
+        for (DynamicShortestPathTree<Junction, Road> tree : depots) {
+            int repaired = tree.updateEdge("Diemen", "Weesp") + tree.updateEdge("Weesp", "Diemen");
+            System.out.printf("➡️ Depot %s: repaired %d of %d routes%n",
+                    tree.getRoot().getId(), repaired, tree.getNumReached());
+        }
+    }
+
+    /**
+     * Re-routes the fastest trips from the demo start towards all junctions concurrently.
+     */
+    private static void batchRerouteDemo(RoadMap roadMap) {
+        System.out.println("\n🔁 Re-routing all trips from " + FROM_ID + " in parallel...");
+        List<RouteQueryExecutor.RouteQuery> queries = new ArrayList<>();
+        for (Junction junction : roadMap.getVertices()) {
+            queries.add(new RouteQueryExecutor.RouteQuery(FROM_ID, junction.getId(), Road.TRAVEL_TIME));
+        }
+
+        long started = System.nanoTime();
+        AtomicInteger numRoutes = new AtomicInteger();
+        try (RouteQueryExecutor executor = new RouteQueryExecutor(roadMap)) {
+            executor.forEachCompleted(queries, (query, path) -> {
+                if (path != null) numRoutes.incrementAndGet();
+            }).join();
+        }
+        System.out.printf("➡️ Found %d routes in %d ms%n", numRoutes.get(), (System.nanoTime() - started) / 1_000_000);
     }
 
     /**
@@ -124,14 +181,46 @@ public class RoutePlannerMain {
         roadMap.svgDrawMap(String.format("BFS-%s-%s.svg", fromId, toId), path);
 
         // Dijkstra shortest by distance
-        path = Searcher.dijkstraShortestPath(roadMap, fromId, toId, Road::getLength);
+        path = Searcher.dijkstraShortestPath(roadMap, fromId, toId, Road.DISTANCE);
         System.out.println("Dijkstra-Shortest-Path (distance): " + path);
         roadMap.svgDrawMap(String.format("DSP-%s-%s.svg", fromId, toId), path);
 
         // Dijkstra fastest by travel time
-        path = Searcher.dijkstraShortestPath(roadMap, fromId, toId, r -> r.getLength() / r.getMaxSpeed());
+        path = Searcher.dijkstraShortestPath(roadMap, fromId, toId, Road.TRAVEL_TIME);
         System.out.println("Dijkstra-Fastest-Route (time): " + path);
         roadMap.svgDrawMap(String.format("DFR-%s-%s.svg", fromId, toId), path);
+
+        // A* shortest by distance, guided by the straight-line distance
+        path = Searcher.aStarShortestPath(roadMap, fromId, toId, Road.DISTANCE, roadMap.distanceHeuristic());
+        System.out.println("A*-Shortest-Path (distance): " + path);
+        roadMap.svgDrawMap(String.format("ASP-%s-%s.svg", fromId, toId), path);
+
+        // A* fastest by travel time, guided by the straight-line distance at the maximum speed
+        path = Searcher.aStarShortestPath(roadMap, fromId, toId, Road.TRAVEL_TIME, roadMap.travelTimeHeuristic());
+        System.out.println("A*-Fastest-Route (time): " + path);
+        roadMap.svgDrawMap(String.format("AFR-%s-%s.svg", fromId, toId), path);
+
+        // ALT fastest by travel time, guided by the most populated junctions as landmarks
+        path = Searcher.altShortestPath(roadMap, fromId, toId, Road.TRAVEL_TIME,
+                roadMap.populationLandmarks(8, Road.TRAVEL_TIME));
+        System.out.println("ALT-Fastest-Route (time): " + path);
+        roadMap.svgDrawMap(String.format("ALTFR-%s-%s.svg", fromId, toId), path);
+
+        // bidirectional dijkstra fastest by travel time
+        path = Searcher.bidirectionalDijkstra(roadMap, fromId, toId, Road.TRAVEL_TIME);
+        System.out.println("Bidirectional-Dijkstra-Fastest-Route (time): " + path);
+        roadMap.svgDrawMap(String.format("BDFR-%s-%s.svg", fromId, toId), path);
+
+        // contraction hierarchy fastest by travel time
+        ContractionHierarchy<Junction, Road> hierarchy = ContractionHierarchy.build(roadMap, Road.TRAVEL_TIME);
+        path = hierarchy.shortestPath(fromId, toId);
+        System.out.println("Contraction-Hierarchy-Fastest-Route (time): " + path);
+        roadMap.svgDrawMap(String.format("CHFR-%s-%s.svg", fromId, toId), path);
+
+        // all junctions within half an hour of travel time from the start
+        Set<Junction> isochrone = roadMap.isochrone(fromId, 0.5);
+        System.out.println("Junctions within 30 minutes from " + fromId + ": " + isochrone.size());
+        roadMap.svgDrawMap(String.format("ISO30-%s.svg", fromId), null, isochrone);
     }
 
     private static void runSortingDemo(RoadMap roadMap) {
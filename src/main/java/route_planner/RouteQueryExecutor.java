@@ -0,0 +1,222 @@
+package route_planner;
+
+import graphs.CsrGraph;
+import graphs.Metric;
+import graphs.SearchOptions;
+import graphs.Searcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Runs batches of route searches concurrently on a bounded pool of worker threads.
+ * <p>
+ * All queries search the same immutable snapshot of a road map, which is taken upon construction,
+ * such that the road map itself may be changed meanwhile without affecting running batches.
+ * Every worker thread keeps its own search workspaces, so throughput scales with the number of workers.
+ * <p>
+ * Submission applies back-pressure: at most maxInFlight queries are queued or running at a time,
+ * and submitting another query blocks until one of them completes.
+ * This bounds the memory of a batch that is streamed in faster than it can be searched.
+ */
+public class RouteQueryExecutor implements AutoCloseable {
+
+    private final CsrGraph<Junction, Road> snapshot;
+    private final ForkJoinPool pool;
+    private final Semaphore inFlight;
+    private final int maxInFlight;
+
+    /**
+     * creates an executor with a worker per available processor
+     *
+     * @param roadMap
+     */
+    public RouteQueryExecutor(RoadMap roadMap) {
+        this(roadMap, Runtime.getRuntime().availableProcessors(), 4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param roadMap     the road map to be searched; its roads are copied into the snapshot
+     * @param parallelism the number of worker threads
+     * @param maxInFlight the maximum number of queries that are queued or running at a time
+     */
+    public RouteQueryExecutor(RoadMap roadMap, int parallelism, int maxInFlight) {
+        if (parallelism < 1 || maxInFlight < 1) {
+            throw new IllegalArgumentException("Parallelism and maximum number of queries in flight should be positive");
+        }
+        this.snapshot = roadMap.copyRoads();
+        this.pool = new ForkJoinPool(parallelism);
+        this.inFlight = new Semaphore(maxInFlight);
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * a request for the shortest path between two junctions by a metric
+     */
+    public static class RouteQuery {
+        private final String fromId;
+        private final String toId;
+        private final Metric<Road> metric;
+
+        public RouteQuery(String fromId, String toId, Metric<Road> metric) {
+            this.fromId = fromId;
+            this.toId = toId;
+            this.metric = metric;
+        }
+
+        public String getFromId() {
+            return fromId;
+        }
+
+        public String getToId() {
+            return toId;
+        }
+
+        public Metric<Road> getMetric() {
+            return metric;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s -> %s (%s)", fromId, toId, metric);
+        }
+    }
+
+    /**
+     * submits a single query, blocking while the maximum number of queries is in flight
+     *
+     * @param query
+     * @return the future shortest path, which completes with null if either junction is unknown
+     * or no path exists; the future fails if the submitting thread has been interrupted while blocked
+     */
+    public CompletableFuture<Searcher.DGPath<Junction>> submit(RouteQuery query) {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+        try {
+            return CompletableFuture
+                    .supplyAsync(() -> Searcher.dijkstraShortestPath(
+                            snapshot, query.getFromId(), query.getToId(), query.getMetric()), pool)
+                    .whenComplete((path, failure) -> inFlight.release());
+        } catch (RuntimeException e) {
+            // the pool has rejected the query
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    /**
+     * submits a single query that is searched within the limits of the options,
+     * blocking while the maximum number of queries is in flight.
+     * The search also stops as soon as the returned future is completed otherwise,
+     * e.g. by cancel() or by orTimeout() of the caller, and then releases its worker early.
+     *
+     * @param query
+     * @param options the limits of the search, e.g. a deadline of the request; null for none
+     * @return the future shortest path or partial result, see Searcher.boundedShortestPath;
+     * it completes with null if either junction is unknown
+     */
+    public CompletableFuture<Searcher.DGPath<Junction>> submit(RouteQuery query, SearchOptions options) {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<Searcher.DGPath<Junction>> result = new CompletableFuture<>();
+        SearchOptions cancellable = (options != null ? options : SearchOptions.UNBOUNDED).withCancellation(result::isDone);
+        try {
+            pool.execute(() -> {
+                // the permit is released once the worker has finished, also after a cancellation,
+                // and before the result is passed on
+                Searcher.DGPath<Junction> path = null;
+                RuntimeException failure = null;
+                try {
+                    if (!result.isDone()) path = Searcher.boundedShortestPath(
+                            snapshot, query.getFromId(), query.getToId(), query.getMetric(), null, cancellable);
+                } catch (RuntimeException e) {
+                    failure = e;
+                } finally {
+                    inFlight.release();
+                }
+                if (failure != null) {
+                    result.completeExceptionally(failure);
+                } else {
+                    result.complete(path);
+                }
+            });
+        } catch (RuntimeException e) {
+            // the pool has rejected the query
+            inFlight.release();
+            throw e;
+        }
+        return result;
+    }
+
+    /**
+     * submits all queries of a batch or stream
+     *
+     * @param queries
+     * @return the future shortest paths in the order of the queries
+     */
+    public List<CompletableFuture<Searcher.DGPath<Junction>>> submitAll(Iterable<RouteQuery> queries) {
+        List<CompletableFuture<Searcher.DGPath<Junction>>> futures = new ArrayList<>();
+        for (RouteQuery query : queries) {
+            futures.add(submit(query));
+        }
+        return futures;
+    }
+
+    /**
+     * submits all queries of a batch or stream and passes every result on as soon as it has been found
+     *
+     * @param queries
+     * @param consumer receives each query with its shortest path in order of completion, on a worker thread;
+     *                 it shall be thread-safe
+     * @return a future that completes after all results have been consumed
+     */
+    public CompletableFuture<Void> forEachCompleted(Iterable<RouteQuery> queries,
+                                                    BiConsumer<? super RouteQuery, ? super Searcher.DGPath<Junction>> consumer) {
+        List<CompletableFuture<Void>> consumed = new ArrayList<>();
+        for (RouteQuery query : queries) {
+            consumed.add(submit(query).thenAccept(path -> consumer.accept(query, path)));
+        }
+        return CompletableFuture.allOf(consumed.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * @return the number of submitted queries that are queued or running
+     */
+    public int getNumInFlight() {
+        return maxInFlight - inFlight.availablePermits();
+    }
+
+    /**
+     * @return the immutable version of the road map that is searched by all queries
+     */
+    public CsrGraph<Junction, Road> getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * completes all submitted queries and releases the worker threads
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+        try {
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
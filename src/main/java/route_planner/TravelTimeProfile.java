@@ -0,0 +1,169 @@
+package route_planner;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Piecewise-linear daily profile of the travel time along a road segment, relative to its free-flow travel time
+ * at the maximum speed. A factor of 1.5 at 8:00 means that driving takes 50% longer when entering the road at 8:00.
+ * The profile repeats every 24 hours; between its breakpoints the factor is interpolated linearly,
+ * also from the last breakpoint of a day towards the first breakpoint of the next day.
+ * <p>
+ * Profiles are immutable and interned: of() provides the same instance for the same breakpoints,
+ * such that all roads with the same profile share a single pair of primitive breakpoint arrays.
+ * factorAt() uses a binary search over these arrays and does not allocate.
+ * <p>
+ * For the time-dependent searches to find the earliest arrival, the factor shall not fall faster
+ * than 1 / (free-flow travel time) per hour along any road (FIFO); realistic profiles satisfy this easily.
+ */
+public final class TravelTimeProfile {
+
+    public static final double HOURS_PER_DAY = 24.0;
+
+    private static final Map<TravelTimeProfile, TravelTimeProfile> INTERNED = new ConcurrentHashMap<>();
+
+    /**
+     * the profile without congestion, at which travel times equal the free-flow travel times at any time of day
+     */
+    public static final TravelTimeProfile FREE_FLOW = of(new double[]{0.0}, new double[]{1.0});
+
+    private final double[] hours;
+    private final double[] factors;
+    private final double minFactor;
+
+    /**
+     * representation invariants:
+     * 1.  hours and factors have the same length of at least 1
+     * 2.  hours is strictly ascending within [0, 24)
+     * 3.  factors[i] > 0 is the travel time factor at hours[i] of every day
+     **/
+
+    private TravelTimeProfile(double[] hours, double[] factors) {
+        this.hours = hours;
+        this.factors = factors;
+        double min = Double.MAX_VALUE;
+        for (double factor : factors) min = Math.min(min, factor);
+        this.minFactor = min;
+    }
+
+    /**
+     * provides the shared profile with the given breakpoints
+     *
+     * @param hours   the times of day of the breakpoints, strictly ascending within [0, 24)
+     * @param factors the positive travel time factors at the breakpoints
+     * @return the interned profile
+     * @throws IllegalArgumentException if the breakpoints are invalid
+     */
+    public static TravelTimeProfile of(double[] hours, double[] factors) {
+        if (hours.length == 0 || hours.length != factors.length) {
+            throw new IllegalArgumentException("A profile needs an equal number of hours and factors, at least one");
+        }
+        for (int i = 0; i < hours.length; i++) {
+            if (!(hours[i] >= 0.0 && hours[i] < HOURS_PER_DAY) || (i > 0 && hours[i] <= hours[i - 1])) {
+                throw new IllegalArgumentException("The hours of a profile should ascend within [0, 24)");
+            }
+            if (!(factors[i] > 0.0)) {
+                throw new IllegalArgumentException("The factors of a profile should be positive");
+            }
+        }
+        TravelTimeProfile profile = new TravelTimeProfile(hours.clone(), factors.clone());
+        TravelTimeProfile interned = INTERNED.putIfAbsent(profile, profile);
+        return interned != null ? interned : profile;
+    }
+
+    /**
+     * a typical commuter profile with a morning peak around 8:00 and an evening peak around 17:00
+     *
+     * @param peakFactor the travel time factor at the height of the peaks
+     * @return the interned profile
+     */
+    public static TravelTimeProfile rushHours(double peakFactor) {
+        return of(new double[]{6.0, 8.0, 10.0, 15.5, 17.0, 19.0},
+                new double[]{1.0, peakFactor, 1.0, 1.0, peakFactor, 1.0});
+    }
+
+    /**
+     * @param time the time in hours, since midnight of the first day
+     * @return the travel time factor at the given time
+     */
+    public double factorAt(double time) {
+        int n = hours.length;
+        if (n == 1) return factors[0];
+        double hour = time % HOURS_PER_DAY;
+        if (hour < 0.0) hour += HOURS_PER_DAY;
+
+        int i = Arrays.binarySearch(hours, hour);
+        if (i >= 0) return factors[i];
+        int next = -i - 1;
+        int previous = next - 1;
+        double previousHour;
+        double nextHour;
+        if (previous < 0) {
+            // before the first breakpoint of the day: interpolate from the last breakpoint of the day before
+            previous = n - 1;
+            previousHour = hours[previous] - HOURS_PER_DAY;
+            nextHour = hours[next];
+        } else if (next == n) {
+            // after the last breakpoint of the day: interpolate towards the first breakpoint of the next day
+            next = 0;
+            previousHour = hours[previous];
+            nextHour = hours[next] + HOURS_PER_DAY;
+        } else {
+            previousHour = hours[previous];
+            nextHour = hours[next];
+        }
+        double fraction = (hour - previousHour) / (nextHour - previousHour);
+        return factors[previous] + fraction * (factors[next] - factors[previous]);
+    }
+
+    /**
+     * @return the smallest travel time factor of the day, which scales lower bounds of travel times
+     */
+    public double getMinFactor() {
+        return minFactor;
+    }
+
+    public int getNumBreakpoints() {
+        return hours.length;
+    }
+
+    /**
+     * @param i the index of a breakpoint, 0 .. getNumBreakpoints()-1
+     * @return the time of day of the breakpoint in hours
+     */
+    public double getHour(int i) {
+        return hours[i];
+    }
+
+    /**
+     * @param i the index of a breakpoint, 0 .. getNumBreakpoints()-1
+     * @return the travel time factor at the breakpoint
+     */
+    public double getFactor(int i) {
+        return factors[i];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TravelTimeProfile)) return false;
+        TravelTimeProfile other = (TravelTimeProfile) o;
+        return Arrays.equals(hours, other.hours) && Arrays.equals(factors, other.factors);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(hours) + Arrays.hashCode(factors);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("Profile(");
+        for (int i = 0; i < hours.length; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(String.format("%.2fh=%.2f", hours[i], factors[i]));
+        }
+        return sb.append(")").toString();
+    }
+}
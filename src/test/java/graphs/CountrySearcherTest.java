@@ -4,7 +4,19 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -54,6 +66,45 @@ public class CountrySearcherTest {
         assertTrue(path.getVisited().size() >= path.getVertices().size());
     }
 
+    @Test
+    void checkDFSearchFindsConnectedPath() {
+        for (Country from : europe.getVertices()) {
+            for (Country to : europe.getVertices()) {
+                Searcher.DGPath<Country> expected = Searcher.breadthFirstSearch(europe, from.getId(), to.getId());
+                Searcher.DGPath<Country> path = Searcher.depthFirstSearch(europe, from.getId(), to.getId());
+                Searcher.DGPath<Country> compact = Searcher.compactDepthFirstSearch(europe, from.getId(), to.getId());
+                if (expected == null) {
+                    assertNull(path);
+                    assertNull(compact);
+                    continue;
+                }
+                assertEquals(path.toString().replaceAll("visited=\\d+", ""), compact.toString().replaceAll("visited=\\d+", ""));
+                assertSame(from, path.getVertices().get(0));
+                assertSame(to, path.getVertices().get(path.getVertices().size() - 1));
+                for (int i = 1; i < path.getVertices().size(); i++) {
+                    assertNotNull(europe.getEdge(path.getVertices().get(i - 1), path.getVertices().get(i)));
+                }
+            }
+        }
+    }
+
+    @Test
+    void checkDFSearchOnLongChain() {
+        // a chain of a million vertices would overflow the call stack of a recursive search
+        int n = 1_000_000;
+        int[] none = new int[0];
+        CsrGraph<Country, Integer> chain = syntheticGraph(n, i -> i < n - 1 ? new int[]{i + 1} : none,
+                () -> 1, Integer[]::new);
+
+        Searcher.DGPath<Country> path = Searcher.depthFirstSearch(chain, "C0", "C" + (n - 1));
+        assertNotNull(path);
+        assertEquals(n, path.getVertices().size());
+        path = Searcher.compactDepthFirstSearch(chain, "C0", "C" + (n - 1));
+        assertNotNull(path);
+        assertEquals(n, path.getVertices().size());
+        assertNull(Searcher.compactDepthFirstSearch(chain, "C1", "C0"));
+    }
+
     @Test
     void checkDFSearchStartIsTarget() {
         Searcher.DGPath<Country> path = Searcher.depthFirstSearch(europe, "HU", "HU");
@@ -120,4 +171,445 @@ public class CountrySearcherTest {
         Searcher.DGPath<Country> path = Searcher.dijkstraShortestPath(europe, "UK", "HU", b -> 2.0);
         assertNull(path);
     }
+
+    @Test
+    void checkSearchesOnFrozenGraph() {
+        CsrGraph<Country, Integer> frozen = europe.freeze();
+
+        Searcher.DGPath<Country> path = Searcher.dijkstraShortestPath(frozen, "UK", "LUX", b -> 1.0 * b);
+        assertNotNull(path);
+        assertEquals(130.0, path.getTotalWeight(), 0.0001);
+        assertEquals(Searcher.dijkstraShortestPath(europe, "UK", "LUX", b -> 1.0 * b).getTotalWeight(),
+                path.getTotalWeight(), 0.0001);
+
+        assertEquals(3, Searcher.breadthFirstSearch(frozen, "UK", "LUX").getVertices().size());
+        assertNotNull(Searcher.depthFirstSearch(frozen, "UK", "LUX"));
+        assertNull(Searcher.dijkstraShortestPath(frozen, "UK", "HU", b -> 1.0 * b));
+    }
+
+    @Test
+    void checkDSPSearchWithMetric() {
+        Metric<Integer> length = Metric.of("length", b -> b);
+        Searcher.DGPath<Country> path = Searcher.dijkstraShortestPath(europe, "UK", "LUX", length);
+        assertNotNull(path);
+        assertEquals(130.0, path.getTotalWeight(), 0.0001);
+        assertEquals(Searcher.dijkstraShortestPath(europe, "UK", "LUX", b -> 1.0 * b).toString(), path.toString());
+        assertNull(Searcher.dijkstraShortestPath(europe, "UK", "HU", length));
+
+        // the column is cached by metric name, for every edge id
+        double[] column = europe.weightColumn(length);
+        assertSame(column, europe.weightColumn(Metric.of("length", b -> b)));
+        assertEquals(europe.getEdgeIdBound(), column.length);
+        europe.forEachOutEdge(europe.indexOf(nl), (to, edgeId, border) -> assertEquals(border.doubleValue(), column[edgeId]));
+    }
+
+    @Test
+    void checkAStarSearch() {
+        // without information A* behaves like dijkstra
+        Searcher.DGPath<Country> path = Searcher.aStarShortestPath(europe, "UK", "LUX", b -> b, (c, t) -> 0.0);
+        assertNotNull(path);
+        assertEquals(Searcher.dijkstraShortestPath(europe, "UK", "LUX", b -> 1.0 * b).toString(), path.toString());
+
+        // an exact heuristic only settles the vertices along the path
+        Searcher.DGPath<Country> guided = Searcher.aStarShortestPath(europe, "UK", "LUX", b -> b,
+                (c, t) -> Searcher.dijkstraShortestPath(europe, c.getId(), t.getId(), b -> 1.0 * b).getTotalWeight());
+        assertEquals(130.0, guided.getTotalWeight(), 0.0001);
+        assertEquals(guided.getVertices().size(), guided.getVisited().size());
+
+        assertNull(Searcher.aStarShortestPath(europe, "UK", "HU", b -> b, (c, t) -> 0.0));
+        assertNull(Searcher.aStarShortestPath(europe, "UK", "XX", b -> b, (c, t) -> 0.0));
+        assertEquals(1, Searcher.aStarShortestPath(europe, "HU", "HU", b -> b, (c, t) -> 0.0).getVertices().size());
+    }
+
+    @Test
+    void checkBidirectionalDijkstra() {
+        assertShortestPathsBetweenAllCountries((from, to) -> {
+            Searcher.DGPath<Country> path = Searcher.bidirectionalDijkstra(europe, from.getId(), to.getId(), b -> b);
+            if (path != null) assertTrue(path.getVisited().size() >= path.getVertices().size());
+            return path;
+        });
+        assertNull(Searcher.bidirectionalDijkstra(europe, "UK", "XX", b -> b));
+    }
+
+    @Test
+    void checkContractionHierarchy() {
+        ContractionHierarchy<Country, Integer> hierarchy = ContractionHierarchy.build(europe, b -> b);
+        assertShortestPathsBetweenAllCountries((from, to) -> hierarchy.shortestPath(from.getId(), to.getId()));
+        assertNull(hierarchy.shortestPath("UK", "XX"));
+    }
+
+    @Test
+    void checkALTSearch() {
+        Landmarks<Country, Integer> landmarks = Landmarks.farthest(europe, b -> b, 3);
+        assertEquals(3, landmarks.getLandmarks().size());
+        assertShortestPathsBetweenAllCountries((from, to) -> {
+            Searcher.DGPath<Country> path = Searcher.altShortestPath(europe, from.getId(), to.getId(), b -> b, landmarks);
+            if (path != null) assertTrue(landmarks.estimate(from, to) <= path.getTotalWeight());
+            return path;
+        });
+        assertNull(Searcher.altShortestPath(europe, "UK", "XX", b -> b, landmarks));
+    }
+
+    @Test
+    void checkSearchesReuseWorkspace() {
+        SearchWorkspace workspace = new SearchWorkspace(2);
+        for (Country from : europe.getVertices()) {
+            for (Country to : europe.getVertices()) {
+                Searcher.DGPath<Country> expected = Searcher.dijkstraShortestPath(europe, from.getId(), to.getId(), b -> 1.0 * b);
+                Searcher.DGPath<Country> path = Searcher.dijkstraShortestPath(europe, from.getId(), to.getId(), b -> 1.0 * b, workspace);
+                assertEquals(String.valueOf(expected), String.valueOf(path));
+                assertEquals(String.valueOf(Searcher.breadthFirstSearch(europe, from.getId(), to.getId())),
+                        String.valueOf(Searcher.breadthFirstSearch(europe, from.getId(), to.getId(), workspace)));
+                assertEquals(String.valueOf(Searcher.bidirectionalDijkstra(europe, from.getId(), to.getId(), b -> b)),
+                        String.valueOf(Searcher.bidirectionalDijkstra(europe, from.getId(), to.getId(), b -> b, workspace)));
+            }
+        }
+        assertTrue(workspace.getCapacity() >= europe.getNumVertices());
+
+        // a workspace that is acquired while another one is in use is a different one
+        try (SearchWorkspace outer = SearchWorkspace.acquire()) {
+            try (SearchWorkspace inner = SearchWorkspace.acquire()) {
+                assertNotSame(outer, inner);
+            }
+        }
+    }
+
+    @Test
+    void checkDistanceMatrix() {
+        List<String> ids = europe.getVertices().stream().map(Country::getId).collect(Collectors.toList());
+        List<String> targets = List.of("LUX", "HU", "UK");
+        double[][] matrix = Searcher.distanceMatrix(europe, ids, targets, b -> b);
+        assertEquals(ids.size(), matrix.length);
+        for (int s = 0; s < ids.size(); s++) {
+            assertEquals(3, matrix[s].length);
+            for (int t = 0; t < 3; t++) {
+                Searcher.DGPath<Country> expected = Searcher.dijkstraShortestPath(europe, ids.get(s), targets.get(t), b -> 1.0 * b);
+                assertEquals(expected == null ? Double.POSITIVE_INFINITY : expected.getTotalWeight(), matrix[s][t], 0.0001);
+            }
+        }
+        assertNull(Searcher.distanceMatrix(europe, List.of("UK"), List.of("XX"), b -> b));
+    }
+
+    @Test
+    void checkDistanceMatrixWithoutTargets() {
+        List<String> ids = europe.getVertices().stream().map(Country::getId).collect(Collectors.toList());
+        AtomicInteger relaxations = new AtomicInteger();
+        double[][] matrix = Searcher.distanceMatrix(europe, ids, List.of(), b -> {
+            relaxations.incrementAndGet();
+            return b;
+        });
+        assertEquals(ids.size(), matrix.length);
+        for (double[] row : matrix) {
+            assertEquals(0, row.length);
+        }
+        assertEquals(0, relaxations.get(), "No search should run without targets");
+        assertEquals(0, Searcher.distanceMatrix(europe, List.of(), List.of(), b -> b).length);
+        assertNull(Searcher.distanceMatrix(europe, List.of("XX"), List.of(), b -> b));
+    }
+
+    @Test
+    void checkShortestPathTree() {
+        ShortestPathTree<Country> tree = Searcher.shortestPathTree(europe, "UK", b -> b, Double.MAX_VALUE);
+        assertEquals(europe.getVertexById("UK"), tree.getRoot());
+        assertNull(tree.getParent(tree.getRoot()));
+        for (Country country : europe.getVertices()) {
+            Searcher.DGPath<Country> expected = Searcher.dijkstraShortestPath(europe, "UK", country.getId(), b -> 1.0 * b);
+            if (expected == null) {
+                assertFalse(tree.contains(country));
+                assertEquals(Double.POSITIVE_INFINITY, tree.getWeight(country));
+                assertNull(tree.getPath(country));
+            } else {
+                assertEquals(expected.getTotalWeight(), tree.getWeight(country), 0.0001);
+                assertEquals(expected.getTotalWeight(), tree.getPath(country).getTotalWeight(), 0.0001);
+                SinglyLinkedList<Country> vertices = tree.getPath(country).getVertices();
+                assertEquals(country, vertices.get(vertices.size() - 1));
+            }
+        }
+        for (int i = 1; i < tree.size(); i++) {
+            assertTrue(tree.weightAt(i - 1) <= tree.weightAt(i));
+        }
+
+        double budget = tree.weightAt(tree.size() / 2);
+        ShortestPathTree<Country> bounded = Searcher.shortestPathTree(europe, "UK", b -> b, budget);
+        for (Country country : europe.getVertices()) {
+            assertEquals(tree.getWeight(country) <= budget, bounded.contains(country));
+        }
+        assertNull(Searcher.shortestPathTree(europe, "XX", b -> b, budget));
+    }
+
+    @Test
+    void checkKShortestPaths() {
+        // enumerate all loopless paths from UK to DE to compare with
+        List<Double> allWeights = new ArrayList<>();
+        collectPathWeights(uk, de, new HashSet<>(List.of(uk)), 0.0, allWeights);
+        Collections.sort(allWeights);
+
+        List<Searcher.DGPath<Country>> paths = Searcher.kShortestPaths(europe, "UK", "DE", 6, b -> b);
+        assertEquals(Math.min(6, allWeights.size()), paths.size());
+        Set<String> distinct = new HashSet<>();
+        for (int i = 0; i < paths.size(); i++) {
+            Searcher.DGPath<Country> path = paths.get(i);
+            assertEquals(allWeights.get(i), path.getTotalWeight(), 0.0001);
+            Set<Country> vertices = new HashSet<>();
+            double weight = 0.0;
+            Country from = null;
+            for (Country country : path.getVertices()) {
+                assertTrue(vertices.add(country), "A path should not contain loops: " + path);
+                if (from != null) weight += europe.getEdge(from, country);
+                from = country;
+            }
+            assertEquals(path.getTotalWeight(), weight, 0.0001);
+            assertEquals(uk, path.getVertices().get(0));
+            assertEquals(de, from);
+            assertTrue(distinct.add(path.toString()));
+        }
+        assertEquals(Searcher.dijkstraShortestPath(europe, "UK", "DE", b -> 1.0 * b).getTotalWeight(),
+                paths.get(0).getTotalWeight(), 0.0001);
+
+        assertEquals(allWeights.size(), Searcher.kShortestPaths(europe, "UK", "DE", 1000, b -> b).size());
+        assertTrue(Searcher.kShortestPaths(europe, "UK", "HU", 3, b -> b).isEmpty());
+        assertEquals(1, Searcher.kShortestPaths(europe, "UK", "UK", 3, b -> b).size());
+        assertNull(Searcher.kShortestPaths(europe, "UK", "XX", 3, b -> b));
+    }
+
+    @Test
+    void checkKShortestPathsOnRandomGraphs() {
+        // small random graphs with many equally weighted paths, such that later paths also deviate
+        // from their predecessors along the shortest path tree after a root of several vertices
+        Random random = new Random(2019);
+        for (int round = 0; round < 200; round++) {
+            int n = 7;
+            CsrGraph<Country, Integer> graph = syntheticGraph(n, randomNeighbours(random, n, 3),
+                    () -> 1 + random.nextInt(3), Integer[]::new);
+            List<Searcher.DGPath<Country>> paths = Searcher.kShortestPaths(graph, "C0", "C6", 8, b -> b);
+            double previousWeight = 0.0;
+            for (Searcher.DGPath<Country> path : paths) {
+                double weight = 0.0;
+                Country from = null;
+                for (Country country : path.getVertices()) {
+                    if (from != null) weight += graph.getEdge(from, country);
+                    from = country;
+                }
+                assertEquals(weight, path.getTotalWeight(), 0.0001, "Wrong weight of " + path);
+                assertTrue(previousWeight <= weight, "Paths should be ordered by weight: " + paths);
+                previousWeight = weight;
+            }
+        }
+    }
+
+    private void collectPathWeights(Country from,Country target, Set<Country> onPath, double weight, List<Double> weights) {
+        if (from.equals(target)) {
+            weights.add(weight);
+            return;
+        }
+        europe.getOutEdges(from).forEach((neighbour, distance) -> {
+            if (onPath.add(neighbour)) {
+                collectPathWeights(neighbour, target, onPath, weight + distance, weights);
+                onPath.remove(neighbour);
+            }
+        });
+    }
+
+    @Test
+    void checkDeltaSteppingShortestPathTree() {
+        ShortestPathTree<Country> expected = Searcher.shortestPathTree(europe, "UK", b -> b, Double.MAX_VALUE);
+        for (double delta : new double[]{1.0, 50.0, 1000.0}) {
+            ShortestPathTree<Country> tree = Searcher.deltaSteppingShortestPathTree(europe, "UK", b -> b,
+                    delta, ForkJoinPool.commonPool());
+            assertEquals(expected.size(), tree.size());
+            assertEquals(uk, tree.getRoot());
+            for (Country country : europe.getVertices()) {
+                assertEquals(expected.getWeight(country), tree.getWeight(country), 0.0001);
+            }
+        }
+        assertEquals(expected.size(), Searcher.deltaSteppingShortestPathTree(europe, "UK", b -> b).size());
+        assertNull(Searcher.deltaSteppingShortestPathTree(europe, "XX", b -> b));
+        assertThrows(IllegalArgumentException.class, () -> Searcher.deltaSteppingShortestPathTree(
+                europe, "UK", b -> b, 0.0, ForkJoinPool.commonPool()));
+    }
+
+    @Test
+    void checkDeltaSteppingOnRandomGraph() {
+        // a random graph with zero weight edges, large enough for the relaxations to be split into parallel tasks
+        int n = 20_000;
+        Random random = new Random(2022);
+        CsrGraph<Country, Integer> graph = syntheticGraph(n, randomNeighbours(random, n, 4),
+                () -> random.nextInt(10), Integer[]::new);
+
+        ShortestPathTree<Country> expected = Searcher.shortestPathTree(graph, "C0", b -> b, Double.MAX_VALUE);
+        ShortestPathTree<Country> tree = Searcher.deltaSteppingShortestPathTree(graph, "C0", b -> b);
+        assertEquals(expected.size(), tree.size());
+        for (int i = 0; i < tree.size(); i++) {
+            Country country = tree.vertexAt(i);
+            assertEquals(expected.getWeight(country), tree.weightAt(i));
+            if (i > 0) assertTrue(tree.weightAt(i - 1) <= tree.weightAt(i));
+        }
+        for (int i = 0; i < 100; i++) {
+            Country country = tree.vertexAt(random.nextInt(tree.size()));
+            SinglyLinkedList<Country> vertices = tree.getPath(country).getVertices();
+            double weight = 0.0;
+            for (int v = 1; v < vertices.size(); v++) {
+                weight += graph.getEdge(vertices.get(v - 1), vertices.get(v));
+            }
+            assertEquals(tree.getWeight(country), weight, 0.0001);
+        }
+    }
+
+    @Test
+    void checkDynamicShortestPathTree() {
+        DynamicShortestPathTree<Country, Integer> tree = DynamicShortestPathTree.of(europe, "UK", b -> b);
+        ShortestPathTree<Country> expected = Searcher.shortestPathTree(europe, "UK", b -> b, Double.MAX_VALUE);
+        assertEquals(uk, tree.getRoot());
+        assertEquals(expected.size(), tree.getNumReached());
+        for (Country country : europe.getVertices()) {
+            assertEquals(expected.getWeight(country), tree.getWeight(country), 0.0001);
+        }
+        assertEquals(Searcher.dijkstraShortestPath(europe, "UK", "DE", b -> 1.0 * b).toString().replaceAll("visited=\\d+", ""),
+                tree.getPath("DE").toString().replaceAll("visited=\\d+", ""));
+        assertNull(tree.getPath("HU"));
+        assertNull(tree.getPath("XX"));
+        assertNull(tree.getParent(uk));
+        assertEquals(Double.POSITIVE_INFINITY, tree.getWeight("RO"));
+        assertEquals(0, tree.updateEdge("XX", "DE"));
+        assertNull(DynamicShortestPathTree.of(europe, "XX", b -> b));
+    }
+
+    @Test
+    void checkDynamicShortestPathTreeOnRandomUpdates() {
+        // weights are held in mutable cells, such that they can be changed in place
+        int n = 2_000;
+        Random random = new Random(2023);
+        CsrGraph<Country, double[]> graph = syntheticGraph(n, randomNeighbours(random, n, 3),
+                () -> new double[]{random.nextInt(10)}, double[][]::new);
+        DynamicShortestPathTree<Country, double[]> tree = DynamicShortestPathTree.of(graph, "C0", b -> b[0]);
+
+        int repaired = 0;
+        for (int u = 0; u < 200; u++) {
+            Country from = graph.vertexAt(random.nextInt(n));
+            int[] neighbours = graph.getNeighbours(graph.indexOf(from));
+            Country to = graph.vertexAt(neighbours[random.nextInt(neighbours.length)]);
+            // mostly small changes in both directions, sometimes an effective closure
+            graph.getEdge(from, to)[0] = random.nextInt(10) == 0 ? 1000.0 : random.nextInt(10);
+            repaired += tree.updateEdge(from.getId(), to.getId());
+
+            ShortestPathTree<Country> expected = Searcher.shortestPathTree(graph, "C0", b -> b[0], Double.MAX_VALUE);
+            assertEquals(expected.size(), tree.getNumReached());
+            for (Country country : graph.getVertices()) {
+                assertEquals(expected.getWeight(country), tree.getWeight(country), 0.0001);
+                Country parent = tree.getParent(country);
+                if (parent != null) {
+                    assertEquals(tree.getWeight(country),
+                            tree.getWeight(parent) + graph.getEdge(parent, country)[0], 0.0001);
+                }
+            }
+        }
+        // repairs are local, far fewer than rebuilding the whole tree upon every update
+        assertTrue(repaired < 200 * n / 4, "repaired " + repaired);
+    }
+
+    @Test
+    void checkBoundedShortestPath() {
+        Searcher.DGPath<Country> unbounded = Searcher.boundedShortestPath(europe, "UK", "DE", b -> b, null,
+                SearchOptions.UNBOUNDED);
+        assertTrue(unbounded.isComplete());
+        assertEquals(SearchOptions.Termination.TARGET_REACHED, unbounded.getTermination());
+        assertEquals(100.0, unbounded.getTotalWeight());
+        assertEquals(Searcher.dijkstraShortestPath(europe, "UK", "DE", b -> 1.0 * b).toString(), unbounded.toString());
+        assertTrue(Searcher.boundedShortestPath(europe, "UK", "DE", b -> b, null,
+                SearchOptions.UNBOUNDED.withMaxCost(100.0)).isComplete());
+
+        Searcher.DGPath<Country> tooFar = Searcher.boundedShortestPath(europe, "UK", "DE", b -> b, null,
+                SearchOptions.UNBOUNDED.withMaxCost(80.0));
+        assertEquals(SearchOptions.Termination.MAX_COST, tooFar.getTermination());
+        assertFalse(tooFar.isComplete());
+        assertEquals(0, tooFar.getVertices().size());
+        assertTrue(tooFar.getTotalWeight() > 80.0 && tooFar.getTotalWeight() <= 100.0);
+        assertEquals(Set.of(uk, be), tooFar.getVisited());
+
+        Searcher.DGPath<Country> budget = Searcher.boundedShortestPath(europe, "UK", "DE", b -> b, (v, t) -> 0.0,
+                SearchOptions.UNBOUNDED.withMaxSettled(1));
+        assertEquals(SearchOptions.Termination.MAX_SETTLED, budget.getTermination());
+        assertEquals(Set.of(uk), budget.getVisited());
+
+        Searcher.DGPath<Country> disconnected = Searcher.boundedShortestPath(europe, "UK", "HU", b -> b, null,
+                SearchOptions.UNBOUNDED);
+        assertEquals(SearchOptions.Termination.EXHAUSTED, disconnected.getTermination());
+        assertEquals(Double.POSITIVE_INFINITY, disconnected.getTotalWeight());
+        assertEquals(6, disconnected.getVisited().size());
+
+        assertEquals(SearchOptions.Termination.DEADLINE, Searcher.boundedShortestPath(europe, "UK", "DE", b -> b, null,
+                SearchOptions.UNBOUNDED.withDeadline(System.nanoTime() - 1)).getTermination());
+        assertEquals(SearchOptions.Termination.CANCELLED, Searcher.boundedShortestPath(europe, "UK", "DE", b -> b, null,
+                SearchOptions.UNBOUNDED.withCancellation(() -> false).withCancellation(() -> true)).getTermination());
+        assertNull(Searcher.boundedShortestPath(europe, "UK", "XX", b -> b, null, SearchOptions.UNBOUNDED));
+        assertThrows(IllegalArgumentException.class, () -> SearchOptions.UNBOUNDED.withMaxCost(-1.0));
+        assertThrows(IllegalArgumentException.class, () -> SearchOptions.UNBOUNDED.withMaxSettled(0));
+    }
+
+    @Test
+    void checkBoundedSearchIsCancelledCooperatively() {
+        // a long path, cancelled after a fixed number of checks
+        DirectedGraph<Country, Integer> line = new DirectedGraph<>();
+        for (int i = 1; i < 10_000; i++) {
+            line.addEdge(new Country("L" + (i - 1)), new Country("L" + i), 1);
+        }
+        int[] checks = new int[1];
+        Searcher.DGPath<Country> path = Searcher.boundedShortestPath(line, "L0", "L9999", b -> b, null,
+                SearchOptions.UNBOUNDED.withCancellation(() -> ++checks[0] > 3));
+        assertEquals(SearchOptions.Termination.CANCELLED, path.getTermination());
+        assertEquals(3 * SearchOptions.CHECK_INTERVAL, path.getVisited().size());
+        assertEquals(3 * SearchOptions.CHECK_INTERVAL, path.getTotalWeight());
+    }
+
+    // compares the paths of a search between all pairs of countries with the paths of dijkstra's algorithm
+    // and verifies that every path connects its start and target by edges that add up to its weight
+    private void assertShortestPathsBetweenAllCountries(BiFunction<Country, Country, Searcher.DGPath<Country>> search) {
+        for (Country from : europe.getVertices()) {
+            for (Country to : europe.getVertices()) {
+                Searcher.DGPath<Country> expected = Searcher.dijkstraShortestPath(europe, from.getId(), to.getId(), b -> 1.0 * b);
+                Searcher.DGPath<Country> path = search.apply(from, to);
+                if (expected == null) {
+                    assertNull(path);
+                    continue;
+                }
+                assertNotNull(path);
+                assertEquals(expected.getTotalWeight(), path.getTotalWeight(), 0.0001);
+                assertSame(from, path.getVertices().get(0));
+                assertSame(to, path.getVertices().get(path.getVertices().size() - 1));
+                double sum = 0.0;
+                for (int i = 1; i < path.getVertices().size(); i++) {
+                    sum += europe.getEdge(path.getVertices().get(i - 1), path.getVertices().get(i));
+                }
+                assertEquals(path.getTotalWeight(), sum, 0.0001);
+            }
+        }
+    }
+
+    // builds a frozen graph of the countries C0 .. C(n-1), with the given neighbours of every country
+    // and new edge information from the border supplier for every edge
+    private static <E> CsrGraph<Country, E> syntheticGraph(int n, IntFunction<int[]> neighbours,
+                                                           Supplier<? extends E> border, IntFunction<E[]> edgeArray) {
+        Country[] countries = new Country[n];
+        int[][] rows = new int[n][];
+        int[] offsets = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            countries[i] = new Country("C" + i);
+            rows[i] = neighbours.apply(i);
+            offsets[i + 1] = offsets[i] + rows[i].length;
+        }
+        int[] targets = new int[offsets[n]];
+        E[] borders = edgeArray.apply(offsets[n]);
+        for (int i = 0; i < n; i++) {
+            for (int e = 0; e < rows[i].length; e++) {
+                targets[offsets[i] + e] = rows[i][e];
+                borders[offsets[i] + e] = border.get();
+            }
+        }
+        return new CsrGraph<>(countries, offsets, targets, borders, () -> 0L);
+    }
+
+    // distinct random neighbours in ascending order, as the rows of a frozen graph
+    private static IntFunction<int[]> randomNeighbours(Random random, int n, int degree) {
+        return i -> random.ints(0, n).distinct().limit(degree).sorted().toArray();
+    }
 }
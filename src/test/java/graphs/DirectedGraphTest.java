@@ -5,8 +5,7 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
-import java.util.Collection;
-import java.util.Locale;
+import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -157,4 +156,234 @@ class DirectedGraphTest {
         assertEquals(1, emptyGraph.getNumVertices());
         assertEquals(0, emptyGraph.getNumEdges());
     }
+
+    @Test
+    void checkFreeze() {
+        CsrGraph<Country, Integer> frozen = europe.freeze();
+        assertEquals(europe.getNumVertices(), frozen.getNumVertices());
+        assertEquals(europe.getNumEdges(), frozen.getNumEdges());
+        for (Country from : europe.getVertices()) {
+            assertSame(from, frozen.getVertexById(from.getId()));
+            assertSame(from, frozen.vertexAt(frozen.indexOf(from)));
+            assertEquals(europe.getNeighbours(from).size(), frozen.getNeighbours(from).size());
+            for (Country to : europe.getVertices()) {
+                assertSame(europe.getEdge(from, to), frozen.getEdge(from, to));
+            }
+        }
+        assertNull(frozen.getVertexById("XX"));
+        assertNull(frozen.getNeighbours(new Country("XX")));
+        assertEquals(550, frozen.getEdges("NL").stream().reduce(Integer::sum).orElse(0));
+
+        // the snapshot does not follow later changes of the graph
+        africa.addEdge(new Country("MO"), new Country("AL"), 200);
+        CsrGraph<Country, Integer> frozenAfrica = africa.freeze();
+        africa.addEdge("AL", "MO", 200);
+        assertEquals(1, frozenAfrica.getNumEdges());
+        assertNull(frozenAfrica.getEdge("AL", "MO"));
+    }
+
+    @Test
+    void checkVertexOrdinals() {
+        assertEquals(0, europe.indexOf(nl));
+        assertEquals(1, europe.indexOf(be));
+        assertEquals(7, europe.indexOf(hu));
+        assertEquals(-1, europe.indexOf(new Country("XX")));
+        assertEquals(-1, europe.indexOf(null));
+        for (int i = 0; i < europe.getNumVertices(); i++) {
+            assertEquals(i, europe.indexOf(europe.vertexAt(i)));
+        }
+
+        int[] neighbours = europe.getNeighbours(europe.indexOf(nl));
+        assertEquals(europe.getNeighbours(nl).size(), neighbours.length);
+        for (int to : neighbours) {
+            assertSame(europe.getEdge(nl, europe.vertexAt(to)), europe.getEdge(europe.indexOf(nl), to));
+        }
+        assertNull(europe.getEdge(europe.indexOf(nl), europe.indexOf(ro)));
+        assertNull(europe.getVertexByKey(Identifiable.NO_KEY));
+
+        // ordinals are shared by the frozen snapshot
+        CsrGraph<Country, Integer> frozen = europe.freeze();
+        for (int i = 0; i < europe.getNumVertices(); i++) {
+            assertSame(europe.vertexAt(i), frozen.vertexAt(i));
+        }
+    }
+
+    @Test
+    void checkOutEdgeIteration() {
+        Map<Country, Integer> visited = new HashMap<>();
+        europe.forEachOutEdge(nl, visited::put);
+        assertEquals(europe.getOutEdges(nl), visited);
+        assertEquals(3, visited.size());
+        assertEquals(Integer.valueOf(200), visited.get(de));
+
+        int[] sum = {0};
+        europe.forEachOutEdge(europe.indexOf(be), (to, edgeId, border) -> {
+            assertSame(europe.getEdge(europe.indexOf(be), to), border);
+            sum[0] += border;
+        });
+        assertEquals(370, sum[0]);
+
+        // the frozen snapshot offers the same views
+        CsrGraph<Country, Integer> frozen = europe.freeze();
+        assertEquals(europe.getOutEdges(uk), frozen.getOutEdges(uk));
+        assertEquals(Integer.valueOf(70), frozen.getOutEdges(uk).get(be));
+        assertNull(frozen.getOutEdges(uk).get(ro));
+
+        // the view on the graph is live but cannot be modified
+        Country mo = africa.addOrGetVertex(new Country("MO"));
+        Map<Country, Integer> view = africa.getOutEdges(mo);
+        assertTrue(view.isEmpty());
+        africa.addEdge("MO", "MO", 1);
+        assertEquals(1, view.size());
+        assertThrows(UnsupportedOperationException.class, () -> view.put(mo, 2));
+        assertNull(africa.getOutEdges(new Country("XX")));
+    }
+
+    @Test
+    void checkIncomingEdges() {
+        DirectedGraph<Country, Integer> indexed = new DirectedGraph<>(true);
+        for (Country from : europe.getVertices()) {
+            europe.forEachOutEdge(from, (to, border) -> indexed.addEdge(from, to, border));
+        }
+        indexed.addEdge(new Country("MO"), nl, 400);
+        CsrGraph<Country, Integer> frozen = indexed.freeze();
+
+        for (Country to : europe.getVertices()) {
+            Map<Country, Integer> expected = new HashMap<>();
+            europe.getVertices().forEach(from -> {
+                if (europe.getEdge(from, to) != null) expected.put(from, europe.getEdge(from, to));
+            });
+            assertEquals(expected, europe.getIncoming(to));
+            if (to != nl) {
+                assertEquals(expected, indexed.getIncoming(to));
+                assertEquals(expected, frozen.getIncoming(to));
+            }
+            assertEquals(expected.size(), europe.getPredecessors(to).size());
+        }
+        assertEquals(4, indexed.getPredecessors("NL").size());
+        assertEquals(Integer.valueOf(400), frozen.getIncoming(nl).get(new Country("MO")));
+        assertTrue(indexed.getIncoming(indexed.getVertexById("MO")).isEmpty());
+        assertNull(europe.getIncoming(new Country("XX")));
+
+        int[] sum = {0};
+        frozen.forEachInEdge(frozen.indexOf(be), (from, edgeId, border) -> {
+            assertSame(frozen.edgeAt(edgeId), border);
+            assertEquals(frozen.indexOf(be), frozen.edgeTarget(edgeId));
+            sum[0] += border;
+        });
+        assertEquals(370, sum[0]);
+    }
+
+    @Test
+    void checkRemoveUnconnectedVertices() {
+        DirectedGraph<Country, Integer> indexed = new DirectedGraph<>(true);
+        indexed.addOrGetVertex(new Country("XX"));
+        indexed.addEdge(new Country("MO"), new Country("AL"), 200);
+        indexed.addOrGetVertex(new Country("YY"));
+
+        indexed.removeUnconnectedVertices();
+        assertEquals(2, indexed.getNumVertices());
+        assertNull(indexed.getVertexById("XX"));
+        assertEquals(0, indexed.indexOf(indexed.getVertexById("MO")));
+        assertEquals(1, indexed.indexOf(indexed.getVertexById("AL")),
+                "A vertex with only in-coming edges is still connected");
+        assertEquals(Integer.valueOf(200), indexed.getIncoming(indexed.getVertexById("AL")).get(new Country("MO")));
+    }
+
+    @Test
+    void checkRemoveUnconnectedVerticesKeepsDuplicateKeys() {
+        DirectedGraph<Country, Integer> keyed = new DirectedGraph<>();
+        Country unconnected = keyed.addOrGetVertex(keyedCountry("XX", 7L));
+        Country connected = keyed.addOrGetVertex(keyedCountry("MO", 7L));
+        keyed.addEdge(connected, keyed.addOrGetVertex(keyedCountry("AL", 8L)), 200);
+        assertSame(unconnected, keyed.getVertexByKey(7L));
+
+        keyed.removeUnconnectedVertices();
+        assertNull(keyed.getVertexById("XX"));
+        assertSame(connected, keyed.getVertexByKey(7L), "The remaining vertex should take over the key");
+        assertSame(keyed.getVertexById("AL"), keyed.getVertexByKey(8L));
+    }
+
+    private static Country keyedCountry(String name, long key) {
+        return new Country(name) {
+            @Override
+            public long getKey() {
+                return key;
+            }
+        };
+    }
+
+    @Test
+    void checkOverlayVersions() {
+        OverlayGraph<Country, Integer> original = europe.overlay();
+        OverlayGraph<Country, Integer> closed = original.withoutEdge("NL", "DE");
+        OverlayGraph<Country, Integer> longer = closed.withEdgeWeight("BE", "DE", b -> b * 10);
+        OverlayGraph<Country, Integer> tunnel = longer.withEdge("UK", "NL", 50).withEdge("UK", "DE", 300);
+
+        // earlier versions and the graph itself remain unchanged
+        assertEquals(Integer.valueOf(200), europe.getEdge("NL", "DE"));
+        assertEquals(Integer.valueOf(200), original.getEdge("NL", "DE"));
+        assertEquals(24, original.getNumEdges());
+        assertEquals(0, original.getNumChanges());
+
+        assertNull(closed.getEdge("NL", "DE"));
+        assertEquals(Integer.valueOf(200), closed.getEdge("DE", "NL"));
+        assertEquals(23, closed.getNumEdges());
+        assertEquals(Integer.valueOf(30), closed.getEdge("BE", "DE"));
+        assertEquals(Integer.valueOf(300), longer.getEdge("BE", "DE"));
+        assertEquals(Integer.valueOf(30), longer.getEdge("DE", "BE"));
+
+        assertEquals(Integer.valueOf(50), tunnel.getEdge("UK", "NL"));
+        assertEquals(Integer.valueOf(300), tunnel.getEdge(uk, de));
+        assertEquals(24, tunnel.getNumEdges());
+        assertEquals(4, tunnel.getNumChanges());
+        assertEquals(4, tunnel.getNeighbours(uk).size());
+        assertEquals(4, tunnel.getNeighbours(tunnel.indexOf(uk)).length);
+        assertEquals(Set.of(be, fr, lux, uk), Set.copyOf(tunnel.getPredecessors(de)));
+        assertSame(tunnel.getBase(), original.getBase());
+
+        // edge ids stay unique
+        Set<Integer> edgeIds = new HashSet<>();
+        for (int v = 0; v < tunnel.getNumVertices(); v++) {
+            tunnel.forEachOutEdge(v, (to, edgeId, border) -> assertTrue(edgeIds.add(edgeId)));
+        }
+        assertEquals(24, edgeIds.size());
+
+        assertSame(closed, closed.withoutEdge("NL", "DE"));
+        assertSame(closed, closed.withEdgeWeight("NL", "RO", b -> b + 1));
+        assertThrows(IllegalArgumentException.class, () -> closed.withEdge("NL", "XX", 1));
+
+        // searches run on every version independently
+        assertEquals(130.0, Searcher.dijkstraShortestPath(original, "UK", "LUX", b -> 1.0 * b).getTotalWeight());
+        assertEquals(210.0, Searcher.dijkstraShortestPath(longer, "NL", "DE", b -> 1.0 * b).getTotalWeight());
+        assertEquals(50.0, Searcher.dijkstraShortestPath(tunnel, "UK", "NL", b -> 1.0 * b).getTotalWeight());
+    }
+
+    @Test
+    void checkOverlayWeightColumnsShareTheBase() {
+        Metric<Integer> length = Metric.of("length", b -> b);
+        OverlayGraph<Country, Integer> original = europe.overlay();
+        OverlayGraph<Country, Integer> longer = original.withEdgeWeight("BE", "DE", b -> b * 10);
+        OverlayGraph<Country, Integer> tunnel = longer.withEdge("UK", "NL", 50).withoutEdge("NL", "DE");
+        double[] baseColumn = original.getBase().weightColumn(length);
+
+        // every version reads its unchanged edges from the base column and only patches its changed edges
+        for (OverlayGraph<Country, Integer> version : List.of(original, longer, tunnel)) {
+            WeightColumn column = version.patchedWeightColumn(length);
+            assertSame(baseColumn, column.base());
+            assertEquals(version.getEdgeIdBound(), column.size());
+            for (int v = 0; v < version.getNumVertices(); v++) {
+                version.forEachOutEdge(v, (to, edgeId, border) -> assertEquals(border.doubleValue(), column.get(edgeId)));
+            }
+        }
+        assertEquals(baseColumn.length + 2, tunnel.getEdgeIdBound(), "The removed edge should not need a weight");
+        assertEquals(300.0, tunnel.weightColumn(length)[baseColumn.length]);
+
+        for (OverlayGraph<Country, Integer> version : List.of(longer, tunnel)) {
+            for (String[] trip : new String[][]{{"NL", "DE"}, {"UK", "DE"}, {"BE", "DE"}}) {
+                assertEquals(Searcher.dijkstraShortestPath(version, trip[0], trip[1], b -> 1.0 * b).getTotalWeight(),
+                        Searcher.dijkstraShortestPath(version, trip[0], trip[1], length).getTotalWeight());
+            }
+        }
+    }
 }
@@ -0,0 +1,105 @@
+package graphs;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IndexedMinHeapTest {
+
+    private IndexedMinHeap heap;
+
+    @BeforeEach
+    void setup() {
+        heap = new IndexedMinHeap(10);
+    }
+
+    @Test
+    void testNewHeapIsEmpty() {
+        assertTrue(heap.isEmpty());
+        assertEquals(Double.MAX_VALUE, heap.peekKey());
+        assertThrows(NoSuchElementException.class, () -> heap.poll());
+        assertThrows(NoSuchElementException.class, () -> heap.peek());
+    }
+
+    @Test
+    void testPollInOrderOfKeys() {
+        heap.insert(3, 30.0);
+        heap.insert(1, 10.0);
+        heap.insert(7, 5.0);
+        heap.insert(2, 20.0);
+
+        assertEquals(4, heap.size());
+        assertEquals(7, heap.peek());
+        assertEquals(5.0, heap.peekKey());
+        assertEquals(7, heap.poll());
+        assertEquals(1, heap.poll());
+        assertEquals(2, heap.poll());
+        assertEquals(3, heap.poll());
+        assertTrue(heap.isEmpty());
+        assertFalse(heap.contains(3));
+    }
+
+    @Test
+    void testDecreaseKey() {
+        heap.insert(1, 10.0);
+        heap.insert(2, 20.0);
+        heap.decreaseKey(2, 5.0);
+
+        assertEquals(5.0, heap.keyOf(2));
+        assertEquals(2, heap.poll());
+        assertThrows(IllegalArgumentException.class, () -> heap.decreaseKey(1, 15.0));
+        assertThrows(IllegalArgumentException.class, () -> heap.decreaseKey(2, 1.0));
+        assertThrows(IllegalArgumentException.class, () -> heap.insert(1, 1.0));
+    }
+
+    @Test
+    void testInsertOrDecreaseKeepsOneEntryPerId() {
+        assertTrue(heap.insertOrDecrease(4, 40.0));
+        assertFalse(heap.insertOrDecrease(4, 50.0));
+        assertTrue(heap.insertOrDecrease(4, 4.0));
+        assertEquals(1, heap.size());
+        assertEquals(4.0, heap.peekKey());
+    }
+
+    @Test
+    void testClear() {
+        heap.insert(1, 10.0);
+        heap.insert(2, 20.0);
+        heap.clear();
+
+        assertTrue(heap.isEmpty());
+        assertFalse(heap.contains(1));
+        heap.insert(1, 1.0);
+        assertEquals(1, heap.poll());
+    }
+
+    @Test
+    void testRandomKeysWithDifferentArities() {
+        Random random = new Random(2021);
+        for (int arity = 2; arity <= 8; arity++) {
+            IndexedMinHeap heap = new IndexedMinHeap(1000, arity);
+            double[] keys = new double[1000];
+            Arrays.fill(keys, Double.MAX_VALUE);
+            for (int i = 0; i < 5000; i++) {
+                int id = random.nextInt(1000);
+                double key = random.nextDouble();
+                heap.insertOrDecrease(id, key);
+                keys[id] = Math.min(keys[id], key);
+            }
+            double previous = -1.0;
+            while (!heap.isEmpty()) {
+                double key = heap.peekKey();
+                int id = heap.poll();
+                assertEquals(keys[id], key);
+                assertTrue(key >= previous);
+                previous = key;
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> new IndexedMinHeap(10, 1));
+    }
+}
@@ -0,0 +1,73 @@
+package graphs;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PersistentIntMapTest {
+
+    @Test
+    void testEmptyMap() {
+        PersistentIntMap<String> map = PersistentIntMap.empty();
+        assertEquals(0, map.size());
+        assertNull(map.get(0));
+        assertNull(map.get(Integer.MAX_VALUE));
+        assertThrows(IllegalArgumentException.class, () -> map.put(-1, "negative"));
+        assertThrows(IllegalArgumentException.class, () -> map.put(1, null));
+    }
+
+    @Test
+    void testPutKeepsEarlierVersions() {
+        PersistentIntMap<String> empty = PersistentIntMap.empty();
+        PersistentIntMap<String> one = empty.put(5, "five");
+        PersistentIntMap<String> two = one.put(5 + 32, "thirty-seven");
+        PersistentIntMap<String> replaced = two.put(5, "FIVE");
+
+        assertNull(empty.get(5));
+        assertEquals("five", one.get(5));
+        assertNull(one.get(37));
+        assertEquals("five", two.get(5));
+        assertEquals("thirty-seven", two.get(37));
+        assertEquals("FIVE", replaced.get(5));
+        assertEquals(List.of(0, 1, 2, 2), List.of(empty.size(), one.size(), two.size(), replaced.size()));
+    }
+
+    @Test
+    void testAgreesWithHashMapAcrossVersions() {
+        Random random = new Random(20240611L);
+        List<PersistentIntMap<Integer>> versions = new ArrayList<>();
+        List<Map<Integer, Integer>> expected = new ArrayList<>();
+        PersistentIntMap<Integer> map = PersistentIntMap.empty();
+        Map<Integer, Integer> reference = new HashMap<>();
+
+        for (int i = 0; i < 2000; i++) {
+            int key = i % 3 == 0 ? random.nextInt(Integer.MAX_VALUE) : random.nextInt(500);
+            map = map.put(key, i);
+            reference.put(key, i);
+            if (i % 100 == 0) {
+                versions.add(map);
+                expected.add(new HashMap<>(reference));
+            }
+        }
+
+        for (int v = 0; v < versions.size(); v++) {
+            PersistentIntMap<Integer> version = versions.get(v);
+            Map<Integer, Integer> entries = expected.get(v);
+            assertEquals(entries.size(), version.size());
+            entries.forEach((key, value) -> assertEquals(value, version.get(key)));
+            List<Integer> values = new ArrayList<>();
+            version.forEachValue(values::add);
+            assertEquals(entries.size(), values.size());
+            assertTrue(values.containsAll(entries.values()));
+        }
+        for (int key = 0; key < 500; key++) {
+            assertEquals(reference.get(key), map.get(key));
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package graphs;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SearchStatsTest {
+
+    DirectedGraph<Country, Integer> europe = new DirectedGraph<>();
+    List<SearchStats.Query> queries = new CopyOnWriteArrayList<>();
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        europe.addOrGetVertex(new Country("NL"));
+        europe.addOrGetVertex(new Country("BE"));
+        europe.addOrGetVertex(new Country("DE"));
+        europe.addOrGetVertex(new Country("LUX"));
+        europe.addOrGetVertex(new Country("FR"));
+        europe.addOrGetVertex(new Country("RO"));
+        europe.addOrGetVertex(new Country("HU"));
+        europe.addConnection("BE", "NL", 100);
+        europe.addConnection("NL", "DE", 200);
+        europe.addConnection("BE", "DE", 30);
+        europe.addConnection("LUX", "BE", 60);
+        europe.addConnection("LUX", "DE", 50);
+        europe.addConnection("FR", "LUX", 30);
+        europe.addConnection("FR", "BE", 110);
+        europe.addConnection("FR", "DE", 50);
+        europe.addConnection("RO", "HU", 250);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SearchStats.disable();
+    }
+
+    @Test
+    void checkQueryCounters() {
+        SearchStats stats = SearchStats.enable(queries::add);
+        Searcher.DGPath<Country> path = Searcher.dijkstraShortestPath(europe, "NL", "FR", b -> 1.0 * b);
+
+        assertEquals(1, queries.size());
+        SearchStats.Query query = queries.get(0);
+        assertEquals(SearchStats.Algorithm.DIJKSTRA, query.getAlgorithm());
+        assertEquals("NL", query.getStartId());
+        assertEquals("FR", query.getTargetId());
+        assertEquals(path.getVisited().size(), query.getSettled());
+        assertEquals(query.getSettled(), query.getPops());
+        assertTrue(query.getPushes() >= query.getSettled());
+        assertTrue(query.getRelaxations() >= query.getSettled() - 1);
+        // the edges of all settled vertices are relaxed, except those of the target
+        assertEquals(path.getVisited().stream().filter(country -> !country.getId().equals("FR"))
+                .mapToLong(country -> europe.getNeighbours(country).size()).sum(), query.getRelaxations());
+        assertEquals(path.getVertices().size(), query.getPathLength());
+
+        SearchStats.AlgorithmStats dijkstra = stats.of(SearchStats.Algorithm.DIJKSTRA);
+        assertEquals(1, dijkstra.getNumQueries());
+        assertEquals(query.getSettled(), dijkstra.getSettled());
+        assertEquals(1, Arrays.stream(dijkstra.getLatencyHistogram()).sum());
+        assertTrue(dijkstra.getLatencyPercentile(50.0) >= query.getLatencyNanos());
+        assertSame(query, dijkstra.getSlowest());
+        assertEquals(0, stats.of(SearchStats.Algorithm.A_STAR).getNumQueries());
+    }
+
+    @Test
+    void checkAllAlgorithmsAreRecorded() {
+        SearchStats stats = SearchStats.enable();
+        Searcher.aStarShortestPath(europe, "NL", "FR", b -> b, (v, t) -> 0.0);
+        Searcher.bidirectionalDijkstra(europe, "NL", "FR", b -> b);
+        Searcher.bidirectionalDijkstra(europe, "NL", "HU", b -> b);
+        Searcher.dijkstraShortestPath(europe, "NL", "NL", b -> 1.0 * b);
+        Searcher.dijkstraShortestPath(europe, "NL", "XX", b -> 1.0 * b);
+
+        assertEquals(1, stats.of(SearchStats.Algorithm.A_STAR).getNumQueries());
+        assertEquals(2, stats.of(SearchStats.Algorithm.BIDIRECTIONAL_DIJKSTRA).getNumQueries());
+        assertTrue(stats.of(SearchStats.Algorithm.BIDIRECTIONAL_DIJKSTRA).getSettled() > 0);
+        // unknown vertices are rejected before any search
+        assertEquals(1, stats.of(SearchStats.Algorithm.DIJKSTRA).getNumQueries());
+        assertEquals(0, stats.of(SearchStats.Algorithm.DIJKSTRA).getSettled());
+    }
+
+    @Test
+    void checkDisabledStatsRecordNothing() {
+        SearchStats stats = SearchStats.enable(queries::add);
+        SearchStats.disable();
+        Searcher.dijkstraShortestPath(europe, "NL", "FR", b -> 1.0 * b);
+
+        assertTrue(queries.isEmpty());
+        assertEquals(0, stats.of(SearchStats.Algorithm.DIJKSTRA).getNumQueries());
+        assertEquals(0, stats.of(SearchStats.Algorithm.DIJKSTRA).getLatencyPercentile(99.0));
+        assertNull(stats.of(SearchStats.Algorithm.DIJKSTRA).getSlowest());
+    }
+
+    @Test
+    void checkFlightRecorderEvents() throws IOException {
+        Path file = tempDir.resolve("search.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("graphs.Search");
+            recording.start();
+            SearchStats.enable();
+            Searcher.dijkstraShortestPath(europe, "NL", "FR", b -> 1.0 * b);
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        assertEquals(1, events.stream().filter(e -> e.getEventType().getName().equals("graphs.Search")).count());
+        RecordedEvent event = events.stream().filter(e -> e.getEventType().getName().equals("graphs.Search"))
+                .findFirst().orElseThrow();
+        assertEquals("DIJKSTRA", event.getString("algorithm"));
+        assertEquals("FR", event.getString("targetId"));
+    }
+}
@@ -73,4 +73,19 @@ class JunctionTest {
         assertNotEquals(j1.getProvince(), j2.getProvince());
         assertTrue(j2.getPopulation() > j1.getPopulation());
     }
+
+    @Test
+    void testOptionalCode() {
+        Junction amsterdam = new Junction.Builder()
+                .code(363)
+                .name("Amsterdam")
+                .build();
+        assertEquals(363, amsterdam.getCode());
+        assertEquals(363, amsterdam.getKey());
+        assertEquals(Junction.NO_KEY, new Junction("Rotterdam").getKey());
+
+        RoadMap roadMap = new RoadMap("Junctions0.csv", "Roads0.csv");
+        assertSame(roadMap.getVertexById("Amsterdam"), roadMap.getVertexByKey(363));
+        assertNull(roadMap.getVertexByKey(-42));
+    }
 }
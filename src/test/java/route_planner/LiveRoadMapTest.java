@@ -0,0 +1,93 @@
+package route_planner;
+
+import graphs.CsrGraph;
+import graphs.Searcher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LiveRoadMapTest {
+
+    RoadMap roadMap;
+    LiveRoadMap liveMap;
+
+    @BeforeEach
+    void setUp() {
+        RoadMap.reSeedRandomizer(20211220L);
+        roadMap = new RoadMap("Junctions0.csv", "Roads0.csv");
+        liveMap = roadMap.live();
+    }
+
+    @Test
+    void checkUpdatesArePublishedAsNewVersion() {
+        CsrGraph<Junction, Road> before = liveMap.snapshot();
+        int speed = before.getEdge("Oostzaan", "Amsterdam").getMaxSpeed();
+
+        CsrGraph<Junction, Road> after = liveMap.update(batch -> {
+            assertTrue(batch.setMaxSpeed("Oostzaan", "Amsterdam", 5));
+            assertTrue(batch.setLength("Oostzaan", "Amsterdam", 99.0));
+            assertFalse(batch.setMaxSpeed("Oostzaan", "Meppel", 5));
+        });
+
+        assertSame(after, liveMap.snapshot());
+        assertEquals(1, liveMap.getVersion());
+        assertEquals(5, after.getEdge("Oostzaan", "Amsterdam").getMaxSpeed());
+        assertEquals(99.0, after.getEdge("Oostzaan", "Amsterdam").getLength());
+        assertEquals(speed, before.getEdge("Oostzaan", "Amsterdam").getMaxSpeed(),
+                "A published version should never change");
+        assertEquals(speed, roadMap.getEdge("Oostzaan", "Amsterdam").getMaxSpeed(),
+                "The original road map should not be affected by the live updates");
+        assertSame(before.getEdge("Amsterdam", "Oostzaan"), after.getEdge("Amsterdam", "Oostzaan"),
+                "Unchanged roads should be shared between versions");
+
+        liveMap.update(batch -> { });
+        assertEquals(1, liveMap.getVersion(), "An empty batch should not publish a new version");
+    }
+
+    @Test
+    void checkReadersSeeConsistentVersions() throws InterruptedException {
+        AtomicBoolean stop = new AtomicBoolean(false);
+        List<Throwable> failures = new ArrayList<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread reader = new Thread(() -> {
+                try {
+                    while (!stop.get()) {
+                        CsrGraph<Junction, Road> snapshot = liveMap.snapshot();
+                        // both directions are always changed within one batch
+                        assertEquals(snapshot.getEdge("Diemen", "Amsterdam").getMaxSpeed(),
+                                snapshot.getEdge("Amsterdam", "Diemen").getMaxSpeed());
+                        assertNotNull(Searcher.dijkstraShortestPath(snapshot, "Oostzaan", "Diemen",
+                                r -> r.getLength() / r.getMaxSpeed()));
+                    }
+                } catch (Throwable e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            });
+            readers.add(reader);
+            reader.start();
+        }
+
+        for (int speed = 10; speed < 110; speed++) {
+            int newSpeed = speed;
+            liveMap.update(batch -> {
+                batch.setMaxSpeed("Diemen", "Amsterdam", newSpeed);
+                batch.setMaxSpeed("Amsterdam", "Diemen", newSpeed);
+            });
+        }
+        stop.set(true);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertEquals(List.of(), failures);
+        assertEquals(100, liveMap.getVersion());
+    }
+}
@@ -0,0 +1,387 @@
+package route_planner;
+
+import graphs.ContractionHierarchy;
+import graphs.CsrGraph;
+import graphs.DynamicShortestPathTree;
+import graphs.Heuristic;
+import graphs.Landmarks;
+import graphs.Searcher;
+import graphs.ShortestPathTree;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoadMapTest {
+
+    RoadMap roadMap;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        RoadMap.reSeedRandomizer(20211220L);
+        roadMap = new RoadMap("Junctions.csv", "Roads.csv");
+    }
+
+    @Test
+    void checkSaveAndLoadSnapshot() throws IOException {
+        Path file = tempDir.resolve("roadmap.bin");
+        roadMap.save(file);
+        RoadMap loaded = RoadMap.load(file);
+
+        assertEquals(roadMap.getNumVertices(), loaded.getNumVertices());
+        assertEquals(roadMap.getNumEdges(), loaded.getNumEdges());
+        for (int j = 0; j < roadMap.getNumVertices(); j++) {
+            Junction original = roadMap.vertexAt(j);
+            Junction copy = loaded.vertexAt(j);
+            assertEquals(original, copy);
+            assertEquals(original.getCode(), copy.getCode());
+            assertEquals(original.getProvince(), copy.getProvince());
+            assertEquals(original.getPopulation(), copy.getPopulation());
+            assertEquals(original.getLocationX(), copy.getLocationX());
+            assertEquals(original.getLocationY(), copy.getLocationY());
+            roadMap.forEachOutEdge(original, (neighbour, road) -> {
+                Road loadedRoad = loaded.getEdge(copy.getId(), neighbour.getId());
+                assertNotNull(loadedRoad);
+                assertEquals(road.getName(), loadedRoad.getName());
+                assertEquals(road.getLength(), loadedRoad.getLength());
+                assertEquals(road.getMaxSpeed(), loadedRoad.getMaxSpeed());
+            });
+        }
+        assertEquals(roadMap.getIncoming(roadMap.getVertexById("Meppel")).size(),
+                loaded.getIncoming(loaded.getVertexById("Meppel")).size());
+
+        assertEquals(Searcher.dijkstraShortestPath(roadMap, "Amsterdam", "Meppel", Road::getLength).toString(),
+                Searcher.dijkstraShortestPath(loaded, "Amsterdam", "Meppel", Road::getLength).toString());
+    }
+
+    @Test
+    void checkLoadInvalidSnapshot() throws IOException {
+        Path file = tempDir.resolve("invalid.bin");
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        assertThrows(IOException.class, () -> RoadMap.load(file));
+
+        roadMap.save(file);
+        byte[] truncated = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(truncated, truncated.length / 2));
+        assertThrows(IOException.class, () -> RoadMap.load(file));
+    }
+
+    @Test
+    void checkSaveAndLoadSnapshotWithProfiles() throws IOException {
+        TravelTimeProfile rushHours = TravelTimeProfile.rushHours(1.8);
+        TravelTimeProfile evening = TravelTimeProfile.of(new double[]{18.0, 21.0}, new double[]{1.3, 1.0});
+        for (Junction junction : roadMap.getVertices()) {
+            for (Road road : roadMap.getOutEdges(junction).values()) {
+                if (road.getMaxSpeed() >= 100) road.setProfile(rushHours);
+                else if (road.getMaxSpeed() >= 80) road.setProfile(evening);
+            }
+        }
+        Path file = tempDir.resolve("profiles.bin");
+        roadMap.save(file);
+        RoadMap loaded = RoadMap.load(file);
+
+        for (Junction junction : roadMap.getVertices()) {
+            roadMap.forEachOutEdge(junction, (neighbour, road) -> {
+                Road loadedRoad = loaded.getEdge(junction.getId(), neighbour.getId());
+                assertSame(road.getProfile(), loadedRoad.getProfile());
+                assertEquals(road.getTravelTime(8.0), loadedRoad.getTravelTime(8.0));
+            });
+        }
+        for (double departure : new double[]{1.0, 7.5, 18.5}) {
+            assertEquals(roadMap.earliestArrivalPath("Amsterdam", "Meppel", departure).getTotalWeight(),
+                    loaded.earliestArrivalPath("Amsterdam", "Meppel", departure).getTotalWeight(), 1E-9);
+        }
+    }
+
+    @Test
+    void checkSaveAndLoadSnapshotWithoutNames() throws IOException {
+        RoadMap unnamed = new RoadMap(null, null);
+        Junction nameless = unnamed.addOrGetVertex(new Junction.Builder().location(1.0, 2.0).build());
+        Junction other = unnamed.addOrGetVertex(new Junction.Builder().name("Other").location(4.0, 6.0).build());
+        unnamed.addConnection(nameless, other, new Road(null, 5.0, 80));
+
+        Path file = tempDir.resolve("unnamed.bin");
+        unnamed.save(file);
+        RoadMap loaded = RoadMap.load(file);
+
+        assertEquals(2, loaded.getNumVertices());
+        assertEquals(2, loaded.getNumEdges());
+        Junction loadedNameless = loaded.vertexAt(unnamed.indexOf(nameless));
+        assertNull(loadedNameless.getName());
+        assertNull(loadedNameless.getProvince());
+        Road road = loaded.getEdge(loadedNameless, loaded.getVertexById("Other"));
+        assertNotNull(road);
+        assertNull(road.getName());
+        assertEquals(5.0, road.getLength());
+        assertEquals(1, loaded.getIncoming(loadedNameless).size());
+    }
+
+    @Test
+    void checkWeightColumnsFollowRoadChanges() {
+        double[] before = roadMap.weightColumn(Road.TRAVEL_TIME);
+        assertSame(before, roadMap.weightColumn(Road.TRAVEL_TIME));
+
+        Searcher.DGPath<Junction> fastest = Searcher.dijkstraShortestPath(roadMap, "Amsterdam", "Meppel", Road.TRAVEL_TIME);
+        assertEquals(Searcher.dijkstraShortestPath(roadMap, "Amsterdam", "Meppel", r -> r.getLength() / r.getMaxSpeed())
+                .getTotalWeight(), fastest.getTotalWeight(), 1E-9);
+
+        roadMap.getEdge("Diemen", "Weesp").setMaxSpeed(5);
+        double[] after = roadMap.weightColumn(Road.TRAVEL_TIME);
+        assertNotSame(before, after, "A changed road should invalidate the weight column");
+        Searcher.DGPath<Junction> detour = Searcher.dijkstraShortestPath(roadMap, "Amsterdam", "Meppel", Road.TRAVEL_TIME);
+        assertTrue(detour.getTotalWeight() > fastest.getTotalWeight());
+        assertEquals(Searcher.dijkstraShortestPath(roadMap, "Amsterdam", "Meppel", r -> r.getLength() / r.getMaxSpeed())
+                .getTotalWeight(), detour.getTotalWeight(), 1E-9);
+    }
+
+    @Test
+    void checkAStarSettlesFewerJunctions() {
+        Searcher.DGPath<Junction> dijkstra = Searcher.dijkstraShortestPath(roadMap, "Amsterdam", "Meppel", Road.DISTANCE);
+        Searcher.DGPath<Junction> aStar = Searcher.aStarShortestPath(roadMap, "Amsterdam", "Meppel",
+                Road.DISTANCE, roadMap.distanceHeuristic());
+        assertEquals(dijkstra.getTotalWeight(), aStar.getTotalWeight(), 1E-9);
+        assertTrue(aStar.getVisited().size() < dijkstra.getVisited().size());
+
+        dijkstra = Searcher.dijkstraShortestPath(roadMap, "Amsterdam", "Meppel", Road.TRAVEL_TIME);
+        aStar = Searcher.aStarShortestPath(roadMap, "Amsterdam", "Meppel",
+                r -> r.getLength() / r.getMaxSpeed(), roadMap.travelTimeHeuristic());
+        assertEquals(dijkstra.getTotalWeight(), aStar.getTotalWeight(), 1E-9);
+        assertTrue(aStar.getVisited().size() < dijkstra.getVisited().size());
+    }
+
+    @Test
+    void checkBidirectionalDijkstra() {
+        Searcher.DGPath<Junction> dijkstra = Searcher.dijkstraShortestPath(roadMap, "Amsterdam", "Meppel", Road.TRAVEL_TIME);
+        Searcher.DGPath<Junction> bidirectional = Searcher.bidirectionalDijkstra(roadMap, "Amsterdam", "Meppel", Road.TRAVEL_TIME);
+        assertEquals(dijkstra.getTotalWeight(), bidirectional.getTotalWeight(), 1E-9);
+        assertEquals(dijkstra.toString().replaceAll("visited=\\d+", ""),
+                bidirectional.toString().replaceAll("visited=\\d+", ""));
+        assertTrue(bidirectional.getVisited().size() < dijkstra.getVisited().size());
+    }
+
+    @Test
+    void checkContractionHierarchy() throws IOException {
+        ContractionHierarchy<Junction, Road> hierarchy = ContractionHierarchy.build(roadMap, Road.TRAVEL_TIME);
+        assertTrue(hierarchy.getNumShortcuts() > 0);
+
+        Path file = tempDir.resolve("roadmap.ch");
+        hierarchy.save(file);
+        ContractionHierarchy<Junction, Road> loaded = ContractionHierarchy.load(file, roadMap, Road.TRAVEL_TIME);
+
+        Random random = new Random(20211220L);
+        for (int i = 0; i < 50; i++) {
+            String from = roadMap.vertexAt(random.nextInt(roadMap.getNumVertices())).getId();
+            String to = roadMap.vertexAt(random.nextInt(roadMap.getNumVertices())).getId();
+            Searcher.DGPath<Junction> dijkstra = Searcher.dijkstraShortestPath(roadMap, from, to, Road.TRAVEL_TIME);
+            Searcher.DGPath<Junction> path = hierarchy.shortestPath(from, to);
+            if (dijkstra == null) {
+                assertNull(path);
+                assertNull(loaded.shortestPath(from, to));
+                continue;
+            }
+            assertEquals(dijkstra.getTotalWeight(), path.getTotalWeight(), 1E-9);
+            assertEquals(path.toString(), loaded.shortestPath(from, to).toString());
+            double sum = 0.0;
+            for (int v = 1; v < path.getVertices().size(); v++) {
+                sum += Road.TRAVEL_TIME.applyAsDouble(roadMap.getEdge(path.getVertices().get(v - 1), path.getVertices().get(v)));
+            }
+            assertEquals(path.getTotalWeight(), sum, 1E-9);
+        }
+
+        RoadMap other = new RoadMap("Junctions.csv", "Roads.csv");
+        other.addOrGetVertex(new Junction.Builder().name("Nergenshuizen").build());
+        assertThrows(IOException.class, () -> ContractionHierarchy.load(file, other, Road.TRAVEL_TIME));
+
+        // a hierarchy of another metric or of outdated weights is rejected
+        assertThrows(IOException.class, () -> ContractionHierarchy.load(file, roadMap, Road.DISTANCE));
+        roadMap.getEdge("Diemen", "Weesp").setMaxSpeed(5);
+        assertThrows(IOException.class, () -> ContractionHierarchy.load(file, roadMap, Road.TRAVEL_TIME));
+        // the file records the weights of the preprocessing, also when it is saved after the change
+        hierarchy.save(file);
+        assertThrows(IOException.class, () -> ContractionHierarchy.load(file, roadMap, Road.TRAVEL_TIME));
+    }
+
+    @Test
+    void checkALTSurvivesSpeedReductions() {
+        Landmarks<Junction, Road> landmarks = roadMap.populationLandmarks(8, Road.TRAVEL_TIME);
+        assertEquals(8, landmarks.getLandmarks().size());
+
+        Searcher.DGPath<Junction> dijkstra = Searcher.dijkstraShortestPath(roadMap, "Amsterdam", "Meppel", Road.TRAVEL_TIME);
+        Searcher.DGPath<Junction> alt = Searcher.altShortestPath(roadMap, "Amsterdam", "Meppel", Road.TRAVEL_TIME, landmarks);
+        assertEquals(dijkstra.getTotalWeight(), alt.getTotalWeight(), 1E-9);
+        assertTrue(alt.getVisited().size() < dijkstra.getVisited().size());
+
+        // an incident slows down the first road of the fastest route, the landmarks remain valid
+        roadMap.getEdge(dijkstra.getVertices().get(0), dijkstra.getVertices().get(1)).setMaxSpeed(5);
+        roadMap.getEdge(dijkstra.getVertices().get(1), dijkstra.getVertices().get(0)).setMaxSpeed(5);
+        dijkstra = Searcher.dijkstraShortestPath(roadMap, "Amsterdam", "Meppel", Road.TRAVEL_TIME);
+        alt = Searcher.altShortestPath(roadMap, "Amsterdam", "Meppel", Road.TRAVEL_TIME, landmarks);
+        assertEquals(dijkstra.getTotalWeight(), alt.getTotalWeight(), 1E-9);
+    }
+
+    @Test
+    void checkDistanceMatrix() {
+        List<String> ids = new ArrayList<>();
+        for (int j = 0; j < roadMap.getNumVertices(); j += 7) {
+            ids.add(roadMap.vertexAt(j).getId());
+        }
+        double[][] matrix = Searcher.distanceMatrix(roadMap, ids, ids, Road.TRAVEL_TIME);
+        for (int s = 0; s < ids.size(); s++) {
+            for (int t = 0; t < ids.size(); t++) {
+                Searcher.DGPath<Junction> path = Searcher.dijkstraShortestPath(roadMap, ids.get(s), ids.get(t), Road.TRAVEL_TIME);
+                assertEquals(path == null ? Double.POSITIVE_INFINITY : path.getTotalWeight(), matrix[s][t], 1E-9);
+            }
+        }
+    }
+
+    @Test
+    void checkIsochrone() {
+        Set<Junction> isochrone = roadMap.isochrone("Amsterdam", 0.5);
+        assertTrue(isochrone.contains(roadMap.getVertexById("Amsterdam")));
+        for (Junction junction : roadMap.getVertices()) {
+            Searcher.DGPath<Junction> path = Searcher.dijkstraShortestPath(roadMap, "Amsterdam", junction.getId(), Road.TRAVEL_TIME);
+            assertEquals(path != null && path.getTotalWeight() <= 0.5, isochrone.contains(junction));
+        }
+        assertTrue(roadMap.isochrone("Amsterdam", 1.0).containsAll(isochrone));
+        assertNull(roadMap.isochrone("Atlantis", 0.5));
+    }
+
+    @Test
+    void checkKShortestPaths() {
+        List<Searcher.DGPath<Junction>> paths = Searcher.kShortestPaths(roadMap, "Amsterdam", "Meppel", 5, Road.TRAVEL_TIME);
+        assertEquals(5, paths.size());
+        assertEquals(Searcher.dijkstraShortestPath(roadMap, "Amsterdam", "Meppel", Road.TRAVEL_TIME).getTotalWeight(),
+                paths.get(0).getTotalWeight(), 1E-9);
+        Set<String> distinct = new HashSet<>();
+        for (int i = 0; i < paths.size(); i++) {
+            if (i > 0) assertTrue(paths.get(i - 1).getTotalWeight() <= paths.get(i).getTotalWeight());
+            Set<Junction> vertices = new HashSet<>();
+            double travelTime = 0.0;
+            Junction from = null;
+            for (Junction junction : paths.get(i).getVertices()) {
+                assertTrue(vertices.add(junction));
+                if (from != null) travelTime += Road.TRAVEL_TIME.applyAsDouble(roadMap.getEdge(from, junction));
+                from = junction;
+            }
+            assertEquals(paths.get(i).getTotalWeight(), travelTime, 1E-9);
+            assertTrue(distinct.add(paths.get(i).toString().replaceAll("visited=\\d+", "")));
+        }
+    }
+
+    @Test
+    void checkDeltaSteppingMatchesDijkstra() {
+        ShortestPathTree<Junction> expected = Searcher.shortestPathTree(roadMap, "Amsterdam", Road.TRAVEL_TIME, Double.MAX_VALUE);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ShortestPathTree<Junction> tree = Searcher.deltaSteppingShortestPathTree(roadMap, "Amsterdam", Road.TRAVEL_TIME,
+                    0.05, pool);
+            assertEquals(expected.size(), tree.size());
+            for (Junction junction : roadMap.getVertices()) {
+                assertEquals(expected.getWeight(junction), tree.getWeight(junction), 1E-9);
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(expected.size(), Searcher.deltaSteppingShortestPathTree(roadMap, "Amsterdam", Road.TRAVEL_TIME).size());
+    }
+
+    @Test
+    void checkTimeDependentRouting() {
+        Searcher.DGPath<Junction> fastest = Searcher.dijkstraShortestPath(roadMap, "Amsterdam", "Meppel", Road.TRAVEL_TIME);
+        Searcher.DGPath<Junction> freeFlow = Searcher.timeDependentShortestPath(roadMap, "Amsterdam", "Meppel",
+                Road.TIME_DEPENDENT_TRAVEL_TIME, 8.0);
+        assertEquals(fastest.getTotalWeight(), freeFlow.getTotalWeight(), 1E-9);
+        assertEquals(fastest.getTotalWeight(), roadMap.earliestArrivalPath("Amsterdam", "Meppel", 8.0).getTotalWeight(), 1E-9);
+
+        TravelTimeProfile rushHours = TravelTimeProfile.rushHours(1.8);
+        for (Junction junction : roadMap.getVertices()) {
+            for (Road road : roadMap.getOutEdges(junction).values()) {
+                if (road.getMaxSpeed() >= 100) road.setProfile(rushHours);
+            }
+        }
+        Searcher.DGPath<Junction> night = roadMap.earliestArrivalPath("Amsterdam", "Meppel", 1.0);
+        Searcher.DGPath<Junction> morning = roadMap.earliestArrivalPath("Amsterdam", "Meppel", 7.5);
+        assertEquals(fastest.getTotalWeight(), night.getTotalWeight(), 1E-9);
+        assertTrue(morning.getTotalWeight() > fastest.getTotalWeight());
+        assertEquals(Searcher.timeDependentShortestPath(roadMap, "Amsterdam", "Meppel",
+                Road.TIME_DEPENDENT_TRAVEL_TIME, 7.5).getTotalWeight(), morning.getTotalWeight(), 1E-9);
+        // the earliest arrival at 7:30 never exceeds the static route driven at 7:30
+        double staticRouteAtPeak = 0.0;
+        for (int i = 1; i < fastest.getVertices().size(); i++) {
+            Road road = roadMap.getEdge(fastest.getVertices().get(i - 1).getId(), fastest.getVertices().get(i).getId());
+            staticRouteAtPeak += road.getTravelTime(7.5 + staticRouteAtPeak);
+        }
+        assertTrue(morning.getTotalWeight() <= staticRouteAtPeak + 1E-9);
+
+        // the speed bounds of the heuristics are derived once, until a road changes
+        assertSame(roadMap.travelTimeHeuristic(), roadMap.travelTimeHeuristic());
+        Heuristic<Junction> heuristic = roadMap.travelTimeHeuristic();
+        roadMap.getEdge("Diemen", "Weesp").setMaxSpeed(150);
+        assertNotSame(heuristic, roadMap.travelTimeHeuristic());
+
+        assertNull(roadMap.earliestArrivalPath("Amsterdam", "Atlantis", 8.0));
+        assertEquals(0.0, roadMap.earliestArrivalPath("Meppel", "Meppel", 8.0).getTotalWeight());
+    }
+
+    @Test
+    void checkDynamicShortestPathTreeRepairsIncidents() {
+        DynamicShortestPathTree<Junction, Road> tree = DynamicShortestPathTree.of(roadMap, "Amsterdam", Road.TRAVEL_TIME);
+        Searcher.DGPath<Junction> fastest = tree.getPath("Meppel");
+        assertEquals(Searcher.dijkstraShortestPath(roadMap, "Amsterdam", "Meppel", Road.TRAVEL_TIME).getTotalWeight(),
+                fastest.getTotalWeight(), 1E-9);
+
+        // an incident slows down a road halfway the route in both directions, and is cleared again
+        String fromId = fastest.getVertices().get(fastest.getVertices().size() / 2).getId();
+        String toId = fastest.getVertices().get(fastest.getVertices().size() / 2 + 1).getId();
+        Road road = roadMap.getEdge(fromId, toId);
+        int maxSpeed = road.getMaxSpeed();
+        for (int speed : new int[]{5, maxSpeed}) {
+            road.setMaxSpeed(speed);
+            if (roadMap.getEdge(toId, fromId) != null) roadMap.getEdge(toId, fromId).setMaxSpeed(speed);
+            assertTrue(tree.updateEdge(fromId, toId) > 0);
+            tree.updateEdge(toId, fromId);
+
+            ShortestPathTree<Junction> expected = Searcher.shortestPathTree(roadMap, "Amsterdam", Road.TRAVEL_TIME, Double.MAX_VALUE);
+            for (Junction junction : roadMap.getVertices()) {
+                assertEquals(expected.getWeight(junction), tree.getWeight(junction), 1E-9);
+            }
+        }
+        assertEquals(fastest.getTotalWeight(), tree.getWeight("Meppel"), 1E-9);
+    }
+
+    @Test
+    void checkCopiedRoadsKeepTheirOwnVersion() {
+        CsrGraph<Junction, Road> copy = roadMap.copyRoads();
+        double[] column = copy.weightColumn(Road.TRAVEL_TIME);
+        long version = roadMap.getVersion();
+        long decreaseVersion = roadMap.getDecreaseVersion();
+
+        copy.getEdge("Diemen", "Weesp").setMaxSpeed(200);
+        assertEquals(version, roadMap.getVersion());
+        assertEquals(decreaseVersion, roadMap.getDecreaseVersion());
+        assertNotSame(column, copy.weightColumn(Road.TRAVEL_TIME));
+
+        column = copy.weightColumn(Road.TRAVEL_TIME);
+        roadMap.getEdge("Diemen", "Weesp").setMaxSpeed(5);
+        assertTrue(roadMap.getVersion() > version);
+        assertSame(column, copy.weightColumn(Road.TRAVEL_TIME));
+        assertEquals(decreaseVersion, roadMap.getDecreaseVersion());
+        roadMap.getEdge("Diemen", "Weesp").setMaxSpeed(100);
+        assertTrue(roadMap.getDecreaseVersion() > decreaseVersion);
+    }
+}
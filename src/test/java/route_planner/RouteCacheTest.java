@@ -0,0 +1,92 @@
+package route_planner;
+
+import graphs.Searcher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteCacheTest {
+
+    RoadMap roadMap;
+
+    @BeforeEach
+    void setUp() {
+        RoadMap.reSeedRandomizer(20211220L);
+        roadMap = new RoadMap("Junctions.csv", "Roads.csv");
+    }
+
+    @Test
+    void checkHitsAndMisses() {
+        RouteCache cache = new RouteCache(roadMap, 10, RouteCache.Invalidation.CHANGED_ROADS);
+        Searcher.DGPath<Junction> path = cache.shortestPath("Amsterdam", "Meppel", Road.TRAVEL_TIME);
+        assertEquals(Searcher.dijkstraShortestPath(roadMap, "Amsterdam", "Meppel", Road.TRAVEL_TIME).getTotalWeight(),
+                path.getTotalWeight(), 1E-9);
+        assertSame(path, cache.shortestPath("Amsterdam", "Meppel", Road.TRAVEL_TIME));
+        assertNotSame(path, cache.shortestPath("Amsterdam", "Meppel", Road.DISTANCE));
+        assertNull(cache.shortestPath("Amsterdam", "Atlantis", Road.DISTANCE));
+        assertNull(cache.shortestPath("Amsterdam", "Atlantis", Road.DISTANCE));
+
+        RouteCache.Stats stats = cache.getStats();
+        assertEquals(2, stats.getHits());
+        assertEquals(3, stats.getMisses());
+        assertEquals(0.4, stats.getHitRate(), 1E-9);
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    void checkLeastRecentlyUsedRouteIsEvicted() {
+        RouteCache cache = new RouteCache(roadMap, 2, RouteCache.Invalidation.GRAPH_VERSION);
+        cache.shortestPath("Amsterdam", "Meppel", Road.TRAVEL_TIME);
+        cache.shortestPath("Amsterdam", "Diemen", Road.TRAVEL_TIME);
+        cache.shortestPath("Amsterdam", "Meppel", Road.TRAVEL_TIME);
+        cache.shortestPath("Amsterdam", "Weesp", Road.TRAVEL_TIME);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getStats().getEvictions());
+        cache.shortestPath("Amsterdam", "Meppel", Road.TRAVEL_TIME);
+        assertEquals(2, cache.getStats().getHits());
+        cache.shortestPath("Amsterdam", "Diemen", Road.TRAVEL_TIME);
+        assertEquals(4, cache.getStats().getMisses());
+        assertThrows(IllegalArgumentException.class, () -> new RouteCache(roadMap, 0, RouteCache.Invalidation.GRAPH_VERSION));
+    }
+
+    @Test
+    void checkGraphVersionInvalidatesAllRoutes() {
+        RouteCache cache = new RouteCache(roadMap, 10, RouteCache.Invalidation.GRAPH_VERSION);
+        Searcher.DGPath<Junction> path = cache.shortestPath("Amsterdam", "Meppel", Road.TRAVEL_TIME);
+        Road elsewhere = roadMap.getEdge("Diemen", "Weesp");
+        elsewhere.setMaxSpeed(elsewhere.getMaxSpeed() - 10);
+
+        assertNotSame(path, cache.shortestPath("Amsterdam", "Meppel", Road.TRAVEL_TIME));
+        assertEquals(1, cache.getStats().getInvalidations());
+    }
+
+    @Test
+    void checkChangedRoadsInvalidateOnlyAffectedRoutes() {
+        RouteCache cache = new RouteCache(roadMap, 10, RouteCache.Invalidation.CHANGED_ROADS);
+        Searcher.DGPath<Junction> path = cache.shortestPath("Amsterdam", "Meppel", Road.TRAVEL_TIME);
+
+        // slowing down a road off the route cannot give a better route
+        Road elsewhere = roadMap.getEdge("Utrecht", "Zeist");
+        for (Junction junction : path.getVertices()) {
+            assertNotEquals("Utrecht", junction.getId());
+        }
+        elsewhere.setMaxSpeed(elsewhere.getMaxSpeed() - 10);
+        assertSame(path, cache.shortestPath("Amsterdam", "Meppel", Road.TRAVEL_TIME));
+
+        // slowing down a road on the route does
+        Road onRoute = roadMap.getEdge(path.getVertices().get(0), path.getVertices().get(1));
+        onRoute.setMaxSpeed(onRoute.getMaxSpeed() / 2);
+        Searcher.DGPath<Junction> detour = cache.shortestPath("Amsterdam", "Meppel", Road.TRAVEL_TIME);
+        assertNotSame(path, detour);
+        assertEquals(Searcher.dijkstraShortestPath(roadMap, "Amsterdam", "Meppel", Road.TRAVEL_TIME).getTotalWeight(),
+                detour.getTotalWeight(), 1E-9);
+
+        // and so does speeding up any road
+        elsewhere.setMaxSpeed(elsewhere.getMaxSpeed() + 20);
+        assertNotSame(detour, cache.shortestPath("Amsterdam", "Meppel", Road.TRAVEL_TIME));
+        assertEquals(2, cache.getStats().getInvalidations());
+        assertEquals(1, cache.getStats().getHits());
+    }
+}
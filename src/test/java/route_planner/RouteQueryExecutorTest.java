@@ -0,0 +1,154 @@
+package route_planner;
+
+import graphs.SearchOptions;
+import graphs.Searcher;
+import graphs.ShortestPathTree;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteQueryExecutorTest {
+
+    RoadMap roadMap;
+    List<RouteQueryExecutor.RouteQuery> queries;
+
+    @BeforeEach
+    void setUp() {
+        RoadMap.reSeedRandomizer(20211220L);
+        roadMap = new RoadMap("Junctions.csv", "Roads.csv");
+        queries = new ArrayList<>();
+        for (int j = 0; j < roadMap.getNumVertices(); j += 11) {
+            String fromId = roadMap.vertexAt(j).getId();
+            String toId = roadMap.vertexAt(roadMap.getNumVertices() - 1 - j).getId();
+            queries.add(new RouteQueryExecutor.RouteQuery(fromId, toId, j % 2 == 0 ? Road.TRAVEL_TIME : Road.DISTANCE));
+        }
+    }
+
+    @Test
+    void checkResultsInOrderMatchSerialSearches() throws ExecutionException, InterruptedException {
+        List<CompletableFuture<Searcher.DGPath<Junction>>> futures;
+        try (RouteQueryExecutor executor = new RouteQueryExecutor(roadMap, 4, 3)) {
+            futures = executor.submitAll(queries);
+        }
+        assertEquals(queries.size(), futures.size());
+        for (int q = 0; q < queries.size(); q++) {
+            RouteQueryExecutor.RouteQuery query = queries.get(q);
+            Searcher.DGPath<Junction> expected =
+                    Searcher.dijkstraShortestPath(roadMap, query.getFromId(), query.getToId(), query.getMetric());
+            Searcher.DGPath<Junction> path = futures.get(q).get();
+            assertTrue(futures.get(q).isDone());
+            if (expected == null) {
+                assertNull(path);
+            } else {
+                assertEquals(expected.getTotalWeight(), path.getTotalWeight(), 1E-9);
+            }
+        }
+    }
+
+    @Test
+    void checkResultsAsTheyComplete() throws ExecutionException, InterruptedException {
+        Map<RouteQueryExecutor.RouteQuery, Double> weights = new ConcurrentHashMap<>();
+        try (RouteQueryExecutor executor = new RouteQueryExecutor(roadMap)) {
+            executor.forEachCompleted(queries,
+                    (query, path) -> weights.put(query, path == null ? Double.NaN : path.getTotalWeight())).get();
+        }
+        assertEquals(queries.size(), weights.size());
+    }
+
+    @Test
+    void checkSnapshotIsolatesRoadChanges() throws ExecutionException, InterruptedException {
+        try (RouteQueryExecutor executor = new RouteQueryExecutor(roadMap, 2, 2)) {
+            double before = executor.submit(
+                    new RouteQueryExecutor.RouteQuery("Amsterdam", "Meppel", Road.TRAVEL_TIME)).get().getTotalWeight();
+            for (Junction junction : roadMap.getVertices()) {
+                roadMap.forEachOutEdge(junction, (neighbour, road) -> road.setMaxSpeed(5));
+            }
+            double after = executor.submit(
+                    new RouteQueryExecutor.RouteQuery("Amsterdam", "Meppel", Road.TRAVEL_TIME)).get().getTotalWeight();
+            assertEquals(before, after, 1E-9);
+        }
+    }
+
+    @Test
+    void checkBackPressureBoundsQueriesInFlight() throws ExecutionException, InterruptedException {
+        int maxInFlight = 0;
+        List<CompletableFuture<Searcher.DGPath<Junction>>> futures = new ArrayList<>();
+        try (RouteQueryExecutor executor = new RouteQueryExecutor(roadMap, 4, 2)) {
+            for (RouteQueryExecutor.RouteQuery query : queries) {
+                futures.add(executor.submit(query));
+                maxInFlight = Math.max(maxInFlight, executor.getNumInFlight());
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get();
+            assertEquals(0, executor.getNumInFlight());
+        }
+        assertTrue(maxInFlight <= 2, "At most 2 queries should be in flight, found " + maxInFlight);
+        assertThrows(IllegalArgumentException.class, () -> new RouteQueryExecutor(roadMap, 0, 1));
+    }
+
+    @Test
+    void checkQueriesWithinSearchLimits() throws ExecutionException, InterruptedException {
+        RouteQueryExecutor.RouteQuery trip = new RouteQueryExecutor.RouteQuery("Amsterdam", "Meppel", Road.TRAVEL_TIME);
+        try (RouteQueryExecutor executor = new RouteQueryExecutor(roadMap, 2, 2)) {
+            Searcher.DGPath<Junction> path = executor.submit(trip, SearchOptions.UNBOUNDED.withTimeout(1, TimeUnit.MINUTES)).get();
+            assertTrue(path.isComplete());
+            assertEquals(executor.submit(trip).get().getTotalWeight(), path.getTotalWeight(), 1E-9);
+
+            Searcher.DGPath<Junction> budget = executor.submit(trip, SearchOptions.UNBOUNDED.withMaxSettled(10)).get();
+            assertEquals(SearchOptions.Termination.MAX_SETTLED, budget.getTermination());
+            assertEquals(10, budget.getVisited().size());
+            assertTrue(budget.getTotalWeight() <= path.getTotalWeight());
+
+            assertEquals(SearchOptions.Termination.DEADLINE, executor.submit(trip,
+                    SearchOptions.UNBOUNDED.withDeadline(System.nanoTime())).get().getTermination());
+            assertNull(executor.submit(new RouteQueryExecutor.RouteQuery("Amsterdam", "Atlantis", Road.TRAVEL_TIME),
+                    SearchOptions.UNBOUNDED).get());
+            assertTrue(executor.submit(trip, null).get().isComplete());
+        }
+    }
+
+    @Test
+    void checkCancelledQueryStopsItsSearch() throws ExecutionException, InterruptedException {
+        // the farthest junction, such that the search passes several checks of its cancellation
+        ShortestPathTree<Junction> tree = Searcher.shortestPathTree(roadMap, "Amsterdam", Road.TRAVEL_TIME, Double.MAX_VALUE);
+        RouteQueryExecutor.RouteQuery trip = new RouteQueryExecutor.RouteQuery(
+                "Amsterdam", tree.vertexAt(tree.size() - 1).getId(), Road.TRAVEL_TIME);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        AtomicInteger checks = new AtomicInteger();
+        SearchOptions options = SearchOptions.UNBOUNDED.withCancellation(() -> {
+            // holds the search at its first check until the query has been cancelled
+            if (checks.incrementAndGet() == 1) {
+                started.countDown();
+                try {
+                    cancelled.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return false;
+        });
+
+        try (RouteQueryExecutor executor = new RouteQueryExecutor(roadMap, 1, 1)) {
+            CompletableFuture<Searcher.DGPath<Junction>> future = executor.submit(trip, options);
+            started.await();
+            assertTrue(future.cancel(true));
+            cancelled.countDown();
+            // the next query can only be submitted once the cancelled search has released its permit
+            assertNotNull(executor.submit(trip).get());
+        }
+        // the search stopped at the check during which it was cancelled, instead of settling all junctions
+        assertEquals(1, checks.get());
+        assertTrue(tree.size() > 2 * SearchOptions.CHECK_INTERVAL);
+    }
+}
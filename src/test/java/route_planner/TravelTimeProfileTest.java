@@ -0,0 +1,59 @@
+package route_planner;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TravelTimeProfileTest {
+
+    @Test
+    void checkInterpolation() {
+        TravelTimeProfile profile = TravelTimeProfile.rushHours(2.0);
+        assertEquals(1.0, profile.factorAt(3.0), 1e-12);
+        assertEquals(1.0, profile.factorAt(6.0), 1e-12);
+        assertEquals(1.5, profile.factorAt(7.0), 1e-12);
+        assertEquals(2.0, profile.factorAt(8.0), 1e-12);
+        assertEquals(1.25, profile.factorAt(9.5), 1e-12);
+        assertEquals(2.0, profile.factorAt(17.0), 1e-12);
+        assertEquals(1.0, profile.getMinFactor());
+        assertEquals(6, profile.getNumBreakpoints());
+    }
+
+    @Test
+    void checkProfileRepeatsDaily() {
+        TravelTimeProfile profile = TravelTimeProfile.of(new double[]{2.0, 14.0}, new double[]{1.0, 3.0});
+        // from 14:00 towards 2:00 of the next day, and from 14:00 of the day before towards 2:00
+        assertEquals(2.0, profile.factorAt(20.0), 1e-12);
+        assertEquals(1.5, profile.factorAt(23.0), 1e-12);
+        assertEquals(1.5, profile.factorAt(-1.0), 1e-12);
+        assertEquals(1.25, profile.factorAt(0.5), 1e-12);
+        assertEquals(profile.factorAt(7.0), profile.factorAt(7.0 + 3 * TravelTimeProfile.HOURS_PER_DAY), 1e-12);
+        assertEquals(1.0, TravelTimeProfile.FREE_FLOW.factorAt(8.0));
+    }
+
+    @Test
+    void checkProfilesAreShared() {
+        double[] hours = {7.0, 9.0};
+        double[] factors = {1.0, 1.8};
+        TravelTimeProfile profile = TravelTimeProfile.of(hours, factors);
+        hours[0] = 8.0;
+        assertSame(profile, TravelTimeProfile.of(new double[]{7.0, 9.0}, new double[]{1.0, 1.8}));
+        assertSame(TravelTimeProfile.rushHours(1.6), TravelTimeProfile.rushHours(1.6));
+        assertNotSame(TravelTimeProfile.rushHours(1.6), TravelTimeProfile.rushHours(1.7));
+        assertSame(TravelTimeProfile.FREE_FLOW, TravelTimeProfile.of(new double[]{0.0}, new double[]{1.0}));
+    }
+
+    @Test
+    void checkInvalidBreakpointsAreRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> TravelTimeProfile.of(new double[]{}, new double[]{}));
+        assertThrows(IllegalArgumentException.class,
+                () -> TravelTimeProfile.of(new double[]{1.0, 2.0}, new double[]{1.0}));
+        assertThrows(IllegalArgumentException.class,
+                () -> TravelTimeProfile.of(new double[]{2.0, 1.0}, new double[]{1.0, 1.0}));
+        assertThrows(IllegalArgumentException.class,
+                () -> TravelTimeProfile.of(new double[]{24.0}, new double[]{1.0}));
+        assertThrows(IllegalArgumentException.class,
+                () -> TravelTimeProfile.of(new double[]{1.0}, new double[]{0.0}));
+    }
+}